@@ -3,9 +3,14 @@ package com.ecommerce;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableCaching
+// Caching wraps the transactional proxy so cache hits never open a transaction;
+// background refreshes call the proxy again and so get a transaction of their own.
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+@EnableScheduling
 public class SpringCommerceApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,88 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.entity.CatalogChange;
+import com.ecommerce.enums.CatalogChangeType;
+import com.ecommerce.event.CategoryChangedEvent;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.repository.CatalogChangeRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Appends every catalog write to the {@code catalog_change_log} table. Product and category rows
+ * are written before commit, in the same transaction as the write itself, so a change is logged
+ * exactly when it becomes visible. {@link CatalogChangePoller} tails the table on the other nodes.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.coherence", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class CatalogChangeLog {
+
+    private static final ThreadLocal<Boolean> REPLAYING = ThreadLocal.withInitial(() -> false);
+
+    private final CatalogChangeRepository changeRepository;
+    private final ObjectMapper objectMapper;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (REPLAYING.get()) {
+            return;
+        }
+        try {
+            String before = event.before() == null ? null : objectMapper.writeValueAsString(event.before());
+            append(CatalogChangeType.PRODUCT, event.productId(), before);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize product " + event.productId(), ex);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (!REPLAYING.get()) {
+            append(CatalogChangeType.CATEGORY, event.categoryId(), null);
+        }
+    }
+
+    /**
+     * Records a bulk write that bypassed the change events, such as an import.
+     */
+    public void catalogReplaced() {
+        append(CatalogChangeType.CATALOG, null, null);
+    }
+
+    /**
+     * Runs {@code replay} without logging the change events it publishes, so applying another
+     * node's change does not echo it back into the log.
+     */
+    void replaying(Runnable replay) {
+        REPLAYING.set(true);
+        try {
+            replay.run();
+        } finally {
+            REPLAYING.remove();
+        }
+    }
+
+    private void append(CatalogChangeType type, Long entityId, String payload) {
+        changeRepository.save(CatalogChange.builder()
+                .entityType(type)
+                .entityId(entityId)
+                .payload(payload)
+                .nodeId(nodeId)
+                .createdAt(Instant.now())
+                .build());
+    }
+}
@@ -0,0 +1,151 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.config.CoherenceProperties;
+import com.ecommerce.entity.CatalogChange;
+import com.ecommerce.event.CategoryChangedEvent;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductSnapshot;
+import com.ecommerce.index.CatalogIndexer;
+import com.ecommerce.repository.CatalogChangeRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails the catalog change log and applies other nodes' writes locally, by replaying the same
+ * change events a local write publishes: indexes are updated, affected cache entries evicted and
+ * ETags bumped. The product itself is re-read, so a replay always converges on the current row.
+ * <p>
+ * Auto-increment ids are handed out at insert but become visible at commit, so a slow transaction
+ * can commit an id below the high-water mark. Skipped ids are re-checked on every poll until they
+ * show up or {@code gap-timeout} passes (the transaction rolled back).
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.coherence", name = "enabled", havingValue = "true")
+@Slf4j
+@RequiredArgsConstructor
+public class CatalogChangePoller implements SchedulingConfigurer {
+
+    private static final int MAX_GAPS = 10_000;
+
+    private final CatalogChangeRepository changeRepository;
+    private final CatalogChangeLog changeLog;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final ProductCacheInvalidator cacheInvalidator;
+    private final CatalogIndexer catalogIndexer;
+    private final CatalogVersions catalogVersions;
+    private final CoherenceProperties properties;
+
+    private final Map<Long, Instant> gaps = new HashMap<>();
+    private long lastId = -1;
+
+    // Before the indexes are built on ApplicationReadyEvent; anything logged after this is replayed
+    @EventListener(ContextRefreshedEvent.class)
+    public synchronized void start() {
+        lastId = changeRepository.findMaxId();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(this::poll, properties.getPollInterval());
+    }
+
+    public synchronized void poll() {
+        if (lastId < 0) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<CatalogChange> changes = new ArrayList<>();
+        if (!gaps.isEmpty()) {
+            List<CatalogChange> late = changeRepository.findByIdInOrderByIdAsc(gaps.keySet());
+            late.forEach(change -> gaps.remove(change.getId()));
+            changes.addAll(late);
+        }
+        for (CatalogChange change : changeRepository.findByIdGreaterThanOrderByIdAsc(lastId,
+                PageRequest.of(0, properties.getBatchSize()))) {
+            for (long missing = lastId + 1; missing < change.getId() && gaps.size() < MAX_GAPS; missing++) {
+                gaps.put(missing, now);
+            }
+            lastId = change.getId();
+            changes.add(change);
+        }
+        Instant expired = now.minus(properties.getGapTimeout());
+        gaps.values().removeIf(seen -> seen.isBefore(expired));
+
+        int applied = 0;
+        for (CatalogChange change : changes) {
+            if (change.getNodeId().equals(changeLog.nodeId())) {
+                continue;
+            }
+            try {
+                apply(change);
+                applied++;
+            } catch (RuntimeException ex) {
+                log.warn("Could not apply catalog change {}: {}", change.getId(), ex.getMessage());
+            }
+        }
+        if (applied > 0) {
+            log.debug("Applied {} catalog changes from other nodes, up to id {}", applied, lastId);
+        }
+    }
+
+    @Scheduled(fixedDelay = 10, initialDelay = 10, timeUnit = TimeUnit.MINUTES)
+    public void purge() {
+        int deleted = changeRepository.deleteCreatedBefore(Instant.now().minus(properties.getRetention()));
+        if (deleted > 0) {
+            log.info("Purged {} catalog change log rows", deleted);
+        }
+    }
+
+    private void apply(CatalogChange change) {
+        switch (change.getEntityType()) {
+            case PRODUCT -> {
+                ProductSnapshot before = readSnapshot(change.getPayload());
+                ProductSnapshot after = productRepository.findSnapshotById(change.getEntityId()).orElse(null);
+                if (before != null || after != null) {
+                    changeLog.replaying(() -> eventPublisher.publishEvent(new ProductChangedEvent(before, after)));
+                }
+            }
+            case CATEGORY -> changeLog.replaying(
+                    () -> eventPublisher.publishEvent(new CategoryChangedEvent(change.getEntityId())));
+            case CATALOG -> {
+                // Same sequence as after a local import
+                cacheInvalidator.evictAll();
+                catalogIndexer.reindexAll();
+                cacheInvalidator.evictAll();
+                catalogVersions.catalogChanged();
+            }
+        }
+    }
+
+    private ProductSnapshot readSnapshot(String payload) {
+        if (payload == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(payload, ProductSnapshot.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unreadable product snapshot", ex);
+        }
+    }
+}
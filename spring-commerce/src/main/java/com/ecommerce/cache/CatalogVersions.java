@@ -0,0 +1,178 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.config.HttpCacheProperties;
+import com.ecommerce.event.CategoryChangedEvent;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductSnapshot;
+import com.ecommerce.index.ProductIndex;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version stamps for the catalog, used as ETags so conditional GETs can be answered without
+ * loading or serializing anything. Product and category tags are strong; listing tags are weak,
+ * since a listing may lag behind stock counts as described below.
+ * <p>
+ * A product's tag is its {@code updatedAt} and stock count, since hot SKU sales change the stock
+ * without writing the product row. Listings and the category list share counters that move on
+ * every write; they are prefixed with this instance's start time, so a restart or a different
+ * instance only costs a full response, never a wrong 304.
+ * <p>
+ * A change to nothing but a product's stock count, which every order makes, does not move the
+ * listing version straight away: it would empty the response cache and defeat revalidation on
+ * every sale. Listings show such counts, and pages sorted by stock their order, up to
+ * {@code app.http-cache.listing-stock-staleness} late, about the max-age they are already served
+ * with. Going in or out of stock changes what listings filter and count, so it moves the version
+ * at once like any other change.
+ */
+@Component
+public class CatalogVersions implements ProductIndex {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final AtomicLong categoryVersion = new AtomicLong();
+    private final Map<Long, String> productVersions = new ConcurrentHashMap<>();
+    // What listings show of each product, to tell stock count changes from the rest
+    private final Map<Long, Listing> listings = new ConcurrentHashMap<>();
+    // System.nanoTime() of the oldest stock count change listings do not show yet, 0 if there is none
+    private final AtomicLong stockChangedAt = new AtomicLong();
+    private final HttpCacheProperties properties;
+
+    public CatalogVersions(HttpCacheProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void rebuild(List<ProductSnapshot> products) {
+        productVersions.clear();
+        listings.clear();
+        products.forEach(product -> {
+            productVersions.put(product.id(), versionOf(product));
+            listings.put(product.id(), Listing.of(product));
+        });
+        catalogVersion.incrementAndGet();
+    }
+
+    /**
+     * Called with the other indexes, before cached responses are evicted: the product's tag is
+     * withdrawn so nothing stale can be validated against it until {@link #onProductChanged} runs.
+     */
+    @Override
+    public void upsert(ProductSnapshot product) {
+        productVersions.remove(product.id());
+        Listing listing = Listing.of(product);
+        Listing previous = listings.put(product.id(), listing);
+        if (previous == null || !listing.onlyStockCountDiffers(previous)) {
+            catalogVersion.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        productVersions.remove(productId);
+        listings.remove(productId);
+        catalogVersion.incrementAndGet();
+    }
+
+    // Runs after ProductCacheInvalidator, so the new versions are only handed out once the caches are clean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.after() != null) {
+            productVersions.put(event.productId(), versionOf(event.after()));
+        }
+        if (event.before() != null && event.after() != null
+                && Listing.of(event.after()).onlyStockCountDiffers(Listing.of(event.before()))) {
+            // Picked up by catalogTag once it has waited long enough
+            stockChangedAt.compareAndSet(0, System.nanoTime());
+            return;
+        }
+        catalogVersion.incrementAndGet();
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        categoryVersion.incrementAndGet();
+        // Listings embed category names
+        catalogVersion.incrementAndGet();
+    }
+
+    /**
+     * Moves the listing version after a bulk write; product tags are refreshed by {@link #rebuild}.
+     */
+    public void catalogChanged() {
+        catalogVersion.incrementAndGet();
+    }
+
+    /**
+     * ETag of a product's detail response, or {@code null} if the product is unknown.
+     */
+    public String productTag(Long productId) {
+        String version = productVersions.get(productId);
+        return version == null ? null : "\"p" + productId + "-" + version + "\"";
+    }
+
+    /**
+     * Weak ETag of the listings: the same tag may cover stock counts that have since changed.
+     */
+    public String catalogTag() {
+        long changedAt = stockChangedAt.get();
+        if (changedAt != 0 && System.nanoTime() - changedAt >= properties.getListingStockStaleness().toNanos()
+                && stockChangedAt.compareAndSet(changedAt, 0)) {
+            catalogVersion.incrementAndGet();
+        }
+        return "W/\"c" + epoch + "-" + catalogVersion.get() + "\"";
+    }
+
+    public String categoriesTag() {
+        return "\"k" + epoch + "-" + categoryVersion.get() + "\"";
+    }
+
+    /**
+     * Same version as {@link #categoriesTag()}, for the nested tree representation.
+     */
+    public String categoryTreeTag() {
+        return "\"t" + epoch + "-" + categoryVersion.get() + "\"";
+    }
+
+    /**
+     * The parts of a product a listing shows or filters on, with the stock count kept apart.
+     */
+    private record Listing(Fields fields, Integer stockQuantity) {
+
+        static Listing of(ProductSnapshot product) {
+            boolean inStock = product.stockQuantity() != null && product.stockQuantity() > 0;
+            return new Listing(new Fields(product.name(), product.description(), product.price(),
+                    product.categoryId(), product.categoryName(), inStock), product.stockQuantity());
+        }
+
+        boolean onlyStockCountDiffers(Listing other) {
+            return fields.equals(other.fields) && !Objects.equals(stockQuantity, other.stockQuantity);
+        }
+    }
+
+    private record Fields(String name, String description, BigDecimal price, Long categoryId, String categoryName,
+                          boolean inStock) {
+    }
+
+    // products.updated_at keeps microseconds, so every write to the row gets a version of its own
+    private static String versionOf(ProductSnapshot product) {
+        long updatedAt = 0;
+        if (product.updatedAt() != null) {
+            var instant = product.updatedAt().toInstant(ZoneOffset.UTC);
+            updatedAt = instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000;
+        }
+        return updatedAt + "-" + product.stockQuantity();
+    }
+}
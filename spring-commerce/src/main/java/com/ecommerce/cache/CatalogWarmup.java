@@ -0,0 +1,183 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.config.WarmupProperties;
+import com.ecommerce.dto.response.CategoryResponse;
+import com.ecommerce.dto.response.WarmupStatusResponse;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.CategoryService;
+import com.ecommerce.service.ProductService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Fills the {@code products} and {@code categories} caches before the node takes traffic, so a
+ * fresh deploy does not send its first minutes of reads straight to the database.
+ * <p>
+ * Runs inside the {@link ApplicationReadyEvent} listeners, after the catalog indexes are built.
+ * Spring Boot only marks the application ready (the readiness probe) once those listeners return,
+ * so the node stays out of rotation until the warm-up finishes or its time budget runs out. The
+ * loads go through the service proxies, so they land under exactly the keys live requests use.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CatalogWarmup {
+
+    public enum State { DISABLED, PENDING, RUNNING, COMPLETED, TIMED_OUT }
+
+    private final WarmupProperties properties;
+    private final ProductService productService;
+    private final CategoryService categoryService;
+    private final ProductRepository productRepository;
+
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger categories = new AtomicInteger();
+    private final AtomicInteger products = new AtomicInteger();
+    private final AtomicInteger listingPages = new AtomicInteger();
+    private volatile State state = State.PENDING;
+    private volatile boolean stopped;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!properties.isEnabled()) {
+            state = State.DISABLED;
+            return;
+        }
+        warmUp();
+    }
+
+    public void warmUp() {
+        List.of(total, completed, failed, categories, products, listingPages).forEach(counter -> counter.set(0));
+        stopped = false;
+        finishedAt = null;
+        startedAt = Instant.now();
+        state = State.RUNNING;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, properties.getConcurrency()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-warmup");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            // Listings are warmed per category, so the category list is needed up front
+            total.incrementAndGet();
+            List<CategoryResponse> allCategories = load(categories, categoryService::getAllCategories);
+            submit(executor, categories, categoryService::getCategoryTree);
+
+            for (Long id : topProductIds()) {
+                submit(executor, products, () -> productService.getProductById(id));
+            }
+
+            List<Long> listingCategories = new ArrayList<>();
+            listingCategories.add(null);
+            if (allCategories != null) {
+                allCategories.forEach(category -> listingCategories.add(category.getId()));
+            }
+            for (int page = 0; page < properties.getPagesPerCategory(); page++) {
+                PageRequest pageable = PageRequest.of(page, properties.getPageSize());
+                for (Long categoryId : listingCategories) {
+                    submit(executor, listingPages,
+                            () -> productService.getAllProducts(null, categoryId, null, null, pageable));
+                }
+            }
+
+            executor.shutdown();
+            boolean finished = executor.awaitTermination(remainingBudget(), TimeUnit.MILLISECONDS);
+            state = finished ? State.COMPLETED : State.TIMED_OUT;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            state = State.TIMED_OUT;
+        } finally {
+            // Loads already running finish on their own; queued ones see the flag and skip
+            stopped = true;
+            executor.shutdown();
+            finishedAt = Instant.now();
+        }
+        log.info("Cache warm-up {} in {} ms: {} categories, {} products, {} listing pages, {} failed, {} skipped",
+                state, Duration.between(startedAt, finishedAt).toMillis(), categories.get(), products.get(),
+                listingPages.get(), failed.get(), total.get() - completed.get() - failed.get());
+    }
+
+    public WarmupStatusResponse status() {
+        Instant start = startedAt;
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        int done = completed.get();
+        int errors = failed.get();
+        boolean finished = state == State.COMPLETED || state == State.TIMED_OUT;
+        return WarmupStatusResponse.builder()
+                .state(state.name())
+                .startedAt(start)
+                .elapsedMs(start == null ? null : Duration.between(start, end).toMillis())
+                .totalTasks(total.get())
+                .completedTasks(done)
+                .failedTasks(errors)
+                .skippedTasks(finished ? total.get() - done - errors : 0)
+                .categoriesLoaded(categories.get())
+                .productsLoaded(products.get())
+                .listingPagesLoaded(listingPages.get())
+                .build();
+    }
+
+    private List<Long> topProductIds() {
+        int limit = properties.getTopProducts();
+        if (limit <= 0) {
+            return List.of();
+        }
+        Set<Long> ids = new LinkedHashSet<>(productRepository.findBestSellingIds(PageRequest.of(0, limit)));
+        if (ids.size() < limit) {
+            // findNewestIds may repeat best sellers, so ask for enough to still fill the quota
+            ids.addAll(productRepository.findNewestIds(PageRequest.of(0, limit)));
+        }
+        return ids.stream().limit(limit).toList();
+    }
+
+    private void submit(ExecutorService executor, AtomicInteger phase, Supplier<?> loader) {
+        total.incrementAndGet();
+        executor.execute(() -> {
+            if (!stopped) {
+                load(phase, loader);
+            }
+        });
+    }
+
+    private <T> T load(AtomicInteger phase, Supplier<T> loader) {
+        try {
+            T value = loader.get();
+            phase.incrementAndGet();
+            completed.incrementAndGet();
+            return value;
+        } catch (RuntimeException ex) {
+            failed.incrementAndGet();
+            log.warn("Cache warm-up load failed: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    private long remainingBudget() {
+        long elapsed = Duration.between(startedAt, Instant.now()).toMillis();
+        return Math.max(0, properties.getTimeBudget().toMillis() - elapsed);
+    }
+}
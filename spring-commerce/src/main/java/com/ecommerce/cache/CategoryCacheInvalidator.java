@@ -0,0 +1,31 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.config.CacheConfig;
+import com.ecommerce.event.CategoryChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Clears the {@code categories} cache when a category changes. The cache is small and the list
+ * entry changes with every category write, so there is nothing to gain from targeted eviction.
+ */
+@Component
+@RequiredArgsConstructor
+public class CategoryCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    // Before CatalogVersions hands out a new categories ETag
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        Cache cache = cacheManager.getCache(CacheConfig.CATEGORIES);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
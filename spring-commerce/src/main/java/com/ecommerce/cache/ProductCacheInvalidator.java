@@ -0,0 +1,133 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.config.CacheConfig;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductSnapshot;
+import com.ecommerce.index.CategoryHierarchy;
+import com.ecommerce.index.ProductSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Evicts only the {@code products} cache entries that a product write can change: the product's
+ * detail entry and the listing pages whose filter matched the product before or after the write.
+ * Pages for other categories, price ranges or search terms stay warm. Within a matching selection,
+ * every page is evicted when the write can reorder it, and otherwise only the pages holding the product.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ProductCacheInvalidator {
+
+    private final CacheManager cacheManager;
+    private final ProductSearchIndex searchIndex;
+    private final CategoryHierarchy categoryHierarchy;
+    private final ObjectProvider<ResponseBodyCache> responseBodyCache;
+
+    // After CatalogIndexer, before CatalogVersions hands out new ETags
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS);
+        if (cache == null) {
+            return;
+        }
+        cache.evict("detail_" + event.productId());
+        responseBodyCache.ifAvailable(bodies -> bodies.evictProduct(event.productId()));
+
+        if (!(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache)) {
+            cache.clear();
+            return;
+        }
+
+        List<Object> stale = new ArrayList<>();
+        for (Map.Entry<?, ?> entry : nativeCache.asMap().entrySet()) {
+            if (entry.getKey() instanceof ProductQueryKey key && isAffected(key, entry.getValue(), event)) {
+                stale.add(key);
+            }
+        }
+        stale.forEach(cache::evict);
+        log.debug("Product {} changed, evicted {} cached pages", event.productId(), stale.size());
+    }
+
+    /**
+     * Drops every cached product page and detail entry, for writes that bypass the change events.
+     */
+    public void evictAll() {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS);
+        if (cache != null) {
+            cache.clear();
+        }
+        responseBodyCache.ifAvailable(ResponseBodyCache::clear);
+    }
+
+    private boolean isAffected(ProductQueryKey key, Object cached, ProductChangedEvent event) {
+        boolean matchedBefore = event.before() != null && matches(key, event.before());
+        boolean matchesAfter = event.after() != null && matches(key, event.after());
+        if (!matchedBefore && !matchesAfter) {
+            return false;
+        }
+        // Entering or leaving the result set shifts every page and changes the total count
+        if (matchedBefore != matchesAfter || sortPositionMayChange(key, event)) {
+            return true;
+        }
+        // Unsorted search pages are ranked by score, which any edit to the indexed text can move
+        if (key.search() != null && !key.isSorted() && indexedTextChanged(event)) {
+            return true;
+        }
+        return containsProduct(cached, event.productId());
+    }
+
+    private boolean matches(ProductQueryKey key, ProductSnapshot product) {
+        return key.matchesFilters(product, categoryHierarchy) && (key.search() == null || searchIndex.matches(key.search(), product));
+    }
+
+    private boolean sortPositionMayChange(ProductQueryKey key, ProductChangedEvent event) {
+        ProductSnapshot before = event.before();
+        ProductSnapshot after = event.after();
+        for (String property : key.sortProperties()) {
+            Object previous = before.property(property);
+            if (previous == null || !sameValue(previous, after.property(property))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean indexedTextChanged(ProductChangedEvent event) {
+        ProductSnapshot before = event.before();
+        ProductSnapshot after = event.after();
+        return !Objects.equals(before.name(), after.name())
+                || !Objects.equals(before.description(), after.description())
+                || !Objects.equals(before.categoryName(), after.categoryName());
+    }
+
+    private boolean sameValue(Object previous, Object current) {
+        if (previous instanceof BigDecimal a && current instanceof BigDecimal b) {
+            return a.compareTo(b) == 0;
+        }
+        return Objects.equals(previous, current);
+    }
+
+    private boolean containsProduct(Object cached, Long productId) {
+        if (!(cached instanceof Slice<?> page)) {
+            return true;
+        }
+        return page.getContent().stream()
+                .anyMatch(item -> item instanceof ProductResponse response && productId.equals(response.getId()));
+    }
+}
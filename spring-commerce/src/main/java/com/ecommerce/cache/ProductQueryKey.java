@@ -0,0 +1,94 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.event.ProductSnapshot;
+import com.ecommerce.index.CategoryHierarchy;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Cache key for product listing, filter and search pages. Keeping the filter as structured fields
+ * lets {@link ProductCacheInvalidator} decide which pages a product write can affect.
+ */
+public record ProductQueryKey(
+        String search,
+        Long categoryId,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        int page,
+        int size,
+        String sort,
+        boolean slice) {
+
+    public static ProductQueryKey of(Pageable pageable) {
+        return of(null, null, null, null, pageable);
+    }
+
+    public static ProductQueryKey of(String search, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                     Pageable pageable) {
+        return new ProductQueryKey(
+                StringUtils.hasText(search) ? search.trim().toLowerCase() : null,
+                categoryId,
+                minPrice != null ? minPrice.stripTrailingZeros() : null,
+                maxPrice != null ? maxPrice.stripTrailingZeros() : null,
+                pageable.getPageNumber(),
+                pageable.getPageSize(),
+                describe(pageable.getSort()),
+                false);
+    }
+
+    /**
+     * Key for the count-free {@code Slice} of the same selection, cached apart from the counted page.
+     */
+    public static ProductQueryKey ofSlice(String search, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                          Pageable pageable) {
+        ProductQueryKey page = of(search, categoryId, minPrice, maxPrice, pageable);
+        return new ProductQueryKey(page.search, page.categoryId, page.minPrice, page.maxPrice, page.page, page.size,
+                page.sort, true);
+    }
+
+    /**
+     * Whether the product passes the category and price constraints; the search term is checked
+     * separately against the search index's matching rules. A category filter covers its subcategories.
+     */
+    public boolean matchesFilters(ProductSnapshot product, CategoryHierarchy categories) {
+        if (categoryId != null && !categories.isWithin(product.categoryId(), categoryId)) {
+            return false;
+        }
+        if (minPrice != null && product.price().compareTo(minPrice) < 0) {
+            return false;
+        }
+        return maxPrice == null || product.price().compareTo(maxPrice) <= 0;
+    }
+
+    public boolean isSorted() {
+        return sort != null;
+    }
+
+    /**
+     * The properties a page's order depends on. Unsorted pages with a price range and no search term
+     * are served from the price index in ascending price order, so price is their implicit sort.
+     */
+    public List<String> sortProperties() {
+        if (sort == null) {
+            return search == null && (minPrice != null || maxPrice != null) ? List.of("price") : List.of();
+        }
+        return Arrays.stream(sort.split(";"))
+                .map(order -> order.substring(0, order.indexOf(',')))
+                .toList();
+    }
+
+    private static String describe(Sort sort) {
+        if (sort.isUnsorted()) {
+            return null;
+        }
+        return sort.stream()
+                .map(order -> order.getProperty() + "," + order.getDirection())
+                .collect(Collectors.joining(";"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.ecommerce.cache;
+
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.context.ApplicationContext;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves {@code @Cacheable} caches like Spring's default resolver, but hands out each
+ * {@link RefreshingCaffeineCache} as a view that refreshes by calling the same method on the bean's
+ * proxy with the same arguments. Going through the proxy again gives the background refresh its own
+ * pass through the interceptors, so it runs in a transaction like any other call.
+ */
+public class RefreshingCacheResolver implements CacheResolver {
+
+    private final ApplicationContext applicationContext;
+    // Bean instance -> the proxy that wraps it
+    private final Map<Object, Object> proxies = new ConcurrentHashMap<>();
+
+    public RefreshingCacheResolver(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+        CacheManager cacheManager = applicationContext.getBean(CacheManager.class);
+        List<Cache> caches = new ArrayList<>();
+        for (String name : context.getOperation().getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache == null) {
+                throw new IllegalArgumentException("Cannot find cache named '" + name + "' for " + context.getOperation());
+            }
+            if (cache instanceof RefreshingCaffeineCache refreshing) {
+                Object proxy = proxyOf(context.getTarget());
+                cache = refreshing.refreshingThrough(
+                        proxy == null ? null : invoke(proxy, context.getMethod(), context.getArgs()));
+            }
+            caches.add(cache);
+        }
+        return caches;
+    }
+
+    private static Callable<Object> invoke(Object proxy, Method method, Object[] args) {
+        Object[] arguments = args.clone();
+        return () -> ReflectionUtils.invokeMethod(method, proxy, arguments);
+    }
+
+    /**
+     * The proxy around {@code target}, or {@code null} when it is not a proxied bean; such entries are
+     * then served until they expire and reloaded on the next miss.
+     */
+    private Object proxyOf(Object target) {
+        // A target with no proxy maps to itself
+        Object proxy = proxies.computeIfAbsent(target, this::findProxy);
+        return proxy == target ? null : proxy;
+    }
+
+    private Object findProxy(Object target) {
+        for (Object bean : applicationContext.getBeansOfType(AopUtils.getTargetClass(target)).values()) {
+            if (AopUtils.isAopProxy(bean) && AopProxyUtils.getSingletonTarget(bean) == target) {
+                return bean;
+            }
+        }
+        return target;
+    }
+}
@@ -0,0 +1,318 @@
+package com.ecommerce.cache;
+
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caffeine-backed cache that adds single-flight loading and refresh-after-write to Spring's
+ * synchronized {@code @Cacheable} path.
+ * <p>
+ * Concurrent misses for the same key share one in-flight load: the first caller runs the annotated
+ * method, the others wait for its result instead of each querying the database. The load runs
+ * outside Caffeine's own compute lock, so a slow query never blocks unrelated keys.
+ * <p>
+ * Caffeine can only refresh through a {@code LoadingCache}, but the value loader for a Spring cache
+ * entry is the annotated method itself, which is only known at {@link #get(Object, Callable)} time.
+ * When an entry read there is older than {@code refreshAfter}, the current value is returned and a
+ * refresh runs once in the background; misses arriving meanwhile join that refresh.
+ * <p>
+ * Spring's value loader is the rest of one intercepted call and must not be replayed on another
+ * thread, so {@code @Cacheable} methods refresh through {@link RefreshingCacheResolver}, which calls
+ * the bean again through its proxy. That call comes back into {@link #get(Object, Callable, Callable)}
+ * on the refresh thread, where its own loader runs with the full interceptor chain, transactions
+ * included.
+ * <p>
+ * Evicting a key abandons its in-flight load, so a result read before a write is never stored
+ * after the write's eviction. Eviction and the load's store both run under Caffeine's lock for the
+ * key, so one of them always sees the other; clearing the cache moves a generation that loads check
+ * before and after storing.
+ * <p>
+ * Values are stored with {@code put}, which Caffeine does not count as a load, so loads are recorded
+ * on the cache's {@link StatsCounter} here; it must be the one the native cache was built with.
+ */
+@Slf4j
+public class RefreshingCaffeineCache extends CaffeineCache {
+
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> cache;
+    private final StatsCounter stats;
+    private final Duration refreshAfter;
+    private final Executor executor;
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    // Moved by every clear, which cannot take each key's lock the way evict does
+    private final AtomicLong generation = new AtomicLong();
+    // The refresh this thread is running, so the refresher's call back into the cache loads instead of hitting
+    private final ThreadLocal<Refresh> refreshing = new ThreadLocal<>();
+
+    public RefreshingCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                                   StatsCounter stats, Duration refreshAfter, Executor executor) {
+        super(name, cache, false);
+        this.cache = cache;
+        this.stats = stats;
+        this.refreshAfter = refreshAfter;
+        this.executor = executor;
+    }
+
+    /**
+     * Refreshes by running {@code valueLoader} again in the background, which suits plain loaders only.
+     */
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return get(key, valueLoader, valueLoader);
+    }
+
+    /**
+     * Refreshes by running {@code refresher} in the background. It either returns the new value itself
+     * or calls back into this method for the same key, in which case that call's loader provides it.
+     * With no refresher, entries are served until they expire.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader, Callable<?> refresher) {
+        Refresh refresh = refreshing.get();
+        if (refresh != null && refresh.key().equals(key)) {
+            refreshing.remove();
+            try {
+                Object value = loadValue(valueLoader);
+                store(refresh, value);
+                return (T) fromStoreValue(value);
+            } catch (Exception ex) {
+                throw new ValueRetrievalException(key, valueLoader, ex);
+            }
+        }
+
+        Object cached = cache.getIfPresent(key);
+        if (cached != null) {
+            if (refresher != null && isRefreshDue(key)) {
+                scheduleRefresh(key, refresher);
+            }
+            return (T) fromStoreValue(cached);
+        }
+        return (T) fromStoreValue(load(key, valueLoader));
+    }
+
+    /**
+     * A view of this cache for one intercepted call, refreshing through {@code refresher} if not {@code null}.
+     */
+    public Cache refreshingThrough(Callable<?> refresher) {
+        return new RefreshingView(this, refresher);
+    }
+
+    @Override
+    public void evict(Object key) {
+        abandon(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return abandon(key);
+    }
+
+    @Override
+    public void clear() {
+        generation.incrementAndGet();
+        inFlight.clear();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        generation.incrementAndGet();
+        inFlight.clear();
+        return super.invalidate();
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        long started = generation.get();
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        while (true) {
+            CompletableFuture<Object> running = inFlight.putIfAbsent(key, own);
+            if (running == null) {
+                break;
+            }
+            try {
+                return running.join();
+            } catch (CancellationException ex) {
+                // A background refresh gave up; load it ourselves
+                inFlight.remove(key, running);
+            } catch (CompletionException ex) {
+                throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+            }
+        }
+
+        try {
+            // Another load may have finished between the cache miss and registering ours; the miss is already counted
+            Object value = cache.policy().getIfPresentQuietly(key);
+            if (value == null) {
+                value = loadValue(valueLoader);
+                storeIfCurrent(key, own, started, value);
+            }
+            own.complete(value);
+            return value;
+        } catch (Exception ex) {
+            own.completeExceptionally(ex);
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    private Object loadValue(Callable<?> valueLoader) throws Exception {
+        long start = System.nanoTime();
+        try {
+            Object value = toStoreValue(valueLoader.call());
+            stats.recordLoadSuccess(System.nanoTime() - start);
+            return value;
+        } catch (Exception ex) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            throw ex;
+        }
+    }
+
+    private boolean isRefreshDue(Object key) {
+        if (refreshAfter == null) {
+            return false;
+        }
+        return cache.policy().expireAfterWrite()
+                .flatMap(expiration -> expiration.ageOf(key))
+                .map(age -> age.compareTo(refreshAfter) >= 0)
+                .orElse(false);
+    }
+
+    private void scheduleRefresh(Object key, Callable<?> refresher) {
+        Refresh refresh = new Refresh(key, new CompletableFuture<>(), generation.get());
+        if (inFlight.putIfAbsent(key, refresh.future()) != null) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                refreshing.set(refresh);
+                long start = System.nanoTime();
+                try {
+                    Object value = refresher.call();
+                    if (!refresh.future().isDone()) {
+                        // The refresher produced the value itself instead of calling back into the cache
+                        stats.recordLoadSuccess(System.nanoTime() - start);
+                        store(refresh, toStoreValue(value));
+                    }
+                } catch (Exception ex) {
+                    if (refreshing.get() != null) {
+                        // Failures of a loader the refresher called back into are recorded there
+                        stats.recordLoadFailure(System.nanoTime() - start);
+                    }
+                    log.warn("Background refresh of {}::{} failed: {}", getName(), key, ex.getMessage());
+                    refresh.future().cancel(false);
+                } finally {
+                    refreshing.remove();
+                    inFlight.remove(key, refresh.future());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(key, refresh.future());
+            refresh.future().cancel(false);
+        }
+    }
+
+    private void store(Refresh refresh, Object value) {
+        storeIfCurrent(refresh.key(), refresh.future(), refresh.generation(), value);
+        refresh.future().complete(value);
+    }
+
+    /**
+     * Stores {@code value} only if {@code future} is still the key's in-flight load and no clear has
+     * run since it started. Checked and written under the key's lock, which {@link #abandon} takes too.
+     */
+    private void storeIfCurrent(Object key, CompletableFuture<Object> future, long started, Object value) {
+        cache.asMap().compute(key, (k, current) ->
+                inFlight.remove(k, future) && generation.get() == started ? value : current);
+        if (generation.get() != started) {
+            // A clear that began while the value was being written may have passed over it
+            cache.asMap().remove(key, value);
+        }
+    }
+
+    /**
+     * Drops the key and its in-flight load in one step, so a load cannot store between the two.
+     */
+    private boolean abandon(Object key) {
+        boolean[] present = new boolean[1];
+        cache.asMap().compute(key, (k, current) -> {
+            inFlight.remove(k);
+            present[0] = current != null;
+            return null;
+        });
+        return present[0];
+    }
+
+    private record Refresh(Object key, CompletableFuture<Object> future, long generation) {
+    }
+
+    private record RefreshingView(RefreshingCaffeineCache cache, Callable<?> refresher) implements Cache {
+
+        @Override
+        public String getName() {
+            return cache.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return cache.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            return cache.get(key);
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            return cache.get(key, type);
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            return cache.get(key, valueLoader, refresher);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            cache.put(key, value);
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            return cache.putIfAbsent(key, value);
+        }
+
+        @Override
+        public void evict(Object key) {
+            cache.evict(key);
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            return cache.evictIfPresent(key);
+        }
+
+        @Override
+        public void clear() {
+            cache.clear();
+        }
+
+        @Override
+        public boolean invalidate() {
+            return cache.invalidate();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.config.ResponseCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Final encoded bytes of catalog responses, with a gzip variant for larger bodies, so a hit is
+ * written out without touching Jackson or the compressor.
+ * <p>
+ * Every entry remembers the ETag it was rendered under and is only served while that tag is still
+ * current, so a product write makes its entries unreachable at once; the explicit evictions below
+ * run alongside the {@code products} cache evictions and only free the memory.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.response-cache", name = "enabled", havingValue = "true")
+public class ResponseBodyCache {
+
+    private final Cache<Key, Entry> cache;
+    private final long maximumEntrySize;
+    private final long gzipMinSize;
+
+    public ResponseBodyCache(ResponseCacheProperties properties) {
+        this.maximumEntrySize = properties.getMaximumEntrySize().toBytes();
+        this.gzipMinSize = properties.getGzipMinSize().toBytes();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumSize().toBytes())
+                .weigher((Key key, Entry entry) -> entry.weight())
+                .recordStats()
+                .build();
+    }
+
+    public Entry get(Key key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(Key key, String contentType, String etag, String cacheControl, byte[] body) {
+        if (body.length > maximumEntrySize) {
+            return;
+        }
+        byte[] gzipped = body.length >= gzipMinSize ? gzip(body) : null;
+        cache.put(key, new Entry(contentType, etag, cacheControl, body, gzipped));
+    }
+
+    /**
+     * Drops the product's detail responses and every listing, which may include the product.
+     */
+    public void evictProduct(Long productId) {
+        String detailPath = ResponseBodyCacheFilter.PRODUCTS_PATH + "/" + productId;
+        cache.asMap().keySet().removeIf(key -> key.path().equals(detailPath) || !key.isProductDetail());
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Normalized request: path, query parameters sorted by name, and the negotiated format.
+     */
+    public record Key(String path, String query, String format) {
+
+        boolean isProductDetail() {
+            return !path.equals(ResponseBodyCacheFilter.PRODUCTS_PATH)
+                    && !path.equals(ResponseBodyCacheFilter.SEARCH_PATH);
+        }
+    }
+
+    public record Entry(String contentType, String etag, String cacheControl, byte[] body, byte[] gzipped) {
+
+        int weight() {
+            return body.length + (gzipped == null ? 0 : gzipped.length) + 256;
+        }
+    }
+}
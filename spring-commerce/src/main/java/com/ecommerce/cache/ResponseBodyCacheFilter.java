@@ -0,0 +1,215 @@
+package com.ecommerce.cache;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Serves product detail, listing and search responses from {@link ResponseBodyCache}. Misses go
+ * through the controller as usual and the encoded body is captured on the way out; hits are
+ * validated against the current catalog version and written straight from the stored bytes,
+ * gzipped ones included.
+ * <p>
+ * Runs after Spring Security, so access rules and security headers apply to hits as well.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.response-cache", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ResponseBodyCacheFilter extends OncePerRequestFilter {
+
+    static final String PRODUCTS_PATH = "/api/v1/products";
+    static final String SEARCH_PATH = PRODUCTS_PATH + "/search";
+
+    private static final Pattern DETAIL_PATH = Pattern.compile("/api/v1/products/\\d{1,18}");
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+    private static final MediaType CBOR = MediaType.valueOf("application/cbor");
+    private static final String VARY = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
+
+    private final ResponseBodyCache cache;
+    private final CatalogVersions catalogVersions;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String currentTag = "GET".equals(request.getMethod()) ? currentTag(request.getRequestURI()) : null;
+        String format = currentTag == null ? null : format(request.getHeader(HttpHeaders.ACCEPT));
+        if (format == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        ResponseBodyCache.Key key = new ResponseBodyCache.Key(request.getRequestURI(), query(request), format);
+        ResponseBodyCache.Entry cached = cache.get(key);
+        if (cached != null && cached.etag().equals(currentTag)) {
+            write(cached, request, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, wrapper);
+            String etag = wrapper.getHeader(HttpHeaders.ETAG);
+            if (wrapper.getStatus() == HttpServletResponse.SC_OK && etag != null && wrapper.getContentType() != null
+                    && wrapper.getHeader(HttpHeaders.CONTENT_ENCODING) == null) {
+                cache.put(key, wrapper.getContentType(), etag, wrapper.getHeader(HttpHeaders.CACHE_CONTROL),
+                        wrapper.getContentAsByteArray());
+            }
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * The ETag a fresh response for this path would carry, or {@code null} if the path is not cached.
+     */
+    private String currentTag(String path) {
+        if (path.equals(PRODUCTS_PATH) || path.equals(SEARCH_PATH)) {
+            return catalogVersions.catalogTag();
+        }
+        if (DETAIL_PATH.matcher(path).matches()) {
+            return catalogVersions.productTag(Long.valueOf(path.substring(PRODUCTS_PATH.length() + 1)));
+        }
+        return null;
+    }
+
+    /**
+     * The format content negotiation will pick, or {@code null} for anything this cache does not store.
+     */
+    private static String format(String accept) {
+        if (!StringUtils.hasText(accept)) {
+            return "json";
+        }
+        try {
+            List<MediaType> types = MediaType.parseMediaTypes(accept);
+            MimeTypeUtils.sortBySpecificity(types);
+            for (MediaType type : types) {
+                if (type.getQualityValue() == 0) {
+                    continue;
+                }
+                if (type.includes(MediaType.APPLICATION_JSON)) {
+                    return "json";
+                }
+                if (type.isCompatibleWith(SMILE)) {
+                    return "smile";
+                }
+                if (type.isCompatibleWith(CBOR)) {
+                    return "cbor";
+                }
+            }
+        } catch (InvalidMediaTypeException | InvalidMimeTypeException ex) {
+            // Let the normal path produce the 400/406
+        }
+        return null;
+    }
+
+    private static String query(HttpServletRequest request) {
+        StringJoiner query = new StringJoiner("&");
+        for (Map.Entry<String, String[]> parameter : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            String name = URLEncoder.encode(parameter.getKey(), StandardCharsets.UTF_8);
+            for (String value : parameter.getValue()) {
+                query.add(name + "=" + URLEncoder.encode(value, StandardCharsets.UTF_8));
+            }
+        }
+        return query.toString();
+    }
+
+    private static void write(ResponseBodyCache.Entry cached, HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, cached.etag());
+        if (cached.cacheControl() != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cached.cacheControl());
+        }
+        response.setHeader(HttpHeaders.VARY, VARY);
+        if (matchesIfNoneMatch(request.getHeader(HttpHeaders.IF_NONE_MATCH), cached.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] body = cached.body();
+        if (cached.gzipped() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = cached.gzipped();
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(cached.contentType());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * Whether the Accept-Encoding header allows gzip: listed, or covered by {@code *}, with a
+     * non-zero quality. An explicit {@code gzip;q=0} wins over the wildcard.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        boolean wildcard = false;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = quality(parts) > 0;
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = accepted;
+            } else if (coding.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return gzip != null ? gzip : wildcard;
+    }
+
+    private static double quality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static boolean matchesIfNoneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // If-None-Match uses the weak comparison, which ignores the W/ prefix on either side
+            if (tag.equals("*") || opaque(tag).equals(opaque(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecommerce.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-cache bounds for the Caffeine cache tier, bound from {@code app.cache.specs.<cache-name>.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache")
+public class AppCacheProperties {
+
+    private Map<String, Spec> specs = new LinkedHashMap<>();
+
+    @Data
+    public static class Spec {
+        private long maximumSize = 1000;
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+        // Optional; entries older than this are served once more and reloaded in the background
+        private Duration refreshAfterWrite;
+        // Optional; how long past expire-after-write an entry may still be served while one reload runs
+        private Duration staleWhileRevalidate;
+    }
+}
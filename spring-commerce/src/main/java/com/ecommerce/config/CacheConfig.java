@@ -1,16 +1,98 @@
 package com.ecommerce.config;
 
+import com.ecommerce.cache.RefreshingCacheResolver;
+import com.ecommerce.cache.RefreshingCaffeineCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
-public class CacheConfig {
+@EnableConfigurationProperties({AppCacheProperties.class, HttpCacheProperties.class, ResponseCacheProperties.class,
+        WarmupProperties.class, CoherenceProperties.class})
+@RequiredArgsConstructor
+public class CacheConfig implements CachingConfigurer {
+
+    public static final String PRODUCTS = "products";
+    public static final String CATEGORIES = "categories";
+
+    private final ApplicationContext applicationContext;
 
     @Bean
-    public CacheManager cacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("products", "categories");
+    public CacheManager cacheManager(AppCacheProperties properties, ThreadPoolTaskExecutor cacheRefreshExecutor) {
+        Map<String, AppCacheProperties.Spec> specs = new LinkedHashMap<>();
+        specs.put(PRODUCTS, new AppCacheProperties.Spec());
+        specs.put(CATEGORIES, new AppCacheProperties.Spec());
+        specs.putAll(properties.getSpecs());
+
+        List<Cache> caches = new ArrayList<>();
+        specs.forEach((name, spec) -> caches.add(buildCache(name, spec, cacheRefreshExecutor)));
+
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(caches);
         return cacheManager;
     }
+
+    /**
+     * Background refreshes call the cached method again through its proxy rather than replaying Spring's loader.
+     */
+    @Bean
+    @Override
+    public CacheResolver cacheResolver() {
+        return new RefreshingCacheResolver(applicationContext);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor cacheRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("cache-refresh-");
+        return executor;
+    }
+
+    private Cache buildCache(String name, AppCacheProperties.Spec spec, ThreadPoolTaskExecutor executor) {
+        if (spec.getRefreshAfterWrite() != null
+                && spec.getRefreshAfterWrite().compareTo(spec.getExpireAfterWrite()) >= 0) {
+            throw new IllegalStateException(
+                    "app.cache.specs." + name + ".refresh-after-write must be shorter than expire-after-write");
+        }
+
+        // Entries in the stale-while-revalidate window are kept by Caffeine but treated as due for refresh
+        Duration staleWindow = spec.getStaleWhileRevalidate() == null
+                ? Duration.ZERO
+                : spec.getStaleWhileRevalidate();
+        Duration refreshAfter = spec.getRefreshAfterWrite();
+        if (refreshAfter == null && !staleWindow.isZero()) {
+            refreshAfter = spec.getExpireAfterWrite();
+        }
+
+        // Caffeine's default eviction policy is W-TinyLFU, so one-off filter combinations
+        // do not push frequently read pages out of a bounded cache.
+        StatsCounter stats = new ConcurrentStatsCounter();
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .expireAfterWrite(spec.getExpireAfterWrite().plus(staleWindow))
+                .recordStats(() -> stats)
+                .build();
+
+        return new RefreshingCaffeineCache(name, nativeCache, stats, refreshAfter, executor);
+    }
 }
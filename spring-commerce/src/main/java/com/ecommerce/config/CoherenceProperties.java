@@ -0,0 +1,24 @@
+package com.ecommerce.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Cross-node cache coherence through the catalog change log, bound from {@code app.coherence.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.coherence")
+public class CoherenceProperties {
+
+    private boolean enabled;
+    // How stale another node's write may be served here, at most
+    private Duration pollInterval = Duration.ofSeconds(1);
+    // Log rows applied per poll; a backlog drains over consecutive polls
+    private int batchSize = 500;
+    // How long an id skipped by a still-open transaction is watched for before it counts as rolled back
+    private Duration gapTimeout = Duration.ofMinutes(1);
+    // Rows older than this are deleted; must comfortably exceed the poll interval and gap timeout
+    private Duration retention = Duration.ofHours(1);
+}
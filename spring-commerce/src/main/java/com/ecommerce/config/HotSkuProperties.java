@@ -0,0 +1,32 @@
+package com.ecommerce.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Flash-sale ("hot SKU") inventory, bound from {@code app.hot-skus.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.hot-skus")
+public class HotSkuProperties {
+
+    // Products sold from in-memory counters; empty means every product uses the regular path. Only
+    // these products have the hot stock ledger added to their catalog stock. No throughput gain has
+    // been measured yet (see HotSkuCheckoutBenchmark), so leave this empty until a run shows one.
+    private Set<Long> productIds = new LinkedHashSet<>();
+    // Unique per node and the same across restarts, it is how a node finds its own ledger entries.
+    // Required once product-ids is set.
+    private String nodeId;
+    // Counter stripes per product; 0 means one per available processor
+    private int stripes = 0;
+    // Units leased from products.stock_quantity whenever the counters run dry
+    private int leaseSize = 100;
+    private Duration compactInterval = Duration.ofMinutes(1);
+    private Duration heartbeatInterval = Duration.ofSeconds(10);
+    // A node silent for this long has its leased units returned to stock by the others
+    private Duration nodeTimeout = Duration.ofMinutes(1);
+}
@@ -0,0 +1,35 @@
+package com.ecommerce.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.CacheControl;
+
+import java.time.Duration;
+
+/**
+ * Cache-Control sent with ETag-validated catalog responses, bound from {@code app.http-cache.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.http-cache")
+public class HttpCacheProperties {
+
+    private Duration productsMaxAge = Duration.ofSeconds(30);
+    private Duration categoriesMaxAge = Duration.ofMinutes(5);
+    // How late listings may show a stock count; going in or out of stock shows at once
+    private Duration listingStockStaleness = Duration.ofSeconds(30);
+    // Lets shared proxies and CDNs store the response, not only the browser
+    private boolean cachePublic = true;
+
+    public CacheControl products() {
+        return cacheControl(productsMaxAge);
+    }
+
+    public CacheControl categories() {
+        return cacheControl(categoriesMaxAge);
+    }
+
+    private CacheControl cacheControl(Duration maxAge) {
+        CacheControl cacheControl = CacheControl.maxAge(maxAge);
+        return cachePublic ? cacheControl.cachePublic() : cacheControl.cachePrivate();
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecommerce.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * {@code Idempotency-Key} handling, bound from {@code app.idempotency.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.idempotency")
+public class IdempotencyProperties {
+
+    private boolean enabled = true;
+    // POST endpoints that honour the header
+    private Set<String> paths = new LinkedHashSet<>(Set.of("/api/v1/orders", "/api/v1/payments/create-intent"));
+    // How long a response is replayed to retries
+    private Duration ttl = Duration.ofHours(24);
+    // How long a duplicate waits for the first request to finish before getting a 409
+    private Duration waitTimeout = Duration.ofSeconds(10);
+    // A claim still in progress after this long is taken to belong to a request that died
+    private Duration claimTimeout = Duration.ofMinutes(1);
+    // Completed responses kept in memory in front of the table
+    private long localCacheSize = 10_000;
+}
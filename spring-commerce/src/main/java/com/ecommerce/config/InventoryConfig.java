@@ -0,0 +1,9 @@
+package com.ecommerce.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({ReservationProperties.class, HotSkuProperties.class})
+public class InventoryConfig {
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Transactional outbox delivery, bound from {@code app.outbox.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.outbox")
+public class OutboxProperties {
+
+    private Duration pollInterval = Duration.ofSeconds(1);
+    // Events claimed per poll, and the most that are queued or running at once
+    private int batchSize = 100;
+    private int workers = 4;
+    // Failed deliveries are retried with exponential backoff; the last failure turns the event DEAD
+    private int maxAttempts = 10;
+    private Duration initialBackoff = Duration.ofSeconds(5);
+    private Duration maxBackoff = Duration.ofMinutes(30);
+    // A claimed event whose worker died becomes due again after this long
+    private Duration claimTimeout = Duration.ofMinutes(5);
+    // Delivered events are purged after this long
+    private Duration retention = Duration.ofDays(7);
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Checkout stock holds, bound from {@code app.reservations.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.reservations")
+public class ReservationProperties {
+
+    // How long an unpaid order keeps its stock
+    private Duration ttl = Duration.ofMinutes(15);
+    private Duration sweepInterval = Duration.ofSeconds(30);
+    // Holds released per sweeper transaction; a backlog is drained in consecutive batches
+    private int sweepBatchSize = 500;
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Bounds for the encoded response cache, bound from {@code app.response-cache.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled;
+    // Total encoded bytes kept, body and gzip variant together
+    private DataSize maximumSize = DataSize.ofMegabytes(64);
+    // Larger responses (e.g. huge pages) are served normally and not stored
+    private DataSize maximumEntrySize = DataSize.ofKilobytes(512);
+    // Bodies from this size on also get a pre-compressed gzip variant
+    private DataSize gzipMinSize = DataSize.ofKilobytes(2);
+}
@@ -0,0 +1,26 @@
+package com.ecommerce.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Startup cache warm-up, bound from {@code app.warmup.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.warmup")
+public class WarmupProperties {
+
+    private boolean enabled;
+    // Product detail pages preloaded: best sellers first, topped up with the newest products
+    private int topProducts = 500;
+    // Leading listing pages preloaded per category, plus the same for the unfiltered listing
+    private int pagesPerCategory = 1;
+    // Must match the listing's default page size, or the warmed keys are never requested
+    private int pageSize = 10;
+    // Loads running at once; keeps the warm-up from becoming the load spike it is meant to prevent
+    private int concurrency = 4;
+    // Readiness flips when this runs out even if loads are still pending; those are dropped
+    private Duration timeBudget = Duration.ofMinutes(2);
+}
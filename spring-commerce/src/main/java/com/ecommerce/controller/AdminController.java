@@ -2,17 +2,31 @@ package com.ecommerce.controller;
 
 import com.ecommerce.dto.response.AdminStatsResponse;
 import com.ecommerce.dto.response.ApiResponse;
+import com.ecommerce.dto.response.CacheStatsResponse;
+import com.ecommerce.dto.response.ImportReportResponse;
 import com.ecommerce.dto.response.OrderResponse;
+import com.ecommerce.dto.response.OutboxStatusResponse;
+import com.ecommerce.dto.response.WarmupStatusResponse;
 import com.ecommerce.entity.User;
+import com.ecommerce.io.ProductFileFormat;
 import com.ecommerce.service.AdminService;
 import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductExportService;
+import com.ecommerce.service.ProductImportService;
 import com.ecommerce.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/v1/admin")
@@ -21,6 +35,8 @@ public class AdminController {
 
     private final AdminService adminService;
     private final OrderService orderService;
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
     // user service for listing users if needed, or we can add method to AdminService
     
     @GetMapping("/stats")
@@ -30,6 +46,37 @@ public class AdminController {
         return ResponseEntity.ok(new ApiResponse<>("Admin stats retrieved", stats));
     }
     
+    @GetMapping("/cache-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<CacheStatsResponse>>> getCacheStats() {
+        List<CacheStatsResponse> stats = adminService.getCacheStats();
+        return ResponseEntity.ok(new ApiResponse<>("Cache stats retrieved", stats));
+    }
+
+    /**
+     * Progress and timing of the startup cache warm-up; the node reports ready once it is no longer RUNNING.
+     */
+    @GetMapping("/cache-warmup")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<WarmupStatusResponse>> getWarmupStatus() {
+        return ResponseEntity.ok(new ApiResponse<>("Cache warm-up status retrieved", adminService.getWarmupStatus()));
+    }
+
+    @GetMapping("/outbox")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<OutboxStatusResponse>> getOutboxStatus() {
+        return ResponseEntity.ok(new ApiResponse<>("Outbox status retrieved", adminService.getOutboxStatus()));
+    }
+
+    /**
+     * Puts every dead outbox event back in the queue with a fresh set of attempts.
+     */
+    @PostMapping("/outbox/requeue-dead")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Integer>> requeueDeadOutboxEvents() {
+        return ResponseEntity.ok(new ApiResponse<>("Dead outbox events requeued", adminService.requeueDeadOutboxEvents()));
+    }
+
     @GetMapping("/orders")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<List<OrderResponse>>> getAllOrders() {
@@ -45,4 +92,45 @@ public class AdminController {
         OrderResponse order = orderService.updateOrderStatus(orderId, status);
         return ResponseEntity.ok(new ApiResponse<>("Order status updated", order));
     }
+
+    /**
+     * Bulk upsert from a CSV (with header row) or NDJSON body; rows with an {@code id} update that
+     * product, the rest are inserted. The body is streamed, so files of any size are fine.
+     */
+    @PostMapping(value = "/products/import", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ImportReportResponse>> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) throws IOException {
+        ImportReportResponse report = productImportService.importProducts(body, ProductFileFormat.of(contentType));
+        return ResponseEntity.ok(new ApiResponse<>("Products imported", report));
+    }
+
+    /**
+     * Streams the whole catalog as a CSV or NDJSON download, optionally gzipped. Rows go from a
+     * database cursor straight to the response, so this works for catalogs of any size.
+     */
+    @GetMapping("/products/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ProductFileFormat fileFormat = ProductFileFormat.named(format);
+        String filename = "products." + fileFormat.extension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = output -> {
+            if (gzip) {
+                // Sync flush, so each periodic flush of the export reaches the client
+                try (GZIPOutputStream compressed = new GZIPOutputStream(output, 8192, true)) {
+                    productExportService.exportProducts(compressed, fileFormat);
+                }
+            } else {
+                productExportService.exportProducts(output, fileFormat);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.valueOf("application/gzip") : fileFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
 }
@@ -1,8 +1,11 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.cache.CatalogVersions;
+import com.ecommerce.config.HttpCacheProperties;
 import com.ecommerce.dto.request.CategoryRequest;
 import com.ecommerce.dto.response.ApiResponse;
 import com.ecommerce.dto.response.CategoryResponse;
+import com.ecommerce.dto.response.CategoryTreeResponse;
 import com.ecommerce.service.CategoryService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -10,6 +13,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -19,11 +23,33 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final CatalogVersions catalogVersions;
+    private final HttpCacheProperties httpCacheProperties;
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<CategoryResponse>>> getAllCategories() {
+    public ResponseEntity<ApiResponse<List<CategoryResponse>>> getAllCategories(WebRequest request) {
+        String etag = catalogVersions.categoriesTag();
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
         List<CategoryResponse> categories = categoryService.getAllCategories();
-        return ResponseEntity.ok(new ApiResponse<>(true, "Categories fetched successfully", categories));
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(httpCacheProperties.categories())
+                .body(new ApiResponse<>(true, "Categories fetched successfully", categories));
+    }
+
+    @GetMapping("/tree")
+    public ResponseEntity<ApiResponse<List<CategoryTreeResponse>>> getCategoryTree(WebRequest request) {
+        String etag = catalogVersions.categoryTreeTag();
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        List<CategoryTreeResponse> tree = categoryService.getCategoryTree();
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(httpCacheProperties.categories())
+                .body(new ApiResponse<>(true, "Category tree fetched successfully", tree));
     }
 
     @GetMapping("/{id}")
@@ -38,4 +64,11 @@ public class CategoryController {
         CategoryResponse category = categoryService.createCategory(categoryRequest);
         return new ResponseEntity<>(new ApiResponse<>(true, "Category created successfully", category), HttpStatus.CREATED);
     }
+
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(httpCacheProperties.categories())
+                .build();
+    }
 }
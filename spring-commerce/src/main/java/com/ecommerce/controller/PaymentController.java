@@ -4,7 +4,6 @@ import com.ecommerce.dto.response.ApiResponse;
 import com.ecommerce.dto.response.OrderResponse;
 import com.ecommerce.entity.Order;
 import com.ecommerce.entity.User;
-import com.ecommerce.enums.OrderStatus;
 import com.ecommerce.repository.OrderRepository;
 import com.ecommerce.service.OrderService;
 import com.ecommerce.service.PaymentService;
@@ -89,11 +88,7 @@ public class PaymentController {
                 String[] parts = paymentIntentId.split("_");
                 if (parts.length >= 3) {
                     Long orderId = Long.parseLong(parts[2]);
-                    Order order = orderRepository.findById(orderId).orElseThrow(
-                            () -> new RuntimeException("Order not found with ID: " + orderId));
-                    order.setStatus(OrderStatus.PAID);
-                    order.setPaymentId(paymentIntentId);
-                    orderRepository.save(order);
+                    paymentService.markPaid(orderId, paymentIntentId);
                     log.info("Mock payment confirmed for order {}", orderId);
                 }
                 return ResponseEntity.ok(new ApiResponse<>("Mock payment confirmed and Order updated", "Success"));
@@ -1,28 +1,97 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.cache.CatalogVersions;
+import com.ecommerce.config.HttpCacheProperties;
+import com.ecommerce.dto.request.ProductBatchRequest;
 import com.ecommerce.dto.request.ProductRequest;
 import com.ecommerce.dto.response.ApiResponse;
+import com.ecommerce.dto.response.CursorPageResponse;
+import com.ecommerce.dto.response.ProductFacetsResponse;
 import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.index.FacetCounts;
+import com.ecommerce.index.Suggestion;
+import com.ecommerce.repository.spec.ProductCursor;
 import com.ecommerce.service.ProductService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/products")
 @RequiredArgsConstructor
 public class ProductController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int MAX_BATCH_IDS = 200;
+
     private final ProductService productService;
+    private final CatalogVersions catalogVersions;
+    private final HttpCacheProperties httpCacheProperties;
 
     @GetMapping
     public ResponseEntity<ApiResponse<Page<ProductResponse>>> getAllProducts(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) java.math.BigDecimal minPrice,
+            @RequestParam(required = false) java.math.BigDecimal maxPrice,
+            @PageableDefault(size = 10) Pageable pageable,
+            WebRequest request) {
+        // Each mode excludes the others' parameters, so a request combining them ends up here
+        if (request.getParameter("cursor") != null || request.getParameter("ids") != null) {
+            throw new BadRequestException("cursor, ids and slice=true select different listing modes; use one");
+        }
+        // Read before loading so a concurrent write can only make the tag older than the page, never newer
+        String etag = catalogVersions.catalogTag();
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        Page<ProductResponse> products = productService.getAllProducts(search, categoryId, minPrice, maxPrice,
+                pageable);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(httpCacheProperties.products())
+                .body(new ApiResponse<>(true, "Products fetched successfully", products));
+    }
+
+    /**
+     * Slice mode of the listing, selected by {@code slice=true}: no total, only whether a next page
+     * exists. Meant for infinite scroll; {@code search} is supported here too.
+     */
+    @GetMapping(params = {"slice=true", "!cursor", "!ids"})
+    public ResponseEntity<ApiResponse<Slice<ProductResponse>>> getProductSlice(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) java.math.BigDecimal minPrice,
+            @RequestParam(required = false) java.math.BigDecimal maxPrice,
+            @PageableDefault(size = 10) Pageable pageable,
+            WebRequest request) {
+        String etag = catalogVersions.catalogTag();
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        Slice<ProductResponse> products = productService.getProductSlice(search, categoryId, minPrice, maxPrice,
+                pageable);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(httpCacheProperties.products())
+                .body(new ApiResponse<>(true, "Products fetched successfully", products));
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<ApiResponse<ProductFacetsResponse>> getProductFacets(
             @RequestParam(required = false) String search,
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) java.math.BigDecimal minPrice,
@@ -30,21 +99,85 @@ public class ProductController {
             @PageableDefault(size = 10) Pageable pageable) {
         Page<ProductResponse> products = productService.getAllProducts(search, categoryId, minPrice, maxPrice,
                 pageable);
+        FacetCounts facets = productService.getFacetCounts(search, categoryId, minPrice, maxPrice);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Product facets fetched successfully",
+                new ProductFacetsResponse(products, facets)));
+    }
+
+    /**
+     * Cursor mode of the listing, selected by the {@code cursor} parameter. Pass it empty for the first
+     * page and then echo back {@code nextCursor}; the sort order travels inside the cursor.
+     */
+    @GetMapping(params = {"cursor", "!ids", "slice!=true"})
+    public ResponseEntity<ApiResponse<CursorPageResponse<ProductResponse>>> getProductsByCursor(
+            @RequestParam String cursor,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) java.math.BigDecimal minPrice,
+            @RequestParam(required = false) java.math.BigDecimal maxPrice,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        ProductCursor position = StringUtils.hasText(cursor)
+                ? ProductCursor.decode(cursor)
+                : ProductCursor.start(sortBy, direction);
+        CursorPageResponse<ProductResponse> products = productService.getProductsAfter(categoryId, minPrice,
+                maxPrice, position, Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE)), includeTotal);
         return ResponseEntity.ok(new ApiResponse<>(true, "Products fetched successfully", products));
     }
 
+    /**
+     * Batch mode of the listing, selected by the {@code ids} parameter: {@code ?ids=1,2,3}.
+     */
+    @GetMapping(params = {"ids", "!cursor", "slice!=true"})
+    public ResponseEntity<ApiResponse<List<ProductResponse>>> getProductsByIds(@RequestParam List<Long> ids) {
+        return batchResponse(ids);
+    }
+
+    /**
+     * Same as {@code ?ids=}, for id lists too long for a query string.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<List<ProductResponse>>> getProductsBatch(
+            @RequestBody @Valid ProductBatchRequest batchRequest) {
+        return batchResponse(batchRequest.getIds());
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<ProductResponse>> getProductById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<ProductResponse>> getProductById(@PathVariable Long id, WebRequest request) {
+        String etag = catalogVersions.productTag(id);
+        if (etag != null && request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
         ProductResponse product = productService.getProductById(id);
-        return ResponseEntity.ok(new ApiResponse<>(true, "Product fetched successfully", product));
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(httpCacheProperties.products())
+                .body(new ApiResponse<>(true, "Product fetched successfully", product));
     }
 
     @GetMapping("/search")
     public ResponseEntity<ApiResponse<Page<ProductResponse>>> searchProducts(
             @RequestParam String query,
-            @PageableDefault(size = 10) Pageable pageable) {
+            @PageableDefault(size = 10) Pageable pageable,
+            WebRequest request) {
+        String etag = catalogVersions.catalogTag();
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
         Page<ProductResponse> products = productService.searchProducts(query, pageable);
-        return ResponseEntity.ok(new ApiResponse<>(true, "Products searched successfully", products));
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(httpCacheProperties.products())
+                .body(new ApiResponse<>(true, "Products searched successfully", products));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<Suggestion>>> suggest(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<Suggestion> suggestions = productService.suggest(query, Math.min(limit, MAX_SUGGESTIONS));
+        return ResponseEntity.ok(new ApiResponse<>(true, "Suggestions fetched successfully", suggestions));
     }
 
     @PostMapping
@@ -81,4 +214,19 @@ public class ProductController {
         productService.deleteProduct(id);
         return ResponseEntity.ok(new ApiResponse<>(true, "Product deleted successfully", null));
     }
+
+    private ResponseEntity<ApiResponse<List<ProductResponse>>> batchResponse(List<Long> ids) {
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new BadRequestException("At most " + MAX_BATCH_IDS + " product ids can be fetched at once");
+        }
+        List<ProductResponse> products = productService.getProductsByIds(ids);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Products fetched successfully", products));
+    }
+
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(httpCacheProperties.products())
+                .build();
+    }
 }
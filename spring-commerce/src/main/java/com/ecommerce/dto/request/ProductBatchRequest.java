@@ -0,0 +1,12 @@
+package com.ecommerce.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ProductBatchRequest {
+    @NotEmpty(message = "Product IDs are required")
+    private List<Long> ids;
+}
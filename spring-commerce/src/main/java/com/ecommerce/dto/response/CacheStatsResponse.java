@@ -0,0 +1,19 @@
+package com.ecommerce.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CacheStatsResponse {
+    private String name;
+    private Long estimatedSize;
+    private Long maximumSize;
+    private Long hitCount;
+    private Long missCount;
+    private Double hitRate;
+    private Long evictionCount;
+    private Long loadSuccessCount;
+    private Long loadFailureCount;
+    private Double averageLoadPenaltyMs;
+}
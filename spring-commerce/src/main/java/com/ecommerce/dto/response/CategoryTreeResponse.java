@@ -0,0 +1,14 @@
+package com.ecommerce.dto.response;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class CategoryTreeResponse {
+    private Long id;
+    private String name;
+    private String description;
+    private List<CategoryTreeResponse> children = new ArrayList<>();
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportReportResponse {
+    private long rowsRead;
+    private long inserted;
+    private long updated;
+    private long failed;
+    private long durationMs;
+    // Capped; failed holds the full count
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
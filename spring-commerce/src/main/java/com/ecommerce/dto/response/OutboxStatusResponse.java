@@ -0,0 +1,12 @@
+package com.ecommerce.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class OutboxStatusResponse {
+    private Long pending;
+    private Long delivered;
+    private Long dead;
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.dto.response;
+
+import com.ecommerce.index.FacetCounts;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetsResponse {
+    private Page<ProductResponse> products;
+    private FacetCounts facets;
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockShortageResponse {
+    private Long productId;
+    private String productName;
+    private Integer requested;
+    private Integer available;
+}
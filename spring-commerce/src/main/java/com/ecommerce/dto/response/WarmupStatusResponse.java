@@ -0,0 +1,21 @@
+package com.ecommerce.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+public class WarmupStatusResponse {
+    private String state;
+    private Instant startedAt;
+    private Long elapsedMs;
+    private Integer totalTasks;
+    private Integer completedTasks;
+    private Integer failedTasks;
+    private Integer skippedTasks;
+    private Integer categoriesLoaded;
+    private Integer productsLoaded;
+    private Integer listingPagesLoaded;
+}
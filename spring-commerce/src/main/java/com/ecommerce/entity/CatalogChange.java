@@ -0,0 +1,43 @@
+package com.ecommerce.entity;
+
+import com.ecommerce.enums.CatalogChangeType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One catalog write, appended in the writing transaction and tailed by every node to keep its
+ * local caches and indexes coherent.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "catalog_change_log")
+public class CatalogChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private CatalogChangeType entityType;
+
+    private Long entityId;
+
+    // JSON of the product before the write, so other nodes can evict the pages it used to appear on
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false, length = 64)
+    private String nodeId;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
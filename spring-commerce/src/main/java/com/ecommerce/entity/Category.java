@@ -37,6 +37,7 @@ public class Category {
     private Category parentCategory;
 
     @OneToMany(mappedBy = "parentCategory", cascade = CascadeType.ALL)
+    @Builder.Default
     private List<Category> subCategories = new ArrayList<>();
 
     @CreatedDate
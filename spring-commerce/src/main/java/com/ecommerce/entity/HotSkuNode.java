@@ -0,0 +1,32 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A node selling hot SKUs, kept alive by its heartbeat. {@code instanceId} changes on every
+ * registration, so a node whose entry was reclaimed or taken over notices on its next heartbeat.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "hot_sku_nodes")
+public class HotSkuNode {
+
+    @Id
+    @Column(name = "node_id", length = 64)
+    private String nodeId;
+
+    @Column(name = "instance_id", nullable = false, columnDefinition = "char(36)")
+    private String instanceId;
+
+    @Column(nullable = false)
+    private LocalDateTime heartbeatAt;
+}
@@ -0,0 +1,43 @@
+package com.ecommerce.entity;
+
+import com.ecommerce.enums.HotStockEntryType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change to a node's in-memory stock for a hot product. The sum of a node's entries for a
+ * product is the number of units its counters hold, which is how they are rebuilt after a restart.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "hot_stock_ledger")
+public class HotStockEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "node_id", nullable = false, length = 64)
+    private String nodeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 16)
+    private HotStockEntryType entryType;
+
+    @Column(nullable = false)
+    private Integer delta;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,54 @@
+package com.ecommerce.entity;
+
+import com.ecommerce.enums.IdempotencyStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The outcome of a request sent with an {@code Idempotency-Key}, replayed to retries of it until
+ * {@code expiresAt}. Both the key (scoped to the caller and path) and the request are stored as
+ * SHA-256 hashes.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "key_hash", columnDefinition = "char(64)")
+    private String keyHash;
+
+    @Column(nullable = false, columnDefinition = "char(64)")
+    private String fingerprint;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private IdempotencyStatus status;
+
+    // Random per claim; only the request holding it can complete or release the row
+    @Column(columnDefinition = "char(36)")
+    private String claimToken;
+
+    private Integer responseStatus;
+
+    @Column(length = 100)
+    private String contentType;
+
+    @Lob
+    @Column(columnDefinition = "MEDIUMBLOB")
+    private byte[] responseBody;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
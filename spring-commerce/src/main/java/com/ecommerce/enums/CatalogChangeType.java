@@ -0,0 +1,8 @@
+package com.ecommerce.enums;
+
+public enum CatalogChangeType {
+    PRODUCT,
+    CATEGORY,
+    // Bulk writes that bypass the change events; other nodes rebuild all catalog views
+    CATALOG
+}
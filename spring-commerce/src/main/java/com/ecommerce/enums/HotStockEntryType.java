@@ -0,0 +1,12 @@
+package com.ecommerce.enums;
+
+public enum HotStockEntryType {
+    // Units moved from products.stock_quantity into a node's counters
+    LEASE,
+    // Units sold from a node's counters
+    SALE,
+    // Unsold units given back to products.stock_quantity
+    RETURN,
+    // Sum of earlier entries, written when the ledger is compacted
+    BALANCE
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.enums;
+
+public enum IdempotencyStatus {
+    // Claimed by the request that is running it
+    IN_PROGRESS,
+    COMPLETED
+}
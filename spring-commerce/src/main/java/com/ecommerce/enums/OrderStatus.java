@@ -6,5 +6,8 @@ public enum OrderStatus {
     SHIPPED,
     DELIVERED,
     CANCELLED,
-    PAID
+    PAID,
+    // Paid after it was cancelled, or cancelled after it was paid: the payment is to be refunded
+    REFUND_PENDING,
+    REFUNDED
 }
@@ -0,0 +1,9 @@
+package com.ecommerce.enums;
+
+public enum OutboxEventType {
+    ORDER_PLACED,
+    ORDER_SHIPPED,
+    PAYMENT_SUCCEEDED,
+    PAYMENT_REFUND_REQUIRED,
+    PAYMENT_REFUNDED
+}
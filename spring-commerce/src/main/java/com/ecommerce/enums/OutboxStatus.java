@@ -0,0 +1,8 @@
+package com.ecommerce.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    DELIVERED,
+    // Out of attempts; stays put until requeued
+    DEAD
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.enums;
+
+public enum ReservationStatus {
+    HELD,
+    COMMITTED,
+    RELEASED
+}
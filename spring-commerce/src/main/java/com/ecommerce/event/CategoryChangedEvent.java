@@ -0,0 +1,7 @@
+package com.ecommerce.event;
+
+/**
+ * Published after a category is created or modified.
+ */
+public record CategoryChangedEvent(Long categoryId) {
+}
@@ -0,0 +1,9 @@
+package com.ecommerce.event;
+
+import java.util.Map;
+
+/**
+ * Published by {@code OrderService} when an order is placed, with the units it bought per product id.
+ */
+public record OrderPlacedEvent(Map<Long, Integer> quantities) {
+}
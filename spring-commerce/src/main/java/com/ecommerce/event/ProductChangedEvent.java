@@ -0,0 +1,12 @@
+package com.ecommerce.event;
+
+/**
+ * Published by {@code ProductService} on every product write. {@code before} is null for a create,
+ * {@code after} is null for a delete.
+ */
+public record ProductChangedEvent(ProductSnapshot before, ProductSnapshot after) {
+
+    public Long productId() {
+        return after != null ? after.id() : before.id();
+    }
+}
@@ -0,0 +1,54 @@
+package com.ecommerce.event;
+
+import com.ecommerce.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Detached copy of the product fields that caches and indexes depend on.
+ */
+public record ProductSnapshot(
+        Long id,
+        String name,
+        String description,
+        BigDecimal price,
+        Integer stockQuantity,
+        Long categoryId,
+        String categoryName,
+        LocalDateTime updatedAt) {
+
+    public static ProductSnapshot from(Product product) {
+        return new ProductSnapshot(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getStockQuantity(),
+                product.getCategory().getId(),
+                product.getCategory().getName(),
+                product.getUpdatedAt());
+    }
+
+    /**
+     * Copy after a stock-only write made outside the entity, such as a conditional decrement.
+     */
+    public ProductSnapshot withStock(Integer stockQuantity, LocalDateTime updatedAt) {
+        return new ProductSnapshot(id, name, description, price, stockQuantity, categoryId, categoryName, updatedAt);
+    }
+
+    /**
+     * Value of a sortable product property, or {@code null} when the property is not tracked here.
+     */
+    public Object property(String property) {
+        return switch (property) {
+            case "id" -> id;
+            case "name" -> name;
+            case "description" -> description;
+            case "price" -> price;
+            case "stockQuantity" -> stockQuantity;
+            case "updatedAt" -> updatedAt;
+            default -> null;
+        };
+    }
+}
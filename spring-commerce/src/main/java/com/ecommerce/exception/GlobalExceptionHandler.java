@@ -1,6 +1,7 @@
 package com.ecommerce.exception;
 
 import com.ecommerce.dto.response.ApiResponse;
+import com.ecommerce.dto.response.StockShortageResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -12,6 +13,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestControllerAdvice
@@ -30,8 +32,10 @@ public class GlobalExceptionHandler {
     }
 
     @ExceptionHandler(InsufficientStockException.class)
-    public ResponseEntity<ApiResponse<String>> handleInsufficientStockException(InsufficientStockException ex) {
-        return new ResponseEntity<>(new ApiResponse<>(false, ex.getMessage(), null), HttpStatus.BAD_REQUEST);
+    public ResponseEntity<ApiResponse<List<StockShortageResponse>>> handleInsufficientStockException(
+            InsufficientStockException ex) {
+        List<StockShortageResponse> shortages = ex.getShortages().isEmpty() ? null : ex.getShortages();
+        return new ResponseEntity<>(new ApiResponse<>(false, ex.getMessage(), shortages), HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
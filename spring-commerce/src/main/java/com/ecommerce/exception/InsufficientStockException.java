@@ -1,11 +1,42 @@
 package com.ecommerce.exception;
 
+import com.ecommerce.dto.response.StockShortageResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import java.util.List;
+
 @ResponseStatus(HttpStatus.BAD_REQUEST)
 public class InsufficientStockException extends RuntimeException {
+
+    private final List<StockShortageResponse> shortages;
+
     public InsufficientStockException(String message) {
+        this(message, List.of());
+    }
+
+    public InsufficientStockException(String message, List<StockShortageResponse> shortages) {
         super(message);
+        this.shortages = shortages;
+    }
+
+    public InsufficientStockException(List<StockShortageResponse> shortages) {
+        this(message(shortages), shortages);
+    }
+
+    /**
+     * Every line that could not be fulfilled, not just the first one found.
+     */
+    public List<StockShortageResponse> getShortages() {
+        return shortages;
+    }
+
+    private static String message(List<StockShortageResponse> shortages) {
+        if (shortages.size() == 1) {
+            StockShortageResponse shortage = shortages.get(0);
+            return "Insufficient stock for product: "
+                    + (shortage.getProductName() != null ? shortage.getProductName() : shortage.getProductId());
+        }
+        return "Insufficient stock for " + shortages.size() + " products";
     }
 }
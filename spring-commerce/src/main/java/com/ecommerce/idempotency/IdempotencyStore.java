@@ -0,0 +1,263 @@
+package com.ecommerce.idempotency;
+
+import com.ecommerce.config.IdempotencyProperties;
+import com.ecommerce.enums.IdempotencyStatus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Claims and results of idempotent requests: a Caffeine cache of completed responses in front of
+ * the {@code idempotency_keys} table.
+ * <p>
+ * The first request for a key inserts an {@code IN_PROGRESS} row; the primary key makes that claim
+ * exclusive across nodes. A duplicate on the same node waits on the first one's future, and a
+ * duplicate on another node polls the row, both until the response is stored or the wait times out.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.idempotency", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class IdempotencyStore implements SchedulingConfigurer {
+
+    private static final String CLAIM_SQL = "INSERT INTO idempotency_keys "
+            + "(key_hash, fingerprint, status, claim_token, expires_at, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String FIND_SQL = "SELECT fingerprint, status, response_status, content_type, "
+            + "response_body, expires_at FROM idempotency_keys WHERE key_hash = ?";
+    private static final String COMPLETE_SQL = "UPDATE idempotency_keys SET status = ?, response_status = ?, "
+            + "content_type = ?, response_body = ?, expires_at = ? WHERE key_hash = ? AND claim_token = ?";
+    private static final String ABANDON_SQL = "DELETE FROM idempotency_keys "
+            + "WHERE key_hash = ? AND claim_token = ? AND status = ?";
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM idempotency_keys WHERE key_hash = ? AND expires_at < ?";
+    private static final String PURGE_SQL = "DELETE FROM idempotency_keys WHERE expires_at < ?";
+    private static final long POLL_MILLIS = 50;
+    // Capacity of the MEDIUMBLOB response_body column
+    private static final int MAX_BODY_BYTES = 16 * 1024 * 1024 - 1;
+
+    private final IdempotencyProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<String, StoredResponse> completed;
+    // Requests running on this node, which same-node duplicates wait on; null means it gave up
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(IdempotencyProperties properties, JdbcTemplate jdbcTemplate) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalCacheSize())
+                .expireAfterWrite(properties.getTtl())
+                .executor(Runnable::run)
+                .build();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(this::purge, Duration.ofHours(1));
+    }
+
+    /**
+     * Either claims the key, in which case the caller runs the request and must then
+     * {@link #complete} or {@link #abandon} the claim, or returns the stored response of the first request.
+     *
+     * @return a claim to execute, a replay of {@link Claim#response()}, or {@link Claim#isBusy() busy}
+     * when the first request is still running after the wait timeout
+     */
+    public Claim begin(String keyHash, String fingerprint) {
+        long deadline = System.nanoTime() + properties.getWaitTimeout().toNanos();
+        while (true) {
+            StoredResponse done = completed.getIfPresent(keyHash);
+            if (done != null) {
+                return Claim.replay(done);
+            }
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(keyHash, mine);
+            if (running != null) {
+                try {
+                    StoredResponse response = running.get(Math.max(0, deadline - System.nanoTime()),
+                            TimeUnit.NANOSECONDS);
+                    if (response != null) {
+                        return Claim.replay(response);
+                    }
+                    // The first request failed without a response to keep; the next caller runs it
+                    continue;
+                } catch (TimeoutException ex) {
+                    return Claim.busy();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return Claim.busy();
+                } catch (ExecutionException ex) {
+                    continue;
+                }
+            }
+
+            Claim claim;
+            try {
+                claim = claim(keyHash, fingerprint, mine, deadline);
+            } catch (RuntimeException ex) {
+                // Same-node duplicates waiting on this request must not wait out the timeout
+                inFlight.remove(keyHash, mine);
+                mine.complete(null);
+                throw ex;
+            }
+            if (!claim.isExecute()) {
+                inFlight.remove(keyHash, mine);
+                mine.complete(claim.response());
+            }
+            return claim;
+        }
+    }
+
+    /**
+     * Stores the response of a claimed request. If the claim timed out and another request took the
+     * key over meanwhile, the response is dropped and that request's outcome is the one kept.
+     */
+    public void complete(String keyHash, Claim claim, StoredResponse response) {
+        if (response.body() != null && response.body().length > MAX_BODY_BYTES) {
+            // Failing here would let a retry run the request again; replaying it without a body is the lesser harm
+            log.warn("Response for idempotency key {} is {} bytes, too large to store; replays get no body",
+                    keyHash, response.body().length);
+            response = new StoredResponse(response.fingerprint(), response.status(), response.contentType(), null);
+        }
+        boolean stored = false;
+        try {
+            stored = jdbcTemplate.update(COMPLETE_SQL, IdempotencyStatus.COMPLETED.name(), response.status(),
+                    response.contentType(), response.body(),
+                    Timestamp.valueOf(LocalDateTime.now().plus(properties.getTtl())), keyHash, claim.token) > 0;
+            if (stored) {
+                completed.put(keyHash, response);
+            } else {
+                log.warn("Idempotency claim on {} was taken over before its request finished", keyHash);
+            }
+        } finally {
+            inFlight.remove(keyHash, claim.running);
+            claim.running.complete(stored ? response : null);
+        }
+    }
+
+    /**
+     * Releases the claim without a response, so the next retry runs the request again.
+     */
+    public void abandon(String keyHash, Claim claim) {
+        try {
+            jdbcTemplate.update(ABANDON_SQL, keyHash, claim.token, IdempotencyStatus.IN_PROGRESS.name());
+        } finally {
+            inFlight.remove(keyHash, claim.running);
+            claim.running.complete(null);
+        }
+    }
+
+    public void purge() {
+        try {
+            int purged = jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(LocalDateTime.now()));
+            if (purged > 0) {
+                log.debug("Purged {} expired idempotency keys", purged);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Purging expired idempotency keys failed: {}", ex.getMessage());
+        }
+    }
+
+    private Claim claim(String keyHash, String fingerprint, CompletableFuture<StoredResponse> running,
+                        long deadline) {
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            String token = UUID.randomUUID().toString();
+            try {
+                jdbcTemplate.update(CLAIM_SQL, keyHash, fingerprint, IdempotencyStatus.IN_PROGRESS.name(), token,
+                        Timestamp.valueOf(now.plus(properties.getClaimTimeout())), Timestamp.valueOf(now));
+                return Claim.execute(token, running);
+            } catch (DuplicateKeyException ex) {
+                // Claimed before: by a request that finished, one still running, or one that died
+            }
+
+            List<Row> rows = jdbcTemplate.query(FIND_SQL, (rs, rowNum) -> new Row(
+                    new StoredResponse(rs.getString(1), rs.getInt(3), rs.getString(4), rs.getBytes(5)),
+                    IdempotencyStatus.valueOf(rs.getString(2)), rs.getTimestamp(6).toLocalDateTime()), keyHash);
+            if (rows.isEmpty()) {
+                continue;
+            }
+            Row row = rows.get(0);
+            if (row.expiresAt().isBefore(now)) {
+                jdbcTemplate.update(DELETE_EXPIRED_SQL, keyHash, Timestamp.valueOf(now));
+                continue;
+            }
+            if (row.status() == IdempotencyStatus.COMPLETED) {
+                completed.put(keyHash, row.response());
+                return Claim.replay(row.response());
+            }
+            if (System.nanoTime() >= deadline) {
+                return Claim.busy();
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return Claim.busy();
+            }
+        }
+    }
+
+    private record Row(StoredResponse response, IdempotencyStatus status, LocalDateTime expiresAt) {
+    }
+
+    /**
+     * What {@link #begin} decided: run the request, replay {@link #response()}, or neither yet.
+     */
+    public static final class Claim {
+
+        private final boolean execute;
+        private final StoredResponse response;
+        // Set on claims to execute: the row's token and the future same-node duplicates wait on
+        private final String token;
+        private final CompletableFuture<StoredResponse> running;
+
+        private Claim(boolean execute, StoredResponse response, String token,
+                      CompletableFuture<StoredResponse> running) {
+            this.execute = execute;
+            this.response = response;
+            this.token = token;
+            this.running = running;
+        }
+
+        static Claim execute(String token, CompletableFuture<StoredResponse> running) {
+            return new Claim(true, null, token, running);
+        }
+
+        static Claim replay(StoredResponse response) {
+            return new Claim(false, response, null, null);
+        }
+
+        static Claim busy() {
+            return new Claim(false, null, null, null);
+        }
+
+        public boolean isExecute() {
+            return execute;
+        }
+
+        public boolean isBusy() {
+            return !execute && response == null;
+        }
+
+        public StoredResponse response() {
+            return response;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.idempotency;
+
+/**
+ * A finished response, with the fingerprint of the request that produced it.
+ */
+public record StoredResponse(String fingerprint, int status, String contentType, byte[] body) {
+}
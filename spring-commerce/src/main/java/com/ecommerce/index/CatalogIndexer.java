@@ -0,0 +1,55 @@
+package com.ecommerce.index;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductSnapshot;
+import com.ecommerce.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CatalogIndexer {
+
+    private final ProductRepository productRepository;
+    private final List<ProductIndex> indexes;
+
+    // Runs after CommandLineRunners, so the index also sees data written by DataSeeder, and before
+    // the cache warm-up, whose listing pages read the indexes
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reindexAll();
+    }
+
+    @Transactional(readOnly = true)
+    public void reindexAll() {
+        long start = System.currentTimeMillis();
+        List<ProductSnapshot> products = productRepository.findAllSnapshots();
+        indexes.forEach(index -> index.rebuild(products));
+        log.info("Indexed {} products into {} catalog indexes in {} ms",
+                products.size(), indexes.size(), System.currentTimeMillis() - start);
+    }
+
+    // Indexes are updated before cache eviction so a re-cached page never reads a stale index
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        for (ProductIndex index : indexes) {
+            if (event.after() == null) {
+                index.remove(event.productId());
+            } else {
+                index.upsert(event.after());
+            }
+        }
+    }
+}
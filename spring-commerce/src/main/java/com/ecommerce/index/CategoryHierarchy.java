@@ -0,0 +1,114 @@
+package com.ecommerce.index;
+
+import com.ecommerce.event.CategoryChangedEvent;
+import com.ecommerce.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ancestor/descendant closure of the category tree, so a category filter can be expanded to its
+ * whole subtree without walking the tree per request.
+ * <p>
+ * Each category maps to the sorted ids of its subtree, itself included. The closure is rebuilt
+ * from one query whenever a category changes and replaced atomically, so readers never lock.
+ * Categories it does not know yet stand for themselves only.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CategoryHierarchy {
+
+    private final CategoryRepository categoryRepository;
+
+    private volatile Map<Long, long[]> subtrees = Map.of();
+
+    // Ahead of the cache warm-up, whose listing pages read this
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // Before the category caches are cleared, so reloaded entries already see the new tree
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        rebuild();
+    }
+
+    public void rebuild() {
+        List<CategoryLink> links = categoryRepository.findAllLinks();
+        Map<Long, List<Long>> children = new HashMap<>();
+        for (CategoryLink link : links) {
+            children.computeIfAbsent(link.id(), id -> new ArrayList<>());
+            if (link.parentId() != null) {
+                children.computeIfAbsent(link.parentId(), id -> new ArrayList<>()).add(link.id());
+            }
+        }
+
+        Map<Long, long[]> closure = new HashMap<>(children.size() * 2);
+        for (Long root : children.keySet()) {
+            closure.put(root, collectSubtree(root, children));
+        }
+        subtrees = closure;
+        log.info("Category hierarchy built: {} categories", closure.size());
+    }
+
+    /**
+     * The category and all of its descendants.
+     */
+    public List<Long> subtreeOf(Long categoryId) {
+        long[] subtree = subtrees.get(categoryId);
+        if (subtree == null) {
+            return List.of(categoryId);
+        }
+        return Arrays.stream(subtree).boxed().toList();
+    }
+
+    /**
+     * Whether {@code categoryId} is {@code ancestorId} or one of its descendants.
+     */
+    public boolean isWithin(Long categoryId, Long ancestorId) {
+        if (ancestorId.equals(categoryId)) {
+            return true;
+        }
+        long[] subtree = subtrees.get(ancestorId);
+        return subtree != null && categoryId != null && Arrays.binarySearch(subtree, categoryId) >= 0;
+    }
+
+    private static long[] collectSubtree(Long root, Map<Long, List<Long>> children) {
+        long[] ids = new long[8];
+        int size = 0;
+        Deque<Long> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Long id = pending.pop();
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+            // A corrupt parent cycle would loop forever; the tree can never be larger than the category count
+            if (size > children.size()) {
+                throw new IllegalStateException("Category hierarchy contains a cycle through " + root);
+            }
+            children.getOrDefault(id, List.of()).forEach(pending::push);
+        }
+        long[] subtree = Arrays.copyOf(ids, size);
+        Arrays.sort(subtree);
+        return subtree;
+    }
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.index;
+
+/**
+ * A category and its parent, {@code null} for top-level categories.
+ */
+public record CategoryLink(Long id, Long parentId) {
+}
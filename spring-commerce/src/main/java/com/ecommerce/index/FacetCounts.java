@@ -0,0 +1,17 @@
+package com.ecommerce.index;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Facet counts for one catalog selection. The last price bucket is open-ended ({@code to == null}).
+ */
+public record FacetCounts(List<CategoryCount> categories, List<PriceBucketCount> priceBuckets, long inStock,
+                          long outOfStock) {
+
+    public record CategoryCount(Long categoryId, String categoryName, long count) {
+    }
+
+    public record PriceBucketCount(BigDecimal from, BigDecimal to, long count) {
+    }
+}
@@ -0,0 +1,243 @@
+package com.ecommerce.index;
+
+import com.ecommerce.event.ProductSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column store of the attributes the storefront facets on: category, price bucket and stock.
+ * <p>
+ * Unfiltered counts are maintained incrementally on every write and returned as-is; filtered
+ * counts are tallied in a single pass over primitive arrays. Each facet ignores its own
+ * constraint, so the UI can show how many products every alternative selection would return.
+ */
+@Component
+@Slf4j
+public class FacetIndex implements ProductIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final long[] bucketBounds;
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Map<Long, Integer> categoryOrdinals = new HashMap<>();
+    private final List<Long> categoryIds = new ArrayList<>();
+    private final List<String> categoryNames = new ArrayList<>();
+    private long[] productIds = new long[0];
+    private int[] categories = new int[0];
+    private long[] priceCents = new long[0];
+    private boolean[] inStock = new boolean[0];
+    private int size;
+
+    private int[] categoryTotals = new int[0];
+    private final int[] bucketTotals;
+    private int inStockTotal;
+
+    public FacetIndex(@Value("${app.facets.price-buckets:25,50,100,250,500,1000}") List<BigDecimal> bucketBounds) {
+        this.bucketBounds = bucketBounds.stream().sorted().mapToLong(Prices::toCents).toArray();
+        this.bucketTotals = new int[this.bucketBounds.length + 1];
+    }
+
+    @Override
+    public void rebuild(List<ProductSnapshot> products) {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            Arrays.fill(categoryTotals, 0);
+            Arrays.fill(bucketTotals, 0);
+            inStockTotal = 0;
+            size = 0;
+            ensureCapacity(products.size());
+            products.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Facet index built: {} products, {} categories", products.size(), categoryIds.size());
+    }
+
+    @Override
+    public void upsert(ProductSnapshot product) {
+        lock.writeLock().lock();
+        try {
+            delete(product.id());
+            add(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            delete(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Facet counts for the products matching the given constraints.
+     *
+     * @param candidateIds restricts counting to these products, e.g. full-text hits; {@code null} for all
+     */
+    public FacetCounts count(long[] candidateIds, SearchFilter filter) {
+        lock.readLock().lock();
+        try {
+            boolean unconstrainedPrice = filter.minPriceCents() == Long.MIN_VALUE
+                    && filter.maxPriceCents() == Long.MAX_VALUE;
+            if (candidateIds == null && filter.categoryIds() == null && unconstrainedPrice) {
+                return snapshot(categoryTotals, bucketTotals, inStockTotal, size);
+            }
+
+            boolean[] wantedCategories = null;
+            if (filter.categoryIds() != null) {
+                wantedCategories = new boolean[categoryIds.size()];
+                for (long categoryId : filter.categoryIds()) {
+                    Integer ordinal = categoryOrdinals.get(categoryId);
+                    if (ordinal != null) {
+                        wantedCategories[ordinal] = true;
+                    }
+                }
+            }
+            int[] categoryCounts = new int[categoryIds.size()];
+            int[] bucketCounts = new int[bucketTotals.length];
+            int[] stock = new int[2];
+            if (candidateIds == null) {
+                for (int doc = 0; doc < size; doc++) {
+                    tally(doc, wantedCategories, filter, categoryCounts, bucketCounts, stock);
+                }
+            } else {
+                for (long id : candidateIds) {
+                    Integer doc = ordinals.get(id);
+                    if (doc != null) {
+                        tally(doc, wantedCategories, filter, categoryCounts, bucketCounts, stock);
+                    }
+                }
+            }
+            return snapshot(categoryCounts, bucketCounts, stock[1], stock[0] + stock[1]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void tally(int doc, boolean[] wantedCategories, SearchFilter filter, int[] categoryCounts,
+                       int[] bucketCounts, int[] stock) {
+        boolean categoryMatches = wantedCategories == null || wantedCategories[categories[doc]];
+        long price = priceCents[doc];
+        boolean priceMatches = price >= filter.minPriceCents() && price <= filter.maxPriceCents();
+        if (priceMatches) {
+            categoryCounts[categories[doc]]++;
+        }
+        if (categoryMatches) {
+            bucketCounts[bucketOf(price)]++;
+            if (priceMatches) {
+                stock[inStock[doc] ? 1 : 0]++;
+            }
+        }
+    }
+
+    private FacetCounts snapshot(int[] categoryCounts, int[] bucketCounts, int inStockCount, int total) {
+        List<FacetCounts.CategoryCount> categoryFacets = new ArrayList<>();
+        for (int i = 0; i < categoryCounts.length; i++) {
+            if (categoryCounts[i] > 0) {
+                categoryFacets.add(new FacetCounts.CategoryCount(categoryIds.get(i), categoryNames.get(i),
+                        categoryCounts[i]));
+            }
+        }
+        categoryFacets.sort(Comparator.comparingLong(FacetCounts.CategoryCount::count).reversed()
+                .thenComparing(FacetCounts.CategoryCount::categoryName));
+
+        List<FacetCounts.PriceBucketCount> bucketFacets = new ArrayList<>(bucketCounts.length);
+        for (int i = 0; i < bucketCounts.length; i++) {
+            BigDecimal from = i == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(bucketBounds[i - 1], 2);
+            BigDecimal to = i == bucketBounds.length ? null : BigDecimal.valueOf(bucketBounds[i], 2);
+            bucketFacets.add(new FacetCounts.PriceBucketCount(from, to, bucketCounts[i]));
+        }
+        return new FacetCounts(categoryFacets, bucketFacets, inStockCount, total - inStockCount);
+    }
+
+    private void add(ProductSnapshot product) {
+        ensureCapacity(size + 1);
+        int doc = size++;
+        int category = categoryOrdinal(product.categoryId(), product.categoryName());
+        long price = Prices.toCents(product.price());
+        boolean available = product.stockQuantity() != null && product.stockQuantity() > 0;
+
+        productIds[doc] = product.id();
+        categories[doc] = category;
+        priceCents[doc] = price;
+        inStock[doc] = available;
+        ordinals.put(product.id(), doc);
+
+        categoryTotals[category]++;
+        bucketTotals[bucketOf(price)]++;
+        if (available) {
+            inStockTotal++;
+        }
+    }
+
+    private void delete(Long productId) {
+        Integer doc = ordinals.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        categoryTotals[categories[doc]]--;
+        bucketTotals[bucketOf(priceCents[doc])]--;
+        if (inStock[doc]) {
+            inStockTotal--;
+        }
+        // Move the last document into the hole so the columns stay dense
+        int last = --size;
+        if (doc != last) {
+            productIds[doc] = productIds[last];
+            categories[doc] = categories[last];
+            priceCents[doc] = priceCents[last];
+            inStock[doc] = inStock[last];
+            ordinals.put(productIds[doc], doc);
+        }
+    }
+
+    private int categoryOrdinal(Long categoryId, String categoryName) {
+        Integer ordinal = categoryOrdinals.get(categoryId);
+        if (ordinal != null) {
+            // Keep the latest name so a renamed category is reported under its new name
+            categoryNames.set(ordinal, categoryName);
+            return ordinal;
+        }
+        ordinal = categoryIds.size();
+        categoryOrdinals.put(categoryId, ordinal);
+        categoryIds.add(categoryId);
+        categoryNames.add(categoryName);
+        if (categoryTotals.length <= ordinal) {
+            categoryTotals = Arrays.copyOf(categoryTotals, Math.max(8, categoryTotals.length * 2));
+        }
+        return ordinal;
+    }
+
+    private int bucketOf(long price) {
+        int position = Arrays.binarySearch(bucketBounds, price);
+        // A price equal to a bound opens the next bucket
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (productIds.length >= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, Math.max(16, productIds.length + (productIds.length >> 1)));
+        productIds = Arrays.copyOf(productIds, newCapacity);
+        categories = Arrays.copyOf(categories, newCapacity);
+        priceCents = Arrays.copyOf(priceCents, newCapacity);
+        inStock = Arrays.copyOf(inStock, newCapacity);
+    }
+}
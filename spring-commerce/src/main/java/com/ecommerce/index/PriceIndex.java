@@ -0,0 +1,298 @@
+package com.ecommerce.index;
+
+import com.ecommerce.event.ProductSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Product prices in whole cents, kept in sorted primitive arrays with the product ids alongside.
+ * <p>
+ * There is one column per category plus one over the whole catalog, each ordered by (price, id).
+ * A price range is two binary searches, its size is the match count, and a price-ordered page is
+ * a slice read from either end, or a merge of slices when a category has subcategories.
+ */
+@Component
+@Slf4j
+public class PriceIndex implements ProductIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Column all = new Column();
+    private final Map<Long, Column> byCategory = new HashMap<>();
+    // Current (category, price) of each product, needed to find its slot on update or removal
+    private final Map<Long, long[]> entries = new HashMap<>();
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void rebuild(List<ProductSnapshot> products) {
+        List<ProductSnapshot> sorted = new ArrayList<>(products);
+        sorted.sort((a, b) -> {
+            int byPrice = Long.compare(Prices.toCents(a.price()), Prices.toCents(b.price()));
+            return byPrice != 0 ? byPrice : Long.compare(a.id(), b.id());
+        });
+
+        lock.writeLock().lock();
+        try {
+            all.clear();
+            byCategory.clear();
+            entries.clear();
+            for (ProductSnapshot product : sorted) {
+                long cents = Prices.toCents(product.price());
+                // Input is already in (price, id) order, so every column is built by appending
+                all.append(cents, product.id());
+                byCategory.computeIfAbsent(product.categoryId(), id -> new Column()).append(cents, product.id());
+                entries.put(product.id(), new long[]{product.categoryId(), cents});
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Price index built: {} products, {} categories", products.size(), byCategory.size());
+    }
+
+    @Override
+    public void upsert(ProductSnapshot product) {
+        long cents = Prices.toCents(product.price());
+        lock.writeLock().lock();
+        try {
+            delete(product.id());
+            all.insert(cents, product.id());
+            byCategory.computeIfAbsent(product.categoryId(), id -> new Column()).insert(cents, product.id());
+            entries.put(product.id(), new long[]{product.categoryId(), cents});
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            delete(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Page of product ids within the filter's categories and price range, ordered by price and then id.
+     * A single category is a slice of its column; several (a category subtree) are merged on the fly.
+     */
+    public SearchPage page(SearchFilter filter, boolean descending, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Column> columns = columnsFor(filter);
+            int[] from = new int[columns.size()];
+            int[] to = new int[columns.size()];
+            int total = 0;
+            for (int c = 0; c < columns.size(); c++) {
+                from[c] = columns.get(c).lowerBound(filter.minPriceCents());
+                to[c] = Math.max(from[c], columns.get(c).upperBound(filter.maxPriceCents()));
+                total += to[c] - from[c];
+            }
+            if (offset >= total) {
+                return new SearchPage(List.of(), total);
+            }
+            int count = Math.min(limit, total - offset);
+            List<Long> ids = new ArrayList<>(count);
+            if (columns.size() == 1) {
+                Column column = columns.get(0);
+                for (int i = 0; i < count; i++) {
+                    int position = descending ? to[0] - 1 - offset - i : from[0] + offset + i;
+                    ids.add(column.ids[position]);
+                }
+            } else {
+                merge(columns, from, to, descending, offset, count, ids);
+            }
+            return new SearchPage(ids, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of products within the filter's categories and price range, without reading any of them.
+     */
+    public long count(SearchFilter filter) {
+        lock.readLock().lock();
+        try {
+            long total = 0;
+            for (Column column : columnsFor(filter)) {
+                int from = column.lowerBound(filter.minPriceCents());
+                total += Math.max(0, column.upperBound(filter.maxPriceCents()) - from);
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Column> columnsFor(SearchFilter filter) {
+        if (filter.categoryIds() == null) {
+            return List.of(all);
+        }
+        List<Column> columns = new ArrayList<>(filter.categoryIds().length);
+        for (long categoryId : filter.categoryIds()) {
+            Column column = byCategory.get(categoryId);
+            if (column != null) {
+                columns.add(column);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Walks the columns' ranges in (price, id) order, skipping {@code offset} entries. Subtrees are
+     * small, so picking the next head by a linear scan beats maintaining a heap.
+     */
+    private static void merge(List<Column> columns, int[] from, int[] to, boolean descending, int offset,
+                              int count, List<Long> ids) {
+        int[] heads = descending ? to.clone() : from.clone();
+        for (int emitted = -offset; emitted < count; emitted++) {
+            int best = -1;
+            for (int c = 0; c < columns.size(); c++) {
+                int position = descending ? heads[c] - 1 : heads[c];
+                if (position < from[c] || position >= to[c]) {
+                    continue;
+                }
+                if (best < 0 || comesFirst(columns.get(c), position, columns.get(best),
+                        descending ? heads[best] - 1 : heads[best], descending)) {
+                    best = c;
+                }
+            }
+            Column column = columns.get(best);
+            int position = descending ? --heads[best] : heads[best]++;
+            if (emitted >= 0) {
+                ids.add(column.ids[position]);
+            }
+        }
+    }
+
+    private static boolean comesFirst(Column a, int i, Column b, int j, boolean descending) {
+        int order = a.prices[i] != b.prices[j]
+                ? Long.compare(a.prices[i], b.prices[j])
+                : Long.compare(a.ids[i], b.ids[j]);
+        return descending ? order > 0 : order < 0;
+    }
+
+    private void delete(Long productId) {
+        long[] entry = entries.remove(productId);
+        if (entry == null) {
+            return;
+        }
+        all.delete(entry[1], productId);
+        Column column = byCategory.get(entry[0]);
+        if (column != null) {
+            column.delete(entry[1], productId);
+            if (column.size == 0) {
+                byCategory.remove(entry[0]);
+            }
+        }
+    }
+
+    private static final class Column {
+        private long[] prices = new long[16];
+        private long[] ids = new long[16];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        void append(long price, long id) {
+            ensureCapacity(size + 1);
+            prices[size] = price;
+            ids[size] = id;
+            size++;
+        }
+
+        void insert(long price, long id) {
+            ensureCapacity(size + 1);
+            int position = slot(price, id);
+            System.arraycopy(prices, position, prices, position + 1, size - position);
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            prices[position] = price;
+            ids[position] = id;
+            size++;
+        }
+
+        void delete(long price, long id) {
+            int position = slot(price, id);
+            if (position < size && prices[position] == price && ids[position] == id) {
+                System.arraycopy(prices, position + 1, prices, position, size - position - 1);
+                System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+                size--;
+            }
+        }
+
+        /**
+         * First position whose price is at least {@code price}.
+         */
+        int lowerBound(long price) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] < price) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * First position whose price is greater than {@code price}.
+         */
+        int upperBound(long price) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] <= price) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Position of (price, id), or where it would be inserted.
+         */
+        private int slot(long price, long id) {
+            int low = lowerBound(price);
+            int high = upperBound(price);
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ids[mid] < id) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (prices.length < capacity) {
+                int newCapacity = Math.max(capacity, prices.length + (prices.length >> 1));
+                prices = Arrays.copyOf(prices, newCapacity);
+                ids = Arrays.copyOf(ids, newCapacity);
+            }
+        }
+    }
+}
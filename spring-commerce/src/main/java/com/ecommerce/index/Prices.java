@@ -0,0 +1,43 @@
+package com.ecommerce.index;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Prices are held as whole cents in the in-memory indexes so range checks are primitive comparisons.
+ */
+final class Prices {
+
+    private static final BigDecimal MIN_CENTS = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal MAX_CENTS = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    private Prices() {
+    }
+
+    static long toCents(BigDecimal price) {
+        return price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    static long lowerBoundCents(BigDecimal minPrice) {
+        return minPrice == null ? Long.MIN_VALUE : boundCents(minPrice, RoundingMode.CEILING);
+    }
+
+    static long upperBoundCents(BigDecimal maxPrice) {
+        return maxPrice == null ? Long.MAX_VALUE : boundCents(maxPrice, RoundingMode.FLOOR);
+    }
+
+    /**
+     * Bounds come from the request, so ones beyond what cents can hold are clamped rather than rejected;
+     * every stored price lies between them anyway.
+     */
+    private static long boundCents(BigDecimal price, RoundingMode rounding) {
+        BigDecimal cents = price.movePointRight(2);
+        if (cents.compareTo(MAX_CENTS) >= 0) {
+            return Long.MAX_VALUE;
+        }
+        if (cents.compareTo(MIN_CENTS) <= 0) {
+            return Long.MIN_VALUE;
+        }
+        return cents.setScale(0, rounding).longValueExact();
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.index;
+
+import com.ecommerce.event.ProductSnapshot;
+
+import java.util.List;
+
+/**
+ * In-memory structure derived from the product catalog. {@link CatalogIndexer} loads every
+ * implementation at startup and keeps it current from {@code ProductChangedEvent}s.
+ */
+public interface ProductIndex {
+
+    void rebuild(List<ProductSnapshot> products);
+
+    void upsert(ProductSnapshot product);
+
+    void remove(Long productId);
+}
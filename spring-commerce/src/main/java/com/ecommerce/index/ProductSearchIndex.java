@@ -0,0 +1,606 @@
+package com.ecommerce.index;
+
+import com.ecommerce.event.ProductSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product name, category name and description.
+ * <p>
+ * Documents get a new ordinal on every write, so postings stay sorted by appending and an update
+ * only tombstones the previous ordinal; tombstones are compacted away once they outnumber live
+ * documents. Queries are AND-ed across tokens and ranked with BM25F. The last query token also
+ * matches as a prefix of indexed words, and tokens with no exact match fall back to terms within
+ * one or two edits.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex implements ProductIndex {
+
+    private static final int NAME = 0;
+    private static final int CATEGORY = 1;
+    private static final int DESCRIPTION = 2;
+    private static final int FIELDS = 3;
+    private static final float[] FIELD_BOOSTS = {3.0f, 2.0f, 1.0f};
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private static final float PREFIX_WEIGHT = 0.7f;
+    private static final float FUZZY_WEIGHT = 0.5f;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_EXPANSIONS = 50;
+    private static final int MAX_QUERY_TOKENS = 16;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Scoring buffers are sized to the index, so they are pooled rather than kept per request thread
+    private final BlockingQueue<Scratch> scratchPool = new ArrayBlockingQueue<>(16);
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    // Unstemmed word -> indexed term, so prefixes of partially typed words still find their stem
+    private final TreeMap<String, String> surfaceForms = new TreeMap<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final long[] totalFieldLength = new long[FIELDS];
+    private long[] productIds = new long[0];
+    private long[] categoryIds = new long[0];
+    private long[] priceCents = new long[0];
+    private int[][] fieldLengths = new int[FIELDS][0];
+    private int size;
+    private int liveCount;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void rebuild(List<ProductSnapshot> products) {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            surfaceForms.clear();
+            ordinals.clear();
+            live.clear();
+            Arrays.fill(totalFieldLength, 0);
+            size = 0;
+            liveCount = 0;
+            ensureCapacity(products.size());
+            products.forEach(this::add);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Search index built: {} products, {} terms", products.size(), terms.size());
+    }
+
+    @Override
+    public void upsert(ProductSnapshot product) {
+        lock.writeLock().lock();
+        try {
+            delete(product.id());
+            add(product);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            delete(productId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked page of product ids matching {@code query} and {@code filter}.
+     */
+    public SearchPage search(String query, SearchFilter filter, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            Hits hits = collect(query, filter);
+            return new SearchPage(hits.top(offset, limit), hits.count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every product id matching {@code query}, unranked.
+     */
+    public long[] matchingIds(String query) {
+        lock.readLock().lock();
+        try {
+            Hits hits = collect(query, SearchFilter.of(null, null, null));
+            return Arrays.copyOf(hits.productIds(), hits.count());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether {@code product} could be returned for {@code query}. Errs on the side of matching.
+     */
+    public boolean matches(String query, ProductSnapshot product) {
+        List<String> queryTokens = TextAnalyzer.tokenize(query);
+        List<String> surfaces = new ArrayList<>();
+        surfaces.addAll(TextAnalyzer.tokenize(product.name()));
+        surfaces.addAll(TextAnalyzer.tokenize(product.categoryName()));
+        surfaces.addAll(TextAnalyzer.tokenize(product.description()));
+        Set<String> productTerms = new HashSet<>();
+        surfaces.forEach(surface -> productTerms.add(TextAnalyzer.stem(surface)));
+
+        for (int i = 0; i < queryTokens.size(); i++) {
+            String surface = queryTokens.get(i);
+            String term = TextAnalyzer.stem(surface);
+            boolean last = i == queryTokens.size() - 1;
+            boolean matched = productTerms.contains(term)
+                    || (last && surfaces.stream().anyMatch(candidate -> candidate.startsWith(surface)))
+                    || productTerms.stream().anyMatch(candidate -> isFuzzyMatch(term, candidate));
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(ProductSnapshot product) {
+        int doc = size++;
+        ensureCapacity(size);
+        ordinals.put(product.id(), doc);
+        productIds[doc] = product.id();
+        categoryIds[doc] = product.categoryId();
+        priceCents[doc] = Prices.toCents(product.price());
+
+        Map<String, int[]> frequencies = new HashMap<>();
+        indexField(NAME, product.name(), doc, frequencies);
+        indexField(CATEGORY, product.categoryName(), doc, frequencies);
+        indexField(DESCRIPTION, product.description(), doc, frequencies);
+        frequencies.forEach((term, counts) -> terms.computeIfAbsent(term, t -> new Postings()).add(doc, pack(counts)));
+
+        live.set(doc);
+        liveCount++;
+    }
+
+    private void indexField(int field, String text, int doc, Map<String, int[]> frequencies) {
+        List<String> surfaces = TextAnalyzer.tokenize(text);
+        fieldLengths[field][doc] = surfaces.size();
+        totalFieldLength[field] += surfaces.size();
+        for (String surface : surfaces) {
+            String term = TextAnalyzer.stem(surface);
+            surfaceForms.put(surface, term);
+            frequencies.computeIfAbsent(term, t -> new int[FIELDS])[field]++;
+        }
+    }
+
+    private void delete(Long productId) {
+        Integer doc = ordinals.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        live.clear(doc);
+        liveCount--;
+        for (int field = 0; field < FIELDS; field++) {
+            totalFieldLength[field] -= fieldLengths[field][doc];
+        }
+    }
+
+    private void compactIfNeeded() {
+        int dead = size - liveCount;
+        if (dead < 1024 || dead < liveCount) {
+            return;
+        }
+        int[] remap = new int[size];
+        int next = 0;
+        for (int doc = 0; doc < size; doc++) {
+            if (live.get(doc)) {
+                remap[doc] = next;
+                productIds[next] = productIds[doc];
+                categoryIds[next] = categoryIds[doc];
+                priceCents[next] = priceCents[doc];
+                for (int field = 0; field < FIELDS; field++) {
+                    fieldLengths[field][next] = fieldLengths[field][doc];
+                }
+                next++;
+            } else {
+                remap[doc] = -1;
+            }
+        }
+        terms.values().removeIf(postings -> postings.compact(remap) == 0);
+        surfaceForms.values().removeIf(term -> !terms.containsKey(term));
+        ordinals.clear();
+        for (int doc = 0; doc < next; doc++) {
+            ordinals.put(productIds[doc], doc);
+        }
+        live.clear();
+        live.set(0, next);
+        size = next;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= productIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, Math.max(16, productIds.length + (productIds.length >> 1)));
+        productIds = Arrays.copyOf(productIds, newCapacity);
+        categoryIds = Arrays.copyOf(categoryIds, newCapacity);
+        priceCents = Arrays.copyOf(priceCents, newCapacity);
+        for (int field = 0; field < FIELDS; field++) {
+            fieldLengths[field] = Arrays.copyOf(fieldLengths[field], newCapacity);
+        }
+    }
+
+    private Hits collect(String query, SearchFilter filter) {
+        List<String> tokens = TextAnalyzer.tokenize(query);
+        if (tokens.isEmpty() || liveCount == 0) {
+            return Hits.EMPTY;
+        }
+        if (tokens.size() > MAX_QUERY_TOKENS) {
+            tokens = tokens.subList(0, MAX_QUERY_TOKENS);
+        }
+        List<List<Expansion>> expansions = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            List<Expansion> expansion = expand(tokens.get(i), i == tokens.size() - 1);
+            if (expansion.isEmpty()) {
+                return Hits.EMPTY;
+            }
+            expansions.add(expansion);
+        }
+        // Rarest token first: later tokens only score documents that already matched
+        expansions.sort((a, b) -> Long.compare(postingsSize(a), postingsSize(b)));
+
+        float[] averageLength = new float[FIELDS];
+        for (int field = 0; field < FIELDS; field++) {
+            averageLength[field] = Math.max(1f, (float) totalFieldLength[field] / liveCount);
+        }
+
+        Scratch s = acquireScratch();
+        try {
+            s.prepare(size);
+            int base = s.nextQueryBase();
+            for (int t = 0; t < expansions.size(); t++) {
+                // A doc's progress is base + t once it has matched t tokens, base + 32 + t while scored by token t
+                int pending = base + t;
+                int scoring = base + 32 + t;
+                s.touchedCount = 0;
+                for (Expansion expansion : expansions.get(t)) {
+                    Postings postings = expansion.postings;
+                    float idf = idf(postings.size);
+                    for (int i = 0; i < postings.size; i++) {
+                        int doc = postings.docs[i];
+                        if (!live.get(doc)) {
+                            continue;
+                        }
+                        int progress = s.progress[doc];
+                        if (progress != scoring) {
+                            if (t == 0 ? !filter.accepts(categoryIds[doc], priceCents[doc]) : progress != pending) {
+                                continue;
+                            }
+                        }
+                        float score = expansion.weight * idf * bm25(postings.frequencies[i], doc, averageLength);
+                        if (progress != scoring) {
+                            s.progress[doc] = scoring;
+                            s.best[doc] = score;
+                            s.touch(doc);
+                        } else if (score > s.best[doc]) {
+                            s.best[doc] = score;
+                        }
+                    }
+                }
+                for (int i = 0; i < s.touchedCount; i++) {
+                    int doc = s.touched[i];
+                    s.progress[doc] = pending + 1;
+                    s.total[doc] = (t == 0 ? 0 : s.total[doc]) + s.best[doc];
+                }
+            }
+
+            int count = s.touchedCount;
+            float[] scores = new float[count];
+            long[] ids = new long[count];
+            for (int i = 0; i < count; i++) {
+                int doc = s.touched[i];
+                scores[i] = s.total[doc];
+                ids[i] = productIds[doc];
+            }
+            return new Hits(scores, ids, count);
+        } finally {
+            releaseScratch(s);
+        }
+    }
+
+    private Scratch acquireScratch() {
+        Scratch s = scratchPool.poll();
+        return s != null ? s : new Scratch();
+    }
+
+    private void releaseScratch(Scratch s) {
+        scratchPool.offer(s);
+    }
+
+    private List<Expansion> expand(String surface, boolean last) {
+        List<Expansion> expansions = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        String term = TextAnalyzer.stem(surface);
+        addExpansion(expansions, seen, term, 1.0f);
+
+        if (last && surface.length() >= MIN_PREFIX_LENGTH) {
+            for (String prefixed : surfaceForms.subMap(surface, true, surface + Character.MAX_VALUE, false).values()) {
+                if (seen.size() >= MAX_EXPANSIONS) {
+                    break;
+                }
+                addExpansion(expansions, seen, prefixed, PREFIX_WEIGHT);
+            }
+        }
+
+        if (expansions.isEmpty() && maxEdits(term) > 0) {
+            char first = term.charAt(0);
+            for (String candidate : terms.subMap(String.valueOf(first), true,
+                    String.valueOf((char) (first + 1)), false).keySet()) {
+                if (seen.size() >= MAX_EXPANSIONS) {
+                    break;
+                }
+                int distance = editDistance(term, candidate, maxEdits(term));
+                if (distance <= maxEdits(term)) {
+                    addExpansion(expansions, seen, candidate, FUZZY_WEIGHT / distance);
+                }
+            }
+        }
+        return expansions;
+    }
+
+    private void addExpansion(List<Expansion> expansions, Set<String> seen, String term, float weight) {
+        Postings postings = terms.get(term);
+        if (postings != null && seen.add(term)) {
+            expansions.add(new Expansion(postings, weight));
+        }
+    }
+
+    private float idf(int documentFrequency) {
+        int df = Math.min(documentFrequency, liveCount);
+        return (float) Math.log(1 + (liveCount - df + 0.5) / (df + 0.5));
+    }
+
+    private float bm25(int packedFrequencies, int doc, float[] averageLength) {
+        float tf = 0;
+        for (int field = 0; field < FIELDS; field++) {
+            int frequency = unpack(packedFrequencies, field);
+            if (frequency > 0) {
+                float norm = 1 - B + B * fieldLengths[field][doc] / averageLength[field];
+                tf += FIELD_BOOSTS[field] * frequency / norm;
+            }
+        }
+        return tf * (K1 + 1) / (tf + K1);
+    }
+
+    private static long postingsSize(List<Expansion> expansions) {
+        long total = 0;
+        for (Expansion expansion : expansions) {
+            total += expansion.postings.size;
+        }
+        return total;
+    }
+
+    private static boolean isFuzzyMatch(String term, String candidate) {
+        int maxEdits = maxEdits(term);
+        return maxEdits > 0 && candidate.charAt(0) == term.charAt(0)
+                && editDistance(term, candidate, maxEdits) <= maxEdits;
+    }
+
+    private static int maxEdits(String term) {
+        if (term.length() >= 8) {
+            return 2;
+        }
+        return term.length() >= 4 ? 1 : 0;
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent transpositions), giving up with
+     * {@code maxEdits + 1} as soon as the distance is known to exceed {@code maxEdits}.
+     */
+    static int editDistance(String a, String b, int maxEdits) {
+        if (Math.abs(a.length() - b.length()) > maxEdits) {
+            return maxEdits + 1;
+        }
+        int[] previousPrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previousPrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    private static int pack(int[] counts) {
+        return Math.min(counts[NAME], 1023) << 20
+                | Math.min(counts[CATEGORY], 1023) << 10
+                | Math.min(counts[DESCRIPTION], 1023);
+    }
+
+    private static int unpack(int packed, int field) {
+        return (packed >>> (10 * (FIELDS - 1 - field))) & 1023;
+    }
+
+    private record Expansion(Postings postings, float weight) {
+    }
+
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private int[] frequencies = new int[2];
+        private int size;
+
+        void add(int doc, int packedFrequencies) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size] = packedFrequencies;
+            size++;
+        }
+
+        int compact(int[] remap) {
+            int next = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[docs[i]];
+                if (doc >= 0) {
+                    docs[next] = doc;
+                    frequencies[next] = frequencies[i];
+                    next++;
+                }
+            }
+            size = next;
+            return size;
+        }
+    }
+
+    /**
+     * Matching documents with their scores, in no particular order.
+     */
+    private record Hits(float[] scores, long[] productIds, int count) {
+
+        static final Hits EMPTY = new Hits(new float[0], new long[0], 0);
+
+        List<Long> top(int offset, int limit) {
+            int wanted = (int) Math.min((long) offset + limit, count);
+            if (offset >= wanted) {
+                return List.of();
+            }
+            // Bounded min-heap of (score, doc) keys; a higher key ranks first
+            long[] heap = new long[wanted];
+            int heapSize = 0;
+            for (int i = 0; i < count; i++) {
+                long key = rankKey(scores[i], i);
+                if (heapSize < wanted) {
+                    heap[heapSize] = key;
+                    siftUp(heap, heapSize++);
+                } else if (key > heap[0]) {
+                    heap[0] = key;
+                    siftDown(heap, heapSize);
+                }
+            }
+            Arrays.sort(heap, 0, heapSize);
+            List<Long> page = new ArrayList<>(wanted - offset);
+            for (int rank = offset; rank < wanted; rank++) {
+                int hit = Integer.MAX_VALUE - (int) heap[heapSize - 1 - rank];
+                page.add(productIds[hit]);
+            }
+            return page;
+        }
+
+        private long rankKey(float score, int hit) {
+            // Scores are non-negative, so their IEEE bits sort like the values; ties keep index order
+            return ((long) Float.floatToIntBits(score) << 32) | (Integer.MAX_VALUE - hit);
+        }
+
+        private static void siftUp(long[] heap, int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (heap[parent] <= heap[index]) {
+                    return;
+                }
+                long swap = heap[parent];
+                heap[parent] = heap[index];
+                heap[index] = swap;
+                index = parent;
+            }
+        }
+
+        private static void siftDown(long[] heap, int size) {
+            int index = 0;
+            while (true) {
+                int smallest = index;
+                int left = 2 * index + 1;
+                int right = left + 1;
+                if (left < size && heap[left] < heap[smallest]) {
+                    smallest = left;
+                }
+                if (right < size && heap[right] < heap[smallest]) {
+                    smallest = right;
+                }
+                if (smallest == index) {
+                    return;
+                }
+                long swap = heap[smallest];
+                heap[smallest] = heap[index];
+                heap[index] = swap;
+                index = smallest;
+            }
+        }
+    }
+
+    /**
+     * Scoring buffers sized to the index and reused across queries. {@code progress} holds a
+     * per-query stamp, so the arrays never need clearing between queries.
+     */
+    private static final class Scratch {
+        private float[] best = new float[0];
+        private float[] total = new float[0];
+        private int[] progress = new int[0];
+        private int[] touched = new int[16];
+        private int touchedCount;
+        private int queryBase;
+
+        void prepare(int capacity) {
+            if (progress.length < capacity) {
+                best = new float[capacity];
+                total = new float[capacity];
+                progress = new int[capacity];
+                queryBase = 0;
+            }
+        }
+
+        int nextQueryBase() {
+            if (queryBase > Integer.MAX_VALUE - 128) {
+                Arrays.fill(progress, 0);
+                queryBase = 0;
+            }
+            queryBase += 64;
+            return queryBase;
+        }
+
+        void touch(int doc) {
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+            touched[touchedCount++] = doc;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.ecommerce.index;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Category and price constraints applied while collecting search hits. The category constraint is
+ * a sorted set of ids, normally a category's whole subtree; {@code null} means any category.
+ */
+public record SearchFilter(long[] categoryIds, long minPriceCents, long maxPriceCents) {
+
+    public static SearchFilter of(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice) {
+        return new SearchFilter(categoryId == null ? null : new long[]{categoryId},
+                Prices.lowerBoundCents(minPrice), Prices.upperBoundCents(maxPrice));
+    }
+
+    public static SearchFilter ofCategories(Collection<Long> categoryIds, BigDecimal minPrice, BigDecimal maxPrice) {
+        long[] ids = categoryIds == null
+                ? null
+                : categoryIds.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        return new SearchFilter(ids, Prices.lowerBoundCents(minPrice), Prices.upperBoundCents(maxPrice));
+    }
+
+    boolean acceptsCategory(long productCategoryId) {
+        return categoryIds == null || Arrays.binarySearch(categoryIds, productCategoryId) >= 0;
+    }
+
+    boolean accepts(long productCategoryId, long priceCents) {
+        return acceptsCategory(productCategoryId) && priceCents >= minPriceCents && priceCents <= maxPriceCents;
+    }
+}
@@ -0,0 +1,9 @@
+package com.ecommerce.index;
+
+import java.util.List;
+
+/**
+ * One page of ranked product ids plus the total number of matching products.
+ */
+public record SearchPage(List<Long> productIds, long totalHits) {
+}
@@ -0,0 +1,470 @@
+package com.ecommerce.index;
+
+import com.ecommerce.event.OrderPlacedEvent;
+import com.ecommerce.event.ProductSnapshot;
+import com.ecommerce.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Radix trie of product and category names for typeahead.
+ * <p>
+ * A name is reachable from the start of each of its first few words, so "bat" completes
+ * "English Willow Bat". Every node records the best score in its subtree, which lets a
+ * best-first walk stop after the top {@code k} completions instead of visiting every match.
+ * Products score by units sold and categories by the units sold across their products. Orders
+ * placed on this node raise the scores as they commit; sales made on other nodes are picked up by a
+ * periodic refresh from the order table.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class SuggestIndex implements ProductIndex {
+
+    private static final int MAX_KEY_WORDS = 6;
+    private static final int MAX_KEY_LENGTH = 64;
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final OrderRepository orderRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> products = new HashMap<>();
+    private final Map<Long, Entry> categories = new HashMap<>();
+    private final Map<Long, Integer> categorySizes = new HashMap<>();
+    private final Map<Long, Long> unitsSold = new HashMap<>();
+    private Node root = new Node(new char[0]);
+
+    @Override
+    public void rebuild(List<ProductSnapshot> snapshots) {
+        Map<Long, Long> sales = new HashMap<>();
+        orderRepository.sumUnitsSoldByProduct()
+                .forEach(row -> sales.put(row.getProductId(), row.getUnitsSold()));
+
+        lock.writeLock().lock();
+        try {
+            root = new Node(new char[0]);
+            products.clear();
+            categories.clear();
+            categorySizes.clear();
+            unitsSold.clear();
+            unitsSold.putAll(sales);
+            Map<Long, ProductSnapshot> categoryNames = new HashMap<>();
+            Map<Long, Long> categoryScores = new HashMap<>();
+            for (ProductSnapshot product : snapshots) {
+                Entry entry = addProduct(product);
+                categoryNames.putIfAbsent(product.categoryId(), product);
+                categoryScores.merge(product.categoryId(), entry.score, Long::sum);
+                categorySizes.merge(product.categoryId(), 1, Integer::sum);
+            }
+            // Categories are inserted once with their final score rather than re-inserted per product
+            categoryScores.forEach((categoryId, score) -> {
+                Entry category = new Entry(new Suggestion(categoryNames.get(categoryId).categoryName(),
+                        Suggestion.Type.CATEGORY, categoryId), score, categoryId);
+                categories.put(categoryId, category);
+                insertAll(category);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Suggest index built: {} products, {} categories", products.size(), categories.size());
+    }
+
+    @Override
+    public void upsert(ProductSnapshot product) {
+        lock.writeLock().lock();
+        try {
+            delete(product.id());
+            add(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            delete(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        lock.writeLock().lock();
+        try {
+            event.quantities().forEach((productId, quantity) ->
+                    rescore(productId, unitsSold.merge(productId, (long) quantity, Long::sum)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-reads units sold from the order table, so orders placed on other nodes count here too.
+     */
+    @Scheduled(fixedDelay = 10, initialDelay = 10, timeUnit = TimeUnit.MINUTES)
+    public void refreshPopularity() {
+        Map<Long, Long> sales = new HashMap<>();
+        orderRepository.sumUnitsSoldByProduct()
+                .forEach(row -> sales.put(row.getProductId(), row.getUnitsSold()));
+
+        int changed = 0;
+        lock.writeLock().lock();
+        try {
+            // Also corrects an order counted twice or missed while its event raced a previous refresh
+            for (Map.Entry<Long, Long> row : sales.entrySet()) {
+                if (!row.getValue().equals(unitsSold.put(row.getKey(), row.getValue()))) {
+                    rescore(row.getKey(), row.getValue());
+                    changed++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (changed > 0) {
+            log.debug("Suggest index popularity refreshed for {} products", changed);
+        }
+    }
+
+    /**
+     * Up to {@code limit} distinct completions of {@code prefix}, best first.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node start = find(key);
+            if (start == null) {
+                return List.of();
+            }
+            // Best-first over subtrees and entries; a subtree is only opened when it can still beat what is queued
+            PriorityQueue<Candidate> queue = new PriorityQueue<>();
+            queue.add(new Candidate(start.maxScore, start, null));
+            Set<Entry> seen = new HashSet<>();
+            List<Suggestion> suggestions = new ArrayList<>(limit);
+            while (!queue.isEmpty() && suggestions.size() < limit) {
+                Candidate candidate = queue.poll();
+                if (candidate.entry != null) {
+                    if (seen.add(candidate.entry)) {
+                        suggestions.add(candidate.entry.suggestion);
+                    }
+                    continue;
+                }
+                for (Entry entry : candidate.node.entries) {
+                    queue.add(new Candidate(entry.score, null, entry));
+                }
+                for (Node child : candidate.node.children) {
+                    queue.add(new Candidate(child.maxScore, child, null));
+                }
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Entry addProduct(ProductSnapshot product) {
+        long score = unitsSold.getOrDefault(product.id(), 0L);
+        Entry entry = new Entry(new Suggestion(product.name(), Suggestion.Type.PRODUCT, product.id()), score,
+                product.categoryId());
+        products.put(product.id(), entry);
+        insertAll(entry);
+        return entry;
+    }
+
+    private void add(ProductSnapshot product) {
+        Entry entry = addProduct(product);
+        Entry category = categories.get(product.categoryId());
+        long categoryScore = entry.score;
+        if (category != null) {
+            removeAll(category);
+            categoryScore += category.score;
+        }
+        Entry updated = new Entry(new Suggestion(product.categoryName(), Suggestion.Type.CATEGORY,
+                product.categoryId()), categoryScore, product.categoryId());
+        categories.put(product.categoryId(), updated);
+        categorySizes.merge(product.categoryId(), 1, Integer::sum);
+        insertAll(updated);
+    }
+
+    /**
+     * Re-inserts the product and its category under the product's new score.
+     */
+    private void rescore(Long productId, long score) {
+        Entry entry = products.get(productId);
+        if (entry == null || entry.score == score) {
+            return;
+        }
+        removeAll(entry);
+        Entry updated = new Entry(entry.suggestion, score, entry.categoryId);
+        products.put(productId, updated);
+        insertAll(updated);
+
+        Entry category = categories.get(entry.categoryId);
+        if (category != null) {
+            removeAll(category);
+            Entry rescored = new Entry(category.suggestion, category.score - entry.score + score, entry.categoryId);
+            categories.put(entry.categoryId, rescored);
+            insertAll(rescored);
+        }
+    }
+
+    private void delete(Long productId) {
+        Entry entry = products.remove(productId);
+        if (entry == null) {
+            return;
+        }
+        removeAll(entry);
+
+        Long categoryId = entry.categoryId;
+        Entry category = categories.remove(categoryId);
+        if (category == null) {
+            return;
+        }
+        removeAll(category);
+        if (categorySizes.merge(categoryId, -1, Integer::sum) <= 0) {
+            categorySizes.remove(categoryId);
+        } else {
+            Entry updated = new Entry(category.suggestion, category.score - entry.score, categoryId);
+            categories.put(categoryId, updated);
+            insertAll(updated);
+        }
+    }
+
+    private void insertAll(Entry entry) {
+        for (String key : keys(entry.suggestion.text())) {
+            insert(key, entry);
+        }
+    }
+
+    private void removeAll(Entry entry) {
+        for (String key : keys(entry.suggestion.text())) {
+            remove(root, key, 0, entry);
+        }
+    }
+
+    private void insert(String key, Entry entry) {
+        Node node = root;
+        node.maxScore = Math.max(node.maxScore, entry.score);
+        int offset = 0;
+        while (offset < key.length()) {
+            int index = childIndex(node, key.charAt(offset));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(offset).toCharArray());
+                leaf.entries = new Entry[]{entry};
+                leaf.maxScore = entry.score;
+                node.children = insertChild(node.children, -index - 1, leaf);
+                return;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, offset);
+            if (common < child.label.length) {
+                // Split the edge at the point where the key diverges
+                Node split = new Node(Arrays.copyOf(child.label, common));
+                child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                split.children = new Node[]{child};
+                split.maxScore = child.maxScore;
+                node.children[index] = split;
+                child = split;
+            }
+            child.maxScore = Math.max(child.maxScore, entry.score);
+            node = child;
+            offset += common;
+        }
+        node.entries = Arrays.copyOf(node.entries, node.entries.length + 1);
+        node.entries[node.entries.length - 1] = entry;
+    }
+
+    /**
+     * Removes {@code entry} under {@code key}, pruning and re-merging edges on the way back up.
+     */
+    private void remove(Node node, String key, int offset, Entry entry) {
+        if (offset == key.length()) {
+            node.entries = without(node.entries, entry);
+        } else {
+            int index = childIndex(node, key.charAt(offset));
+            if (index < 0) {
+                return;
+            }
+            Node child = node.children[index];
+            if (commonPrefix(child.label, key, offset) < child.label.length) {
+                return;
+            }
+            remove(child, key, offset + child.label.length, entry);
+            if (child.entries.length == 0 && child.children.length == 0) {
+                node.children = removeChild(node.children, index);
+            } else if (child.entries.length == 0 && child.children.length == 1) {
+                Node grandchild = child.children[0];
+                char[] merged = Arrays.copyOf(child.label, child.label.length + grandchild.label.length);
+                System.arraycopy(grandchild.label, 0, merged, child.label.length, grandchild.label.length);
+                grandchild.label = merged;
+                node.children[index] = grandchild;
+            }
+        }
+        long max = 0;
+        for (Entry remaining : node.entries) {
+            max = Math.max(max, remaining.score);
+        }
+        for (Node child : node.children) {
+            max = Math.max(max, child.maxScore);
+        }
+        node.maxScore = max;
+    }
+
+    /**
+     * Node whose subtree holds every key starting with {@code prefix}.
+     */
+    private Node find(String prefix) {
+        Node node = root;
+        int offset = 0;
+        while (offset < prefix.length()) {
+            int index = childIndex(node, prefix.charAt(offset));
+            if (index < 0) {
+                return null;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, prefix, offset);
+            if (offset + common < prefix.length() && common < child.label.length) {
+                return null;
+            }
+            node = child;
+            offset += common;
+        }
+        return node;
+    }
+
+    private static List<String> keys(String text) {
+        List<String> tokens = TextAnalyzer.tokenize(text);
+        List<String> keys = new ArrayList<>();
+        for (int start = 0; start < Math.min(tokens.size(), MAX_KEY_WORDS); start++) {
+            String key = String.join(" ", tokens.subList(start, tokens.size()));
+            keys.add(key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key);
+        }
+        return keys;
+    }
+
+    private static String normalize(String prefix) {
+        return prefix == null ? "" : String.join(" ", TextAnalyzer.tokenize(prefix));
+    }
+
+    private static int childIndex(Node node, char first) {
+        int low = 0;
+        int high = node.children.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char c = node.children[mid].label[0];
+            if (c < first) {
+                low = mid + 1;
+            } else if (c > first) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int commonPrefix(char[] label, String key, int offset) {
+        int length = Math.min(label.length, key.length() - offset);
+        int i = 0;
+        while (i < length && label[i] == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static Node[] insertChild(Node[] children, int index, Node child) {
+        Node[] result = new Node[children.length + 1];
+        System.arraycopy(children, 0, result, 0, index);
+        result[index] = child;
+        System.arraycopy(children, index, result, index + 1, children.length - index);
+        return result;
+    }
+
+    private static Node[] removeChild(Node[] children, int index) {
+        if (children.length == 1) {
+            return NO_CHILDREN;
+        }
+        Node[] result = new Node[children.length - 1];
+        System.arraycopy(children, 0, result, 0, index);
+        System.arraycopy(children, index + 1, result, index, children.length - index - 1);
+        return result;
+    }
+
+    private static Entry[] without(Entry[] entries, Entry entry) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i] == entry) {
+                if (entries.length == 1) {
+                    return NO_ENTRIES;
+                }
+                Entry[] result = new Entry[entries.length - 1];
+                System.arraycopy(entries, 0, result, 0, i);
+                System.arraycopy(entries, i + 1, result, i, entries.length - i - 1);
+                return result;
+            }
+        }
+        return entries;
+    }
+
+    private static final class Node {
+        private char[] label;
+        private Node[] children = NO_CHILDREN;
+        private Entry[] entries = NO_ENTRIES;
+        private long maxScore;
+
+        Node(char[] label) {
+            this.label = label;
+        }
+    }
+
+    private record Entry(Suggestion suggestion, long score, Long categoryId) {
+
+        // Identity semantics: two products with the same name are still different entries
+        @Override
+        public boolean equals(Object other) {
+            return this == other;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+
+    private record Candidate(long score, Node node, Entry entry) implements Comparable<Candidate> {
+
+        @Override
+        public int compareTo(Candidate other) {
+            int byScore = Long.compare(other.score, score);
+            if (byScore != 0) {
+                return byScore;
+            }
+            // On ties, emit entries before opening deeper subtrees, so shorter completions come first
+            if ((entry == null) != (other.entry == null)) {
+                return entry != null ? -1 : 1;
+            }
+            return entry == null ? 0 : Integer.compare(entry.suggestion.text().length(),
+                    other.entry.suggestion.text().length());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.index;
+
+/**
+ * One typeahead completion: the display text of a product or category name.
+ */
+public record Suggestion(String text, Type type, Long id) {
+
+    public enum Type {
+        PRODUCT,
+        CATEGORY
+    }
+}
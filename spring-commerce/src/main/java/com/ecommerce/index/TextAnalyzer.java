@@ -0,0 +1,106 @@
+package com.ecommerce.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Tokenizer shared by the catalog text indexes: splits on anything that is not a letter or digit,
+ * folds accents and case, drops stop words and applies a light English suffix stemmer.
+ */
+final class TextAnalyzer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "the", "to", "with");
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * Normalized surface tokens, before stemming.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = folded.substring(start, i);
+                if (!STOP_WORDS.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    static String stem(String token) {
+        int length = token.length();
+        if (length <= 3 || !Character.isLetter(token.charAt(length - 1))) {
+            return token;
+        }
+        if (token.endsWith("ies") && length > 4) {
+            return token.substring(0, length - 3) + "y";
+        }
+        if (token.endsWith("sses")) {
+            return token.substring(0, length - 2);
+        }
+        if (token.endsWith("es") && (token.endsWith("shes") || token.endsWith("ches") || token.endsWith("xes")
+                || token.endsWith("zes"))) {
+            return token.substring(0, length - 2);
+        }
+        if (token.endsWith("s") && !token.endsWith("ss") && !token.endsWith("us") && !token.endsWith("is")) {
+            return token.substring(0, length - 1);
+        }
+        if (token.endsWith("ing")) {
+            return stripSuffix(token, 3);
+        }
+        if (token.endsWith("ed")) {
+            return stripSuffix(token, 2);
+        }
+        if (token.endsWith("ly")) {
+            return stripSuffix(token, 2);
+        }
+        return token;
+    }
+
+    private static String stripSuffix(String token, int suffixLength) {
+        String stem = token.substring(0, token.length() - suffixLength);
+        if (stem.length() < 3 || !hasVowel(stem)) {
+            return token;
+        }
+        int last = stem.length() - 1;
+        // batting -> batt -> bat, padded -> padd -> pad
+        if (stem.charAt(last) == stem.charAt(last - 1) && !isVowel(stem.charAt(last))
+                && "lsz".indexOf(stem.charAt(last)) < 0) {
+            return stem.substring(0, last);
+        }
+        return stem;
+    }
+
+    private static boolean hasVowel(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (isVowel(value.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isVowel(char c) {
+        return "aeiouy".indexOf(c) >= 0;
+    }
+}
@@ -0,0 +1,508 @@
+package com.ecommerce.inventory;
+
+import com.ecommerce.config.HotSkuProperties;
+import com.ecommerce.enums.HotStockEntryType;
+import com.ecommerce.exception.InsufficientStockException;
+import com.ecommerce.service.InventoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flash-sale inventory for the products listed in {@code app.hot-skus.product-ids}.
+ * <p>
+ * Each node leases blocks of units out of {@code products.stock_quantity} with the regular
+ * conditional decrement and sells them from a {@link StripedCounter}, so the contended product row
+ * is written once per lease rather than once per order. Every lease, sale and return is appended to
+ * {@code hot_stock_ledger} in the transaction that makes it, which keeps the ledger exact: the sum of
+ * a node's entries for a product is what its counters hold, and they are rebuilt from it on start.
+ * Nodes never sell each other's units, so running several of them cannot oversell. Catalog reads
+ * add the ledger to the row for the listed products only, so leased units still show as in stock
+ * while every other product is read without touching the ledger.
+ * <p>
+ * Leases run on a background thread once the counters fall below half a block. Checkouts never wait
+ * for one, since they would hold a pooled connection while the lease needs another; a line the
+ * counters cannot cover goes through the regular decrement instead, which is also how the last
+ * partial block sells.
+ * <p>
+ * Nodes register in {@code hot_sku_nodes} and heartbeat there. Units leased by a node whose
+ * heartbeat stops for {@code node-timeout}, or left on the ledger by a node that is no longer
+ * registered, are returned to stock by whichever node notices first. A node only sells while its
+ * last heartbeat is well inside that timeout, so it stops before anyone can reclaim its units.
+ */
+@Component
+@Slf4j
+public class HotSkuInventory implements SchedulingConfigurer {
+
+    private static final String APPEND_SQL = "INSERT INTO hot_stock_ledger "
+            + "(product_id, node_id, entry_type, delta, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String BALANCE_SQL = "SELECT COALESCE(SUM(delta), 0) FROM hot_stock_ledger "
+            + "WHERE node_id = ? AND product_id = ?";
+    private static final String ENTRIES_SQL = "SELECT id, delta FROM hot_stock_ledger "
+            + "WHERE node_id = ? AND product_id = ? ORDER BY id";
+    private static final String DELETE_SQL = "DELETE FROM hot_stock_ledger WHERE id = ?";
+    private static final String NODE_PRODUCTS_SQL = "SELECT DISTINCT product_id FROM hot_stock_ledger WHERE node_id = ?";
+    private static final String LOCK_NODE_ENTRIES_SQL = "SELECT product_id, delta FROM hot_stock_ledger "
+            + "WHERE node_id = ? FOR UPDATE";
+    private static final String DELETE_NODE_ENTRIES_SQL = "DELETE FROM hot_stock_ledger WHERE node_id = ?";
+    private static final String ORPHANS_SQL = "SELECT DISTINCT node_id FROM hot_stock_ledger "
+            + "WHERE node_id NOT IN (SELECT node_id FROM hot_sku_nodes)";
+
+    private static final String REGISTER_SQL = "INSERT INTO hot_sku_nodes (node_id, instance_id, heartbeat_at) "
+            + "VALUES (?, ?, ?)";
+    private static final String TAKE_OVER_SQL = "UPDATE hot_sku_nodes SET instance_id = ?, heartbeat_at = ? "
+            + "WHERE node_id = ? AND heartbeat_at < ?";
+    private static final String HEARTBEAT_AT_SQL = "SELECT heartbeat_at FROM hot_sku_nodes WHERE node_id = ?";
+    private static final String HEARTBEAT_SQL = "UPDATE hot_sku_nodes SET heartbeat_at = ? "
+            + "WHERE node_id = ? AND instance_id = ?";
+    private static final String DEREGISTER_SQL = "DELETE FROM hot_sku_nodes WHERE node_id = ? AND instance_id = ?";
+    private static final String DEAD_NODES_SQL = "SELECT node_id FROM hot_sku_nodes WHERE heartbeat_at < ?";
+    private static final String REMOVE_DEAD_SQL = "DELETE FROM hot_sku_nodes WHERE node_id = ? AND heartbeat_at < ?";
+    // Heartbeat of the placeholder entry an orphaned ledger gets, so it is reclaimed like a dead node
+    private static final Timestamp LONG_AGO = Timestamp.valueOf(LocalDateTime.of(2000, 1, 1, 0, 0));
+
+    private final HotSkuProperties properties;
+    private final InventoryService inventoryService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, StripedCounter> counters = new ConcurrentHashMap<>();
+    // Products enabled here, restored from the ledger when the node registers again
+    private final Set<Long> enabled = ConcurrentHashMap.newKeySet();
+    // Products with a lease queued or running, so a burst of takes asks for one block, not many
+    private final Set<Long> leasing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService leaser = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hot-sku-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile String instanceId;
+    // System.nanoTime() until which this node may sell, half a node timeout after its last heartbeat
+    private volatile long sellUntil;
+
+    public HotSkuInventory(HotSkuProperties properties, InventoryService inventoryService,
+                           JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.inventoryService = inventoryService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        if (!properties.getProductIds().isEmpty()) {
+            requireNodeId();
+        }
+    }
+
+    /**
+     * Registers the node, returns the units of products no longer listed and starts the listed ones.
+     *
+     * @throws IllegalStateException if another live node is using the same node id
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (properties.getProductIds().isEmpty()) {
+            // Units left from a run that had hot products would no longer show in the catalog
+            if (StringUtils.hasText(properties.getNodeId())) {
+                jdbcTemplate.queryForList(NODE_PRODUCTS_SQL, Long.class, properties.getNodeId())
+                        .forEach(this::returnLedgerBalance);
+            }
+            return;
+        }
+        register(true);
+        for (Long productId : jdbcTemplate.queryForList(NODE_PRODUCTS_SQL, Long.class, properties.getNodeId())) {
+            if (!properties.getProductIds().contains(productId)) {
+                returnLedgerBalance(productId);
+            }
+        }
+        properties.getProductIds().forEach(this::enable);
+        log.info("Hot SKU counters ready on node {}: {}", properties.getNodeId(), counters.keySet());
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void stop() {
+        leaser.shutdown();
+        try {
+            leaser.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        new ArrayList<>(counters.keySet()).forEach(this::disable);
+        String instance = instanceId;
+        if (instance != null) {
+            instanceId = null;
+            // Anything the returns missed is left to the other nodes to reclaim
+            try {
+                jdbcTemplate.update(DEREGISTER_SQL, properties.getNodeId(), instance);
+            } catch (RuntimeException ex) {
+                log.warn("Deregistering hot SKU node {} failed: {}", properties.getNodeId(), ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(this::compact, properties.getCompactInterval());
+        registrar.addFixedDelayTask(this::heartbeat, properties.getHeartbeatInterval());
+    }
+
+    /**
+     * Starts selling the product from counters, recovering whatever this node held before it stopped.
+     */
+    public void enable(Long productId) {
+        register(false);
+        enabled.add(productId);
+        counters.computeIfAbsent(productId, id -> {
+            StripedCounter counter = new StripedCounter(stripes());
+            counter.add(jdbcTemplate.queryForObject(BALANCE_SQL, Long.class, properties.getNodeId(), id));
+            return counter;
+        });
+        refillIfLow(productId);
+    }
+
+    /**
+     * Goes back to the regular path for the product, returning its unsold units to stock. If that
+     * fails they stay on the ledger and are recovered the next time the product is enabled.
+     */
+    public void disable(Long productId) {
+        enabled.remove(productId);
+        StripedCounter counter = counters.remove(productId);
+        if (counter == null) {
+            return;
+        }
+        // The counter rather than the ledger: units taken by checkouts still committing are not ours to return
+        long units = counter.drain();
+        if (units == 0) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                inventoryService.restoreStock(Map.of(productId, (int) units));
+                append(properties.getNodeId(), Map.of(productId, (int) -units), HotStockEntryType.RETURN);
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Returning {} hot units of product {} failed, left on the ledger: {}",
+                    units, productId, ex.getMessage());
+        }
+    }
+
+    public boolean isHot(Long productId) {
+        return counters.containsKey(productId);
+    }
+
+    /**
+     * Units this node can still sell from its counters, on top of the product's own stock.
+     */
+    public long available(Long productId) {
+        StripedCounter counter = counters.get(productId);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Takes hot lines (product id to quantity) out of the counters and records the sales as part of
+     * the caller's transaction. If that transaction does not commit, the units go back into the
+     * counters.
+     *
+     * @return the lines the counters could not cover, for the caller to decrement the regular way
+     */
+    public Map<Long, Integer> take(Map<Long, Integer> quantities) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Hot stock can only be taken inside a transaction");
+        }
+        if (!maySell()) {
+            return new LinkedHashMap<>(quantities);
+        }
+        Map<StripedCounter, Integer> taken = new IdentityHashMap<>();
+        Map<Long, Integer> sales = new TreeMap<>();
+        Map<Long, Integer> missed = new LinkedHashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            StripedCounter counter = counters.get(productId);
+            if (counter != null && counter.tryTake(quantity)) {
+                taken.put(counter, quantity);
+                sales.put(productId, -quantity);
+            } else {
+                missed.put(productId, quantity);
+            }
+            refillIfLow(productId);
+        });
+        if (taken.isEmpty()) {
+            return missed;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    taken.forEach(StripedCounter::add);
+                }
+            }
+        });
+        append(properties.getNodeId(), sales, HotStockEntryType.SALE);
+        return missed;
+    }
+
+    /**
+     * Collapses this node's ledger entries into one balance entry per product. Only entries visible
+     * here are deleted, so a sale committing while this runs is kept and counted next time.
+     */
+    public void compact() {
+        for (Long productId : counters.keySet()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> compact(productId));
+            } catch (RuntimeException ex) {
+                log.warn("Compacting the hot stock ledger of product {} failed: {}", productId, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Keeps this node's registration alive, then reclaims the units of nodes that stopped. A node
+     * that finds its registration reclaimed or taken over drops its counters, whose units are no
+     * longer its own, and registers again on the next heartbeat.
+     */
+    public synchronized void heartbeat() {
+        try {
+            String instance = instanceId;
+            if (instance != null) {
+                if (jdbcTemplate.update(HEARTBEAT_SQL, Timestamp.valueOf(LocalDateTime.now()),
+                        properties.getNodeId(), instance) > 0) {
+                    sellUntil = System.nanoTime() + properties.getNodeTimeout().toNanos() / 2;
+                } else {
+                    log.warn("Hot SKU node {} lost its registration, dropping its counters", properties.getNodeId());
+                    instanceId = null;
+                    counters.clear();
+                }
+            } else if (!enabled.isEmpty()) {
+                register(false);
+                new ArrayList<>(enabled).forEach(this::enable);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Hot SKU heartbeat of node {} failed: {}", properties.getNodeId(), ex.getMessage());
+        }
+        reclaimDeadNodes();
+    }
+
+    /**
+     * Returns to stock the units held by nodes whose heartbeat is older than the node timeout, and
+     * by ledger entries of nodes that are not registered at all, then deletes their ledger entries.
+     */
+    public void reclaimDeadNodes() {
+        try {
+            for (String orphan : jdbcTemplate.queryForList(ORPHANS_SQL, String.class)) {
+                try {
+                    jdbcTemplate.update(REGISTER_SQL, orphan, "reclaim", LONG_AGO);
+                } catch (DuplicateKeyException ex) {
+                    // Registered meanwhile
+                }
+            }
+            Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(properties.getNodeTimeout()));
+            for (String node : jdbcTemplate.queryForList(DEAD_NODES_SQL, String.class, cutoff)) {
+                if (!node.equals(properties.getNodeId())) {
+                    transactionTemplate.executeWithoutResult(status -> reclaim(node, cutoff));
+                }
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Reclaiming hot stock of stopped nodes failed: {}", ex.getMessage());
+        }
+    }
+
+    private void reclaim(String node, Timestamp cutoff) {
+        // Only one node gets to delete the entry, and a node that came back has a fresh heartbeat
+        if (jdbcTemplate.update(REMOVE_DEAD_SQL, node, cutoff) == 0) {
+            return;
+        }
+        Map<Long, Integer> balances = new TreeMap<>();
+        jdbcTemplate.query(LOCK_NODE_ENTRIES_SQL, rs -> {
+            balances.merge(rs.getLong(1), rs.getInt(2), Integer::sum);
+        }, node);
+        balances.values().removeIf(units -> units == 0);
+        inventoryService.restoreStock(balances);
+        publishReturned(balances);
+        jdbcTemplate.update(DELETE_NODE_ENTRIES_SQL, node);
+        log.warn("Hot SKU node {} stopped, returned its units to stock: {}", node, balances);
+    }
+
+    /**
+     * Claims this node's id in the registry. An entry with a stale heartbeat is taken over; one that
+     * is still live belongs to another node with the same id, unless it is this node's previous run
+     * that has not timed out yet, which startup waits for.
+     */
+    private synchronized void register(boolean waitForPrevious) {
+        if (instanceId != null) {
+            return;
+        }
+        requireNodeId();
+        String nodeId = properties.getNodeId();
+        long deadline = System.nanoTime() + properties.getNodeTimeout().plus(properties.getHeartbeatInterval()).toNanos();
+        Timestamp previous = null;
+        while (true) {
+            String instance = UUID.randomUUID().toString();
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                jdbcTemplate.update(REGISTER_SQL, nodeId, instance, Timestamp.valueOf(now));
+                registered(instance);
+                return;
+            } catch (DuplicateKeyException ex) {
+                if (jdbcTemplate.update(TAKE_OVER_SQL, instance, Timestamp.valueOf(now), nodeId,
+                        Timestamp.valueOf(now.minus(properties.getNodeTimeout()))) > 0) {
+                    registered(instance);
+                    return;
+                }
+            }
+            List<Timestamp> heartbeat = jdbcTemplate.queryForList(HEARTBEAT_AT_SQL, Timestamp.class, nodeId);
+            boolean beating = previous != null && !heartbeat.isEmpty() && !heartbeat.get(0).equals(previous);
+            if (!waitForPrevious || beating || System.nanoTime() > deadline) {
+                throw new IllegalStateException("Hot SKU node id '" + nodeId + "' is in use by a live node; "
+                        + "app.hot-skus.node-id must be unique per node");
+            }
+            previous = heartbeat.isEmpty() ? null : heartbeat.get(0);
+            log.info("Hot SKU node id {} is still registered, waiting for the previous run to time out", nodeId);
+            try {
+                Thread.sleep(properties.getHeartbeatInterval().toMillis());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while registering hot SKU node " + nodeId, ex);
+            }
+        }
+    }
+
+    private void registered(String instance) {
+        sellUntil = System.nanoTime() + properties.getNodeTimeout().toNanos() / 2;
+        instanceId = instance;
+    }
+
+    private boolean maySell() {
+        return instanceId != null && System.nanoTime() - sellUntil < 0;
+    }
+
+    private void requireNodeId() {
+        String nodeId = properties.getNodeId();
+        if (!StringUtils.hasText(nodeId) || nodeId.length() > 64) {
+            throw new IllegalStateException("app.hot-skus.node-id must be set to an id of up to 64 characters "
+                    + "that is unique per node and stays the same across restarts");
+        }
+    }
+
+    /**
+     * Returns a product's whole ledger balance; only safe while nothing is selling it on this node.
+     */
+    private void returnLedgerBalance(Long productId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int units = jdbcTemplate.queryForObject(BALANCE_SQL, Integer.class, properties.getNodeId(), productId);
+                if (units != 0) {
+                    inventoryService.restoreStock(Map.of(productId, units));
+                    append(properties.getNodeId(), Map.of(productId, -units), HotStockEntryType.RETURN);
+                    publishReturned(Map.of(productId, units));
+                }
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Returning the hot units of product {} failed, left on the ledger: {}", productId, ex.getMessage());
+        }
+    }
+
+    private void compact(Long productId) {
+        List<long[]> entries = jdbcTemplate.query(ENTRIES_SQL, (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)},
+                properties.getNodeId(), productId);
+        if (entries.size() < 2) {
+            return;
+        }
+        long balance = entries.stream().mapToLong(entry -> entry[1]).sum();
+        jdbcTemplate.batchUpdate(DELETE_SQL, entries, entries.size(), (ps, entry) -> ps.setLong(1, entry[0]));
+        append(properties.getNodeId(), Map.of(productId, (int) balance), HotStockEntryType.BALANCE);
+    }
+
+    /**
+     * Units of products not listed as hot were left out of the catalog's stock figure while they sat
+     * on the ledger, so putting them back in the row changes what the catalog shows.
+     */
+    private void publishReturned(Map<Long, Integer> units) {
+        Map<Long, Integer> unlisted = new TreeMap<>(units);
+        unlisted.keySet().removeAll(properties.getProductIds());
+        inventoryService.publishStockChanges(unlisted);
+    }
+
+    private void refillIfLow(Long productId) {
+        StripedCounter counter = counters.get(productId);
+        if (counter == null || counter.sum() * 2 >= properties.getLeaseSize() || !maySell()
+                || !leasing.add(productId)) {
+            return;
+        }
+        try {
+            leaser.execute(() -> {
+                try {
+                    lease(productId, counter);
+                } finally {
+                    leasing.remove(productId);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Shutting down
+            leasing.remove(productId);
+        }
+    }
+
+    /**
+     * Moves one block of units from the product row into the counter. Less than a block is left
+     * in the row, where the regular path sells it. Leased units stay in the catalog's stock figure,
+     * so no change is published.
+     */
+    private void lease(Long productId, StripedCounter counter) {
+        int units = properties.getLeaseSize();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                inventoryService.decrementStock(Map.of(productId, units));
+                append(properties.getNodeId(), Map.of(productId, units), HotStockEntryType.LEASE);
+            });
+        } catch (InsufficientStockException ex) {
+            return;
+        } catch (RuntimeException ex) {
+            log.warn("Leasing {} hot units of product {} failed: {}", units, productId, ex.getMessage());
+            return;
+        }
+        if (counters.get(productId) == counter) {
+            counter.add(units);
+        }
+        // Disabled while leasing: the units are on the ledger and come back with the next enable
+    }
+
+    private void append(String nodeId, Map<Long, Integer> deltas, HotStockEntryType type) {
+        List<Map.Entry<Long, Integer>> entries = new ArrayList<>(deltas.entrySet());
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(APPEND_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setLong(1, entry.getKey());
+            ps.setString(2, nodeId);
+            ps.setString(3, type.name());
+            ps.setInt(4, entry.getValue());
+            ps.setTimestamp(5, createdAt);
+        });
+    }
+
+    private int stripes() {
+        return properties.getStripes() > 0 ? properties.getStripes() : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,104 @@
+package com.ecommerce.inventory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A non-negative unit count split across stripes, each taken from with compare-and-set, so
+ * concurrent checkouts on one product mostly touch different cache lines and never block.
+ * <p>
+ * A take that no single stripe can cover gathers from several and gives the units back if the
+ * total still falls short; under contention that can fail while units are briefly in flight
+ * elsewhere, which the caller treats like running dry.
+ */
+public final class StripedCounter {
+
+    // Cells a cache line apart, so neighbouring stripes are not invalidated by each other's writes
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells;
+    private final int stripes;
+
+    public StripedCounter(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("stripes must be positive");
+        }
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(stripes * PADDING);
+    }
+
+    public boolean tryTake(int units) {
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            int cell = cell(start + i);
+            long current;
+            while ((current = cells.get(cell)) >= units) {
+                if (cells.compareAndSet(cell, current, current - units)) {
+                    return true;
+                }
+            }
+        }
+
+        long taken = 0;
+        for (int i = 0; i < stripes && taken < units; i++) {
+            int cell = cell(start + i);
+            long current;
+            while ((current = cells.get(cell)) > 0) {
+                long part = Math.min(current, units - taken);
+                if (cells.compareAndSet(cell, current, current - part)) {
+                    taken += part;
+                    break;
+                }
+            }
+        }
+        if (taken < units) {
+            add(taken);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Spreads the units evenly over the stripes.
+     */
+    public void add(long units) {
+        if (units <= 0) {
+            return;
+        }
+        long share = units / stripes;
+        long remainder = units % stripes;
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            long part = share + (i < remainder ? 1 : 0);
+            if (part > 0) {
+                cells.addAndGet(cell(start + i), part);
+            }
+        }
+    }
+
+    /**
+     * Current total; only a snapshot while takes are running.
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    /**
+     * Empties every stripe and returns what was in them.
+     */
+    public long drain() {
+        long drained = 0;
+        for (int i = 0; i < stripes; i++) {
+            drained += cells.getAndSet(i * PADDING, 0);
+        }
+        return drained;
+    }
+
+    private int cell(int stripe) {
+        return (stripe % stripes) * PADDING;
+    }
+}
@@ -0,0 +1,59 @@
+package com.ecommerce.io;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * RFC 4180 writer counterpart of {@link CsvReader}: fields are quoted only when they contain a
+ * separator, quote or line break.
+ */
+public final class CsvWriter {
+
+    private final Writer writer;
+    private boolean firstField = true;
+
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    public CsvWriter field(Object value) throws IOException {
+        if (!firstField) {
+            writer.write(',');
+        }
+        firstField = false;
+        if (value == null) {
+            return this;
+        }
+        String text = value.toString();
+        if (needsQuotes(text)) {
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(text);
+        }
+        return this;
+    }
+
+    public void endRecord() throws IOException {
+        writer.write("\r\n");
+        firstField = true;
+    }
+
+    public void record(Object... values) throws IOException {
+        for (Object value : values) {
+            field(value);
+        }
+        endRecord();
+    }
+
+    private static boolean needsQuotes(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
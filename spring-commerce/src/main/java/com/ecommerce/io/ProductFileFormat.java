@@ -0,0 +1,48 @@
+package com.ecommerce.io;
+
+import com.ecommerce.exception.BadRequestException;
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+/**
+ * File formats accepted by the product import and produced by the export.
+ */
+public enum ProductFileFormat {
+    CSV(MediaType.valueOf("text/csv"), "csv"),
+    NDJSON(MediaType.valueOf("application/x-ndjson"), "ndjson");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ProductFileFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * The format for a request body's content type; anything that is not CSV is read as NDJSON.
+     */
+    public static ProductFileFormat of(MediaType contentType) {
+        return contentType.isCompatibleWith(CSV.mediaType) ? CSV : NDJSON;
+    }
+
+    /**
+     * The format for a {@code format} request parameter, case-insensitively.
+     */
+    public static ProductFileFormat named(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Unsupported format: " + name);
+        }
+    }
+}
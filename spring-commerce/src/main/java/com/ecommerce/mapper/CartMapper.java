@@ -0,0 +1,42 @@
+package com.ecommerce.mapper;
+
+import com.ecommerce.dto.response.CartResponse;
+import com.ecommerce.entity.Cart;
+import com.ecommerce.entity.CartItem;
+import org.mapstruct.AfterMapping;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+
+@Mapper
+public interface CartMapper {
+
+    // Totals are derived from the items rather than read from the stored cart total
+    @Mapping(target = "totalPrice", ignore = true)
+    @Mapping(target = "totalItems", ignore = true)
+    CartResponse toResponse(Cart cart);
+
+    @Mapping(target = "productId", source = "product.id")
+    @Mapping(target = "productName", source = "product.name")
+    @Mapping(target = "imageUrl", source = "product.imageUrl")
+    @Mapping(target = "subtotal", expression = "java(item.getPrice().multiply(java.math.BigDecimal.valueOf(item.getQuantity())))")
+    CartResponse.CartItemDto toItemDto(CartItem item);
+
+    @AfterMapping
+    default void computeTotals(@MappingTarget CartResponse response) {
+        if (response.getItems() == null) {
+            response.setItems(new ArrayList<>());
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        int count = 0;
+        for (CartResponse.CartItemDto item : response.getItems()) {
+            total = total.add(item.getSubtotal());
+            count += item.getQuantity();
+        }
+        response.setTotalPrice(total);
+        response.setTotalItems(count);
+    }
+}
@@ -0,0 +1,26 @@
+package com.ecommerce.mapper;
+
+import com.ecommerce.dto.request.CategoryRequest;
+import com.ecommerce.dto.response.CategoryResponse;
+import com.ecommerce.dto.response.CategoryTreeResponse;
+import com.ecommerce.entity.Category;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper
+public interface CategoryMapper {
+
+    @Mapping(target = "parentId", source = "parentCategory.id")
+    CategoryResponse toResponse(Category category);
+
+    // Children are linked by CategoryService from the flat list, not through the lazy collection
+    @Mapping(target = "children", ignore = true)
+    CategoryTreeResponse toTreeResponse(Category category);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "parentCategory", ignore = true)
+    @Mapping(target = "subCategories", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    Category toEntity(CategoryRequest request);
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.mapper;
+
+import com.ecommerce.dto.response.OrderResponse;
+import com.ecommerce.entity.Address;
+import com.ecommerce.entity.Order;
+import com.ecommerce.entity.OrderItem;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper
+public interface OrderMapper {
+
+    // Clients always get an address object, empty when the order has none
+    @Mapping(target = "shippingAddress", defaultExpression = "java(new OrderResponse.AddressDto())")
+    OrderResponse toResponse(Order order);
+
+    OrderResponse.AddressDto toAddressDto(Address address);
+
+    @Mapping(target = "productId", source = "product.id")
+    @Mapping(target = "productName", source = "product.name")
+    @Mapping(target = "imageUrl", source = "product.imageUrl")
+    OrderResponse.OrderItemDto toItemDto(OrderItem item);
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.mapper;
+
+import com.ecommerce.dto.response.UserResponse;
+import com.ecommerce.entity.User;
+import org.mapstruct.Mapper;
+
+@Mapper
+public interface UserMapper {
+
+    UserResponse toResponse(User user);
+}
@@ -0,0 +1,61 @@
+package com.ecommerce.outbox;
+
+import com.ecommerce.entity.Order;
+import com.ecommerce.enums.OutboxEventType;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.service.EmailService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Customer emails for order events, sent after the order's transaction has committed.
+ * <p>
+ * The event is marked handled in the transaction that sends its email. A redelivery after a send
+ * that went through, e.g. because recording the delivery failed, finds the mark and sends nothing;
+ * one that races the first send waits on the row and then finds it. A failed send rolls the mark
+ * back, so the retry sends.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class OrderNotificationHandler implements OutboxHandler {
+
+    private static final String MARK_HANDLED_SQL = "UPDATE outbox_events SET handled_at = ? "
+            + "WHERE event_id = ? AND handled_at IS NULL";
+
+    private final OrderRepository orderRepository;
+    private final EmailService emailService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Set<OutboxEventType> types() {
+        return EnumSet.of(OutboxEventType.ORDER_PLACED, OutboxEventType.ORDER_SHIPPED,
+                OutboxEventType.PAYMENT_SUCCEEDED, OutboxEventType.PAYMENT_REFUNDED);
+    }
+
+    @Override
+    @Transactional
+    public void handle(OutboxMessage message) {
+        if (jdbcTemplate.update(MARK_HANDLED_SQL, Timestamp.valueOf(LocalDateTime.now()), message.eventId()) == 0) {
+            log.info("Outbox event {} ({} {}) was already handled; not sending its email again", message.eventId(),
+                    message.type(), message.aggregateId());
+            return;
+        }
+        Order order = orderRepository.findById(message.aggregateId())
+                .orElseThrow(() -> new IllegalStateException("Order " + message.aggregateId() + " not found"));
+        switch (message.type()) {
+            case ORDER_PLACED -> emailService.sendOrderConfirmation(order.getUser(), order);
+            case ORDER_SHIPPED -> emailService.sendOrderShipped(order.getUser(), order);
+            case PAYMENT_SUCCEEDED -> emailService.sendPaymentReceived(order.getUser(), order);
+            case PAYMENT_REFUNDED -> emailService.sendRefundIssued(order.getUser(), order);
+        }
+    }
+}
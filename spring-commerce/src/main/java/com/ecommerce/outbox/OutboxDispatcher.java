@@ -0,0 +1,221 @@
+package com.ecommerce.outbox;
+
+import com.ecommerce.config.OutboxProperties;
+import com.ecommerce.enums.OutboxEventType;
+import com.ecommerce.enums.OutboxStatus;
+import com.ecommerce.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains the outbox: each poll claims a batch of due events and hands them to a bounded worker
+ * pool, never claiming more than the pool has room for.
+ * <p>
+ * Claiming pushes an event's {@code next_attempt_at} past the claim timeout with a conditional
+ * update, so nodes polling the same table never run an event twice at once, and an event whose
+ * worker died becomes due again on its own. Each claim carries a random token that the outcome is
+ * recorded against, so a worker that outlived its claim cannot overwrite the result of the one
+ * that claimed the event after it. A failure is retried with exponential backoff until
+ * {@code max-attempts}, after which the event is parked as {@code DEAD}.
+ */
+@Component
+@Slf4j
+public class OutboxDispatcher implements SchedulingConfigurer {
+
+    private static final String DUE_SQL = "SELECT id, event_id, event_type, aggregate_id, attempts "
+            + "FROM outbox_events WHERE status = 'PENDING' AND next_attempt_at <= ? "
+            + "ORDER BY next_attempt_at, id LIMIT ?";
+    private static final String CLAIM_SQL = "UPDATE outbox_events SET next_attempt_at = ?, claim_token = ? "
+            + "WHERE id = ? AND status = 'PENDING' AND next_attempt_at <= ?";
+    private static final String DELIVERED_SQL = "UPDATE outbox_events SET status = 'DELIVERED', "
+            + "attempts = attempts + 1, delivered_at = ?, last_error = NULL "
+            + "WHERE id = ? AND status = 'PENDING' AND claim_token = ?";
+    private static final String FAILED_SQL = "UPDATE outbox_events SET status = ?, attempts = attempts + 1, "
+            + "next_attempt_at = ?, last_error = ? WHERE id = ? AND status = 'PENDING' AND claim_token = ?";
+
+    private final OutboxProperties properties;
+    private final OutboxEventRepository outboxEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<OutboxEventType, OutboxHandler> handlers = new EnumMap<>(OutboxEventType.class);
+    private final ThreadPoolExecutor workers;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public OutboxDispatcher(OutboxProperties properties, OutboxEventRepository outboxEventRepository,
+                            JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            List<OutboxHandler> handlers) {
+        this.properties = properties;
+        this.outboxEventRepository = outboxEventRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (OutboxHandler handler : handlers) {
+            handler.types().forEach(type -> {
+                if (this.handlers.putIfAbsent(type, handler) != null) {
+                    throw new IllegalStateException("Two outbox handlers for " + type);
+                }
+            });
+        }
+        int size = Math.max(1, properties.getWorkers());
+        this.workers = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getBatchSize())), runnable -> {
+                    Thread thread = new Thread(runnable, "outbox-worker");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(this::poll, properties.getPollInterval());
+        registrar.addFixedDelayTask(this::purge, Duration.ofHours(1));
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void stop() {
+        // Claimed events that do not finish in time are picked up again after the claim timeout
+        workers.shutdown();
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Claims due events up to the free capacity and submits them.
+     *
+     * @return the number of events claimed
+     */
+    public int poll() {
+        if (workers.isShutdown()) {
+            return 0;
+        }
+        int capacity = properties.getBatchSize() - inFlight.get();
+        if (capacity <= 0) {
+            return 0;
+        }
+        try {
+            List<Claimed> claimed = claim(capacity);
+            for (Claimed event : claimed) {
+                inFlight.incrementAndGet();
+                workers.execute(() -> {
+                    try {
+                        deliver(event);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            }
+            return claimed.size();
+        } catch (RuntimeException ex) {
+            log.warn("Polling the outbox failed: {}", ex.getMessage());
+            return 0;
+        }
+    }
+
+    public void purge() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.deleteDeliveredBefore(
+                    LocalDateTime.now().minus(properties.getRetention())));
+        } catch (RuntimeException ex) {
+            log.warn("Purging delivered outbox events failed: {}", ex.getMessage());
+        }
+    }
+
+    private List<Claimed> claim(int limit) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp claimedUntil = Timestamp.valueOf(LocalDateTime.now().plus(properties.getClaimTimeout()));
+        List<Claimed> due = jdbcTemplate.query(DUE_SQL, (rs, rowNum) -> new Claimed(rs.getLong(1), rs.getString(2),
+                OutboxEventType.valueOf(rs.getString(3)), rs.getLong(4), rs.getInt(5), UUID.randomUUID().toString()),
+                now, limit);
+        if (due.isEmpty()) {
+            return due;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(CLAIM_SQL, due, due.size(), (ps, event) -> {
+            ps.setTimestamp(1, claimedUntil);
+            ps.setString(2, event.claimToken());
+            ps.setLong(3, event.id());
+            ps.setTimestamp(4, now);
+        })[0];
+        List<Claimed> claimed = new ArrayList<>(due.size());
+        for (int i = 0; i < due.size(); i++) {
+            // Zero: another node claimed it between the read and the update
+            if (counts[i] > 0) {
+                claimed.add(due.get(i));
+            }
+        }
+        return claimed;
+    }
+
+    private void deliver(Claimed event) {
+        int attempt = event.attempts() + 1;
+        try {
+            OutboxHandler handler = handlers.get(event.type());
+            if (handler == null) {
+                throw new IllegalStateException("No outbox handler for " + event.type());
+            }
+            handler.handle(new OutboxMessage(event.eventId(), event.type(), event.aggregateId(), attempt));
+            if (jdbcTemplate.update(DELIVERED_SQL, Timestamp.valueOf(LocalDateTime.now()), event.id(),
+                    event.claimToken()) == 0) {
+                logClaimLost(event);
+            }
+        } catch (RuntimeException ex) {
+            boolean dead = attempt >= properties.getMaxAttempts();
+            String error = ex.getClass().getSimpleName() + ": " + ex.getMessage();
+            if (jdbcTemplate.update(FAILED_SQL, dead ? OutboxStatus.DEAD.name() : OutboxStatus.PENDING.name(),
+                    Timestamp.valueOf(LocalDateTime.now().plus(backoff(attempt))),
+                    error.length() > 1000 ? error.substring(0, 1000) : error, event.id(), event.claimToken()) == 0) {
+                logClaimLost(event);
+            } else if (dead) {
+                log.error("Outbox event {} ({} {}) is dead after {} attempts: {}", event.eventId(), event.type(),
+                        event.aggregateId(), attempt, error);
+            } else {
+                log.warn("Outbox event {} ({} {}) failed, attempt {}: {}", event.eventId(), event.type(),
+                        event.aggregateId(), attempt, error);
+            }
+        }
+    }
+
+    private static void logClaimLost(Claimed event) {
+        log.warn("Outbox event {} ({} {}) outlived its claim; its outcome is left to the current claim holder",
+                event.eventId(), event.type(), event.aggregateId());
+    }
+
+    /**
+     * Doubles from the initial backoff up to the cap, with up to a fifth of jitter so events that
+     * failed together do not all come back at the same moment.
+     */
+    private Duration backoff(int attempt) {
+        long initial = properties.getInitialBackoff().toMillis();
+        long max = properties.getMaxBackoff().toMillis();
+        // Capping the shift keeps the doubling from overflowing after many attempts
+        long delay = Math.min(max, initial << Math.min(attempt - 1, 30));
+        long jitter = delay / 5 > 0 ? ThreadLocalRandom.current().nextLong(delay / 5) : 0;
+        return Duration.ofMillis(delay - jitter);
+    }
+
+    private record Claimed(long id, String eventId, OutboxEventType type, long aggregateId, int attempts,
+                           String claimToken) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.outbox;
+
+import com.ecommerce.enums.OutboxEventType;
+
+import java.util.Set;
+
+/**
+ * Delivers outbox events of the given types. Throwing schedules a retry.
+ */
+public interface OutboxHandler {
+
+    Set<OutboxEventType> types();
+
+    void handle(OutboxMessage message);
+}
@@ -0,0 +1,10 @@
+package com.ecommerce.outbox;
+
+import com.ecommerce.enums.OutboxEventType;
+
+/**
+ * What a handler receives. The same event may arrive more than once (delivery is at least once);
+ * {@code eventId} is stable across attempts, so a downstream system can use it to deduplicate.
+ */
+public record OutboxMessage(String eventId, OutboxEventType type, Long aggregateId, int attempt) {
+}
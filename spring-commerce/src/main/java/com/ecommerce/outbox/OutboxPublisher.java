@@ -0,0 +1,50 @@
+package com.ecommerce.outbox;
+
+import com.ecommerce.enums.OutboxEventType;
+import com.ecommerce.enums.OutboxStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Writes domain events to the outbox inside the caller's transaction, so an event exists exactly
+ * when the change it describes was committed.
+ * <p>
+ * The event id is derived from the type and aggregate, so the same occurrence recorded twice, e.g.
+ * a payment confirmed by the client and again by the webhook, is one event.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxPublisher {
+
+    private static final String INSERT_SQL = "INSERT INTO outbox_events "
+            + "(event_id, event_type, aggregate_id, status, attempts, next_attempt_at, created_at) "
+            + "VALUES (?, ?, ?, ?, 0, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String publish(OutboxEventType type, Long aggregateId) {
+        String eventId = eventId(type, aggregateId);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            jdbcTemplate.update(INSERT_SQL, eventId, type.name(), aggregateId, OutboxStatus.PENDING.name(), now, now);
+        } catch (DuplicateKeyException ex) {
+            // Already recorded. Caught here, before it can leave this method and mark the caller's transaction
+            // rollback-only; only the failed statement is undone
+        }
+        return eventId;
+    }
+
+    public static String eventId(OutboxEventType type, Long aggregateId) {
+        return UUID.nameUUIDFromBytes((type.name() + ":" + aggregateId).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
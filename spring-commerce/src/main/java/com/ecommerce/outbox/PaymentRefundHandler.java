@@ -0,0 +1,36 @@
+package com.ecommerce.outbox;
+
+import com.ecommerce.enums.OutboxEventType;
+import com.ecommerce.service.PaymentService;
+import com.stripe.exception.StripeException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Pays back payments that arrived for orders that were cancelled or whose holds expired. The event
+ * id is the Stripe idempotency key, so redelivering the event never refunds twice.
+ */
+@Component
+@RequiredArgsConstructor
+public class PaymentRefundHandler implements OutboxHandler {
+
+    private final PaymentService paymentService;
+
+    @Override
+    public Set<OutboxEventType> types() {
+        return EnumSet.of(OutboxEventType.PAYMENT_REFUND_REQUIRED);
+    }
+
+    @Override
+    public void handle(OutboxMessage message) {
+        try {
+            paymentService.refund(message.aggregateId(), message.eventId());
+        } catch (StripeException ex) {
+            throw new IllegalStateException("Refund for order " + message.aggregateId() + " failed: "
+                    + ex.getMessage(), ex);
+        }
+    }
+}
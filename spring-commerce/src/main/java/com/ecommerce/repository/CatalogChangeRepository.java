@@ -0,0 +1,29 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.CatalogChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+
+    List<CatalogChange> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<CatalogChange> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM CatalogChange c")
+    Long findMaxId();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CatalogChange c WHERE c.createdAt < :cutoff")
+    int deleteCreatedBefore(Instant cutoff);
+}
@@ -1,10 +1,17 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.entity.Category;
+import com.ecommerce.index.CategoryLink;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     boolean existsByName(String name);
+
+    @Query("SELECT new com.ecommerce.index.CategoryLink(c.id, p.id) FROM Category c LEFT JOIN c.parentCategory p")
+    List<CategoryLink> findAllLinks();
 }
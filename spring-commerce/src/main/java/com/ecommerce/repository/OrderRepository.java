@@ -2,6 +2,7 @@ package com.ecommerce.repository;
 
 import com.ecommerce.entity.Order;
 import com.ecommerce.entity.User;
+import com.ecommerce.enums.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -13,4 +14,19 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     @org.springframework.data.jpa.repository.Query("SELECT SUM(o.totalAmount) FROM Order o")
     java.math.BigDecimal sumTotalAmount();
+
+    @org.springframework.data.jpa.repository.Query("SELECT oi.product.id AS productId, SUM(oi.quantity) AS unitsSold "
+            + "FROM OrderItem oi GROUP BY oi.product.id")
+    List<ProductSales> sumUnitsSoldByProduct();
+
+    @org.springframework.data.jpa.repository.Modifying
+    @org.springframework.data.jpa.repository.Query("UPDATE Order o SET o.status = :to, o.updatedAt = :now "
+            + "WHERE o.id IN :ids AND o.status = :from")
+    int transitionAll(java.util.Collection<Long> ids, OrderStatus from, OrderStatus to, java.time.LocalDateTime now);
+
+    interface ProductSales {
+        Long getProductId();
+
+        Long getUnitsSold();
+    }
 }
@@ -0,0 +1,29 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.OutboxEvent;
+import com.ecommerce.enums.OutboxEventType;
+import com.ecommerce.enums.OutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findByAggregateIdAndEventType(Long aggregateId, OutboxEventType eventType);
+
+    long countByStatus(OutboxStatus status);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = com.ecommerce.enums.OutboxStatus.PENDING, e.attempts = 0, "
+            + "e.nextAttemptAt = :now WHERE e.status = com.ecommerce.enums.OutboxStatus.DEAD")
+    int requeueDead(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = com.ecommerce.enums.OutboxStatus.DELIVERED "
+            + "AND e.deliveredAt < :before")
+    int deleteDeliveredBefore(@Param("before") LocalDateTime before);
+}
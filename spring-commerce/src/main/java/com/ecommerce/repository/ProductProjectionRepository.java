@@ -0,0 +1,67 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Product;
+import com.ecommerce.event.ProductSnapshot;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Catalog reads that select {@link ProductResponse} columns straight from a product/category join,
+ * without hydrating entities.
+ * <p>
+ * Their stock is the catalog figure: the product row plus, for products listed in
+ * {@code app.hot-skus.product-ids}, the units leased to hot SKU counters. Other products are read
+ * without touching the hot stock ledger.
+ */
+public interface ProductProjectionRepository {
+
+    /**
+     * The count query only runs when the page is full or not the first one.
+     */
+    Page<ProductResponse> findResponses(Specification<Product> spec, Pageable pageable);
+
+    /**
+     * Same as {@link #findResponses(Specification, Pageable)}, with the total taken from {@code total}
+     * (e.g. an in-memory index) instead of a count query.
+     */
+    Page<ProductResponse> findResponses(Specification<Product> spec, Pageable pageable, LongSupplier total);
+
+    /**
+     * A page without a total: reads one row past the page to tell whether another one follows.
+     */
+    Slice<ProductResponse> findResponseSlice(Specification<Product> spec, Pageable pageable);
+
+    /**
+     * Up to {@code limit} rows in {@code sort} order, each paired with the value of {@code sortKey}.
+     */
+    List<KeyedResponse> findKeyedResponses(Specification<Product> spec, String sortKey, Sort sort, int limit);
+
+    Optional<ProductResponse> findResponseById(Long id);
+
+    List<ProductResponse> findResponsesByIdIn(Collection<Long> ids);
+
+    List<ProductSnapshot> findAllSnapshots();
+
+    Optional<ProductSnapshot> findSnapshotById(Long id);
+
+    List<ProductSnapshot> findSnapshotsByIdIn(Collection<Long> ids);
+
+    /**
+     * Units on the hot stock ledger per product, for the ids that are configured as hot; no query
+     * runs when none of them is.
+     */
+    Map<Long, Integer> findHotLeasedStock(Collection<Long> ids);
+
+    record KeyedResponse(ProductResponse response, Object sortValue) {
+    }
+}
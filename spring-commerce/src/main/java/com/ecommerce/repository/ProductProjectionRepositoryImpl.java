@@ -0,0 +1,219 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.config.HotSkuProperties;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Product;
+import com.ecommerce.event.ProductSnapshot;
+import com.ecommerce.repository.spec.ProductSpecification;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+@RequiredArgsConstructor
+public class ProductProjectionRepositoryImpl implements ProductProjectionRepository {
+
+    // Position of the extra sort key column, after the ProductResponse columns
+    private static final int SORT_VALUE = 8;
+    private static final String SNAPSHOT_QUERY = "SELECT new com.ecommerce.event.ProductSnapshot(p.id, p.name, "
+            + "p.description, p.price, p.stockQuantity, c.id, c.name, p.updatedAt) FROM Product p JOIN p.category c";
+    private static final String LEASED_QUERY = "SELECT h.productId, SUM(h.delta) FROM HotStockEntry h "
+            + "WHERE h.productId IN :ids GROUP BY h.productId";
+
+    private final EntityManager entityManager;
+    private final HotSkuProperties hotSkuProperties;
+
+    @Override
+    public Page<ProductResponse> findResponses(Specification<Product> spec, Pageable pageable) {
+        return findResponses(spec, pageable, () -> count(spec));
+    }
+
+    @Override
+    public Page<ProductResponse> findResponses(Specification<Product> spec, Pageable pageable, LongSupplier total) {
+        List<ProductResponse> content = findContent(spec, pageable, pageable.isPaged() ? pageable.getPageSize() : -1);
+        return PageableExecutionUtils.getPage(content, pageable, total);
+    }
+
+    @Override
+    public Slice<ProductResponse> findResponseSlice(Specification<Product> spec, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(findContent(spec, pageable, -1), pageable, false);
+        }
+        List<ProductResponse> content = findContent(spec, pageable, pageable.getPageSize() + 1);
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    @Override
+    public List<KeyedResponse> findKeyedResponses(Specification<Product> spec, String sortKey, Sort sort,
+                                                  int limit) {
+        List<KeyedResponse> rows = entityManager.createQuery(responseQuery(spec, sortKey, sort))
+                .setMaxResults(limit)
+                .getResultList().stream()
+                .map(tuple -> new KeyedResponse(toResponse(tuple), tuple.get(SORT_VALUE)))
+                .toList();
+        addLeasedStock(rows.stream().map(KeyedResponse::response).toList());
+        return rows;
+    }
+
+    @Override
+    public Optional<ProductResponse> findResponseById(Long id) {
+        return findResponsesByIdIn(List.of(id)).stream().findFirst();
+    }
+
+    @Override
+    public List<ProductResponse> findResponsesByIdIn(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<ProductResponse> responses = entityManager.createQuery(responseQuery(ProductSpecification.idIn(ids),
+                        null, Sort.unsorted()))
+                .getResultList().stream()
+                .map(this::toResponse)
+                .toList();
+        return addLeasedStock(responses);
+    }
+
+    @Override
+    public List<ProductSnapshot> findAllSnapshots() {
+        return withLeasedStock(entityManager.createQuery(SNAPSHOT_QUERY, ProductSnapshot.class).getResultList());
+    }
+
+    @Override
+    public Optional<ProductSnapshot> findSnapshotById(Long id) {
+        return findSnapshotsByIdIn(List.of(id)).stream().findFirst();
+    }
+
+    @Override
+    public List<ProductSnapshot> findSnapshotsByIdIn(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return withLeasedStock(entityManager.createQuery(SNAPSHOT_QUERY + " WHERE p.id IN :ids", ProductSnapshot.class)
+                .setParameter("ids", ids)
+                .getResultList());
+    }
+
+    @Override
+    public Map<Long, Integer> findHotLeasedStock(Collection<Long> ids) {
+        List<Long> hot = ids.stream().filter(hotSkuProperties.getProductIds()::contains).distinct().toList();
+        if (hot.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Integer> leased = new HashMap<>();
+        entityManager.createQuery(LEASED_QUERY, Tuple.class)
+                .setParameter("ids", hot)
+                .getResultList()
+                .forEach(tuple -> leased.put(tuple.get(0, Long.class), tuple.get(1, Number.class).intValue()));
+        return leased;
+    }
+
+    private List<ProductResponse> findContent(Specification<Product> spec, Pageable pageable, int maxResults) {
+        if (pageable.isPaged() && pageable.getOffset() > Integer.MAX_VALUE) {
+            // JPA offsets are ints, and no page that far in can have rows
+            return List.of();
+        }
+        TypedQuery<Tuple> query = entityManager.createQuery(responseQuery(spec, null, pageable.getSort()));
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+        }
+        if (maxResults >= 0) {
+            query.setMaxResults(maxResults);
+        }
+        return addLeasedStock(query.getResultList().stream()
+                .map(this::toResponse)
+                .toList());
+    }
+
+    private CriteriaQuery<Tuple> responseQuery(Specification<Product> spec, String sortKey, Sort sort) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+        Join<Product, Category> category = root.join("category");
+
+        // Column order must match toResponse
+        List<Selection<?>> selections = new ArrayList<>(List.of(
+                root.get("id"), root.get("name"), root.get("description"), root.get("price"),
+                root.get("stockQuantity"), root.get("imageUrl"), category.get("name"), category.get("id")));
+        if (sortKey != null) {
+            selections.add(root.get(sortKey));
+        }
+        query.multiselect(selections);
+
+        var predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        }
+        return query;
+    }
+
+    private long count(Specification<Product> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+        query.select(criteriaBuilder.count(root));
+        var predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private List<ProductResponse> addLeasedStock(List<ProductResponse> responses) {
+        Map<Long, Integer> leased = findHotLeasedStock(responses.stream().map(ProductResponse::getId).toList());
+        responses.forEach(response -> response.setStockQuantity(
+                response.getStockQuantity() + leased.getOrDefault(response.getId(), 0)));
+        return responses;
+    }
+
+    private List<ProductSnapshot> withLeasedStock(List<ProductSnapshot> snapshots) {
+        Map<Long, Integer> leased = findHotLeasedStock(snapshots.stream().map(ProductSnapshot::id).toList());
+        if (leased.isEmpty()) {
+            return snapshots;
+        }
+        return snapshots.stream()
+                .map(snapshot -> leased.containsKey(snapshot.id())
+                        ? snapshot.withStock(snapshot.stockQuantity() + leased.get(snapshot.id()), snapshot.updatedAt())
+                        : snapshot)
+                .toList();
+    }
+
+    private ProductResponse toResponse(Tuple tuple) {
+        ProductResponse response = new ProductResponse();
+        response.setId(tuple.get(0, Long.class));
+        response.setName(tuple.get(1, String.class));
+        response.setDescription(tuple.get(2, String.class));
+        response.setPrice(tuple.get(3, BigDecimal.class));
+        response.setStockQuantity(tuple.get(4, Integer.class));
+        response.setImageUrl(tuple.get(5, String.class));
+        response.setCategoryName(tuple.get(6, String.class));
+        response.setCategoryId(tuple.get(7, Long.class));
+        return response;
+    }
+}
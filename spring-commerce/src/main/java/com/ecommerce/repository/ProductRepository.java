@@ -4,13 +4,32 @@ import com.ecommerce.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
+import java.util.List;
+
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductProjectionRepository {
+
     Page<Product> findByCategoryId(Long categoryId, Pageable pageable);
 
     Page<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
+
+    // Every unit on the hot stock ledger, whether or not the product is still configured as hot
+    @Query("SELECT COALESCE(SUM(h.delta), 0) FROM HotStockEntry h WHERE h.productId = :id")
+    long findLeasedStock(Long id);
+
+    @Query("SELECT oi.product.id FROM OrderItem oi GROUP BY oi.product.id ORDER BY SUM(oi.quantity) DESC")
+    List<Long> findBestSellingIds(Pageable pageable);
+
+    // The name match ProductSpecification.filterBy applies, for callers that only need the ids
+    @Query("SELECT p.id FROM Product p WHERE LOWER(p.name) LIKE CONCAT('%', LOWER(:search), '%')")
+    List<Long> findIdsByNameMatching(String search);
+
+    @Query("SELECT p.id FROM Product p ORDER BY p.id DESC")
+    List<Long> findNewestIds(Pageable pageable);
 }
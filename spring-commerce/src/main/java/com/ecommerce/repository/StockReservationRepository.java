@@ -0,0 +1,25 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.StockReservation;
+import com.ecommerce.enums.ReservationStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findByOrderIdAndStatus(Long orderId, ReservationStatus status);
+
+    List<StockReservation> findByStatusAndExpiresAtBeforeOrderByIdAsc(ReservationStatus status, LocalDateTime time,
+                                                                      Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :to WHERE r.orderId = :orderId AND r.status = :from")
+    int transition(Long orderId, ReservationStatus from, ReservationStatus to);
+}
@@ -0,0 +1,74 @@
+package com.ecommerce.repository.spec;
+
+import com.ecommerce.exception.BadRequestException;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Position in a keyset-paginated product listing: the sort key and id of the last row returned.
+ * Clients only ever see the opaque {@link #encode()} form.
+ */
+public record ProductCursor(String sortBy, Sort.Direction direction, String lastValue, Long lastId) {
+
+    public static final Set<String> SORT_KEYS = Set.of("id", "price", "name", "createdAt");
+
+    public static ProductCursor start(String sortBy, String direction) {
+        if (!SORT_KEYS.contains(sortBy)) {
+            throw new BadRequestException("Unsupported sort key: " + sortBy);
+        }
+        return new ProductCursor(sortBy, Sort.Direction.fromOptionalString(direction).orElse(Sort.Direction.ASC),
+                null, null);
+    }
+
+    public static ProductCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // The sort value goes last because product names may contain the separator
+            String[] parts = decoded.split("\\|", 4);
+            ProductCursor cursor = new ProductCursor(parts[0], Sort.Direction.valueOf(parts[1]), parts[3],
+                    Long.parseLong(parts[2]));
+            if (!SORT_KEYS.contains(cursor.sortBy())) {
+                throw new IllegalArgumentException(cursor.sortBy());
+            }
+            // Parsed here so a value that does not match its sort key is rejected before it reaches a query
+            cursor.typedLastValue();
+            return cursor;
+        } catch (RuntimeException ex) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = sortBy + "|" + direction.name() + "|" + lastId + "|" + lastValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isStart() {
+        return lastId == null;
+    }
+
+    public ProductCursor after(Object sortValue, Long id) {
+        return new ProductCursor(sortBy, direction, String.valueOf(sortValue), id);
+    }
+
+    public Sort sort() {
+        if ("id".equals(sortBy)) {
+            return Sort.by(direction, "id");
+        }
+        return Sort.by(direction, sortBy).and(Sort.by(direction, "id"));
+    }
+
+    Comparable<?> typedLastValue() {
+        return switch (sortBy) {
+            case "price" -> new BigDecimal(lastValue);
+            case "name" -> lastValue;
+            case "createdAt" -> LocalDateTime.parse(lastValue);
+            default -> Long.parseLong(lastValue);
+        };
+    }
+}
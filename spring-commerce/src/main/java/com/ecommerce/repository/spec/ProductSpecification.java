@@ -1,17 +1,22 @@
 package com.ecommerce.repository.spec;
 
 import com.ecommerce.entity.Product;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class ProductSpecification {
 
-    public static Specification<Product> filterBy(String search, Long categoryId, BigDecimal minPrice,
+    /**
+     * @param categoryIds the categories to match, normally a category's whole subtree; {@code null} for any
+     */
+    public static Specification<Product> filterBy(String search, Collection<Long> categoryIds, BigDecimal minPrice,
             BigDecimal maxPrice) {
         return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
@@ -21,8 +26,8 @@ public class ProductSpecification {
                 predicates.add(criteriaBuilder.like(criteriaBuilder.lower(root.get("name")), searchLike));
             }
 
-            if (categoryId != null) {
-                predicates.add(criteriaBuilder.equal(root.get("category").get("id"), categoryId));
+            if (categoryIds != null) {
+                predicates.add(root.get("category").get("id").in(categoryIds));
             }
 
             if (minPrice != null) {
@@ -36,4 +41,34 @@ public class ProductSpecification {
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    public static Specification<Product> idIn(Collection<Long> ids) {
+        return (root, query, criteriaBuilder) -> root.get("id").in(ids);
+    }
+
+    /**
+     * Seek predicate for keyset pagination: rows strictly after the cursor's (sort key, id) pair.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Product> after(ProductCursor cursor) {
+        return (root, query, criteriaBuilder) -> {
+            if (cursor.isStart()) {
+                return criteriaBuilder.conjunction();
+            }
+            boolean ascending = cursor.direction().isAscending();
+            Expression<Long> id = root.get("id");
+            Predicate idAfter = ascending
+                    ? criteriaBuilder.greaterThan(id, cursor.lastId())
+                    : criteriaBuilder.lessThan(id, cursor.lastId());
+            if ("id".equals(cursor.sortBy())) {
+                return idAfter;
+            }
+            Expression key = root.get(cursor.sortBy());
+            Comparable value = cursor.typedLastValue();
+            Predicate keyAfter = ascending
+                    ? criteriaBuilder.greaterThan(key, value)
+                    : criteriaBuilder.lessThan(key, value);
+            return criteriaBuilder.or(keyAfter, criteriaBuilder.and(criteriaBuilder.equal(key, value), idAfter));
+        };
+    }
 }
@@ -1,7 +1,20 @@
 package com.ecommerce.service;
 
 import com.ecommerce.dto.response.AdminStatsResponse;
+import com.ecommerce.dto.response.CacheStatsResponse;
+import com.ecommerce.dto.response.OutboxStatusResponse;
+import com.ecommerce.dto.response.WarmupStatusResponse;
+
+import java.util.List;
 
 public interface AdminService {
     AdminStatsResponse getStats();
+
+    List<CacheStatsResponse> getCacheStats();
+
+    WarmupStatusResponse getWarmupStatus();
+
+    OutboxStatusResponse getOutboxStatus();
+
+    int requeueDeadOutboxEvents();
 }
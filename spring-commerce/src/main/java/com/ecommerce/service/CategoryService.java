@@ -2,14 +2,22 @@ package com.ecommerce.service;
 
 import com.ecommerce.dto.request.CategoryRequest;
 import com.ecommerce.dto.response.CategoryResponse;
+import com.ecommerce.dto.response.CategoryTreeResponse;
 import com.ecommerce.entity.Category;
+import com.ecommerce.event.CategoryChangedEvent;
 import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.mapper.CategoryMapper;
 import com.ecommerce.repository.CategoryRepository;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,36 +25,62 @@ import java.util.stream.Collectors;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
-    private final ModelMapper modelMapper;
+    private final CategoryMapper categoryMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Cacheable(value = "categories", sync = true, key = "'all'")
     public List<CategoryResponse> getAllCategories() {
         return categoryRepository.findAll().stream()
-                .map(this::mapToResponse)
+                .map(categoryMapper::toResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * The whole category tree, top-level categories first, built from a single query and cached
+     * until the next category write.
+     */
+    @Cacheable(value = "categories", sync = true, key = "'tree'")
+    public List<CategoryTreeResponse> getCategoryTree() {
+        List<Category> categories = categoryRepository.findAll();
+        Map<Long, CategoryTreeResponse> nodes = new HashMap<>();
+        for (Category category : categories) {
+            nodes.put(category.getId(), categoryMapper.toTreeResponse(category));
+        }
+
+        List<CategoryTreeResponse> roots = new ArrayList<>();
+        for (Category category : categories) {
+            CategoryTreeResponse node = nodes.get(category.getId());
+            // Only the parent's id is read, so the lazy parent is never initialized
+            CategoryTreeResponse parent = category.getParentCategory() == null
+                    ? null
+                    : nodes.get(category.getParentCategory().getId());
+            (parent == null ? roots : parent.getChildren()).add(node);
+        }
+        sortByName(roots);
+        return roots;
+    }
+
+    @Cacheable(value = "categories", sync = true, key = "'detail_' + #id")
     public CategoryResponse getCategoryById(Long id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "id", id));
-        return mapToResponse(category);
+        return categoryMapper.toResponse(category);
     }
 
     public CategoryResponse createCategory(CategoryRequest categoryRequest) {
-        Category category = modelMapper.map(categoryRequest, Category.class);
+        Category category = categoryMapper.toEntity(categoryRequest);
         if (categoryRequest.getParentId() != null) {
             Category parent = categoryRepository.findById(categoryRequest.getParentId())
                     .orElseThrow(() -> new ResourceNotFoundException("Parent Category", "id", categoryRequest.getParentId()));
             category.setParentCategory(parent);
         }
         Category saved = categoryRepository.save(category);
-        return mapToResponse(saved);
+        eventPublisher.publishEvent(new CategoryChangedEvent(saved.getId()));
+        return categoryMapper.toResponse(saved);
     }
 
-    private CategoryResponse mapToResponse(Category category) {
-        CategoryResponse response = modelMapper.map(category, CategoryResponse.class);
-        if (category.getParentCategory() != null) {
-            response.setParentId(category.getParentCategory().getId());
-        }
-        return response;
+    private static void sortByName(List<CategoryTreeResponse> nodes) {
+        nodes.sort(Comparator.comparing(CategoryTreeResponse::getName, String.CASE_INSENSITIVE_ORDER));
+        nodes.forEach(node -> sortByName(node.getChildren()));
     }
 }
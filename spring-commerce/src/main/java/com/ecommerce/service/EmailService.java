@@ -9,4 +9,8 @@ public interface EmailService {
     void sendOrderConfirmation(User user, Order order);
 
     void sendOrderShipped(User user, Order order);
+
+    void sendPaymentReceived(User user, Order order);
+
+    void sendRefundIssued(User user, Order order);
 }
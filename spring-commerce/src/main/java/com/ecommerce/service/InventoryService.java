@@ -0,0 +1,31 @@
+package com.ecommerce.service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public interface InventoryService {
+
+    /**
+     * Takes the given units (product id to quantity) out of stock with one conditional
+     * {@code UPDATE ... WHERE stock_quantity >= ?} per product, sent as a single batch. Either every
+     * line is decremented or, when any product is short, none is and an
+     * {@link com.ecommerce.exception.InsufficientStockException} lists each short line.
+     *
+     * @return the stock left per product after the decrement
+     */
+    Map<Long, StockLevel> decrementStock(Map<Long, Integer> quantities);
+
+    /**
+     * Puts units back into stock, e.g. when a reservation is released, as one batch of updates.
+     */
+    void restoreStock(Map<Long, Integer> quantities);
+
+    /**
+     * Announces stock changed underneath the entities (product id to signed change) with one
+     * {@link com.ecommerce.event.ProductChangedEvent} per product, built from a fresh read.
+     */
+    void publishStockChanges(Map<Long, Integer> deltas);
+
+    record StockLevel(int stockQuantity, LocalDateTime updatedAt) {
+    }
+}
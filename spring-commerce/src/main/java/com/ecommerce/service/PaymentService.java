@@ -7,4 +7,21 @@ import com.stripe.model.PaymentIntent;
 public interface PaymentService {
     PaymentIntent createPaymentIntent(Order order) throws StripeException;
     Order confirmPayment(String paymentIntentId) throws StripeException;
+
+    /**
+     * Commits the order's stock holds, marks it paid and records the payment event, all in one
+     * transaction. Marking an order that is neither pending nor cancelled changes nothing, so repeated
+     * confirmations are harmless.
+     * <p>
+     * A payment for an order that was cancelled, or whose holds expired, does not take the stock
+     * back: the order is marked {@code REFUND_PENDING} and a refund event is recorded instead.
+     */
+    Order markPaid(Long orderId, String paymentId);
+
+    /**
+     * Refunds the payment of a {@code REFUND_PENDING} order in full and marks it {@code REFUNDED}.
+     * Orders in any other state are returned unchanged. Stripe deduplicates on {@code idempotencyKey},
+     * so a retry after a failed commit does not refund twice.
+     */
+    Order refund(Long orderId, String idempotencyKey) throws StripeException;
 }
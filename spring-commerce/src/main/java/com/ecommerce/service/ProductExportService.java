@@ -0,0 +1,17 @@
+package com.ecommerce.service;
+
+import com.ecommerce.io.ProductFileFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ProductExportService {
+
+    /**
+     * Writes every product to {@code output}, in id order, as CSV (with header row) or NDJSON.
+     * Rows are streamed from a forward-only cursor, so memory use does not grow with the catalog.
+     *
+     * @return the number of products written
+     */
+    long exportProducts(OutputStream output, ProductFileFormat format) throws IOException;
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.response.ImportReportResponse;
+import com.ecommerce.io.ProductFileFormat;
+
+import java.io.InputStream;
+
+public interface ProductImportService {
+
+    /**
+     * Imports products from a CSV (with header row) or NDJSON stream. Rows with an {@code id}
+     * update that product, other rows insert a new one. Invalid rows are reported and skipped.
+     */
+    ImportReportResponse importProducts(InputStream input, ProductFileFormat format);
+}
@@ -1,23 +1,55 @@
 package com.ecommerce.service;
 
 import com.ecommerce.dto.request.ProductRequest;
+import com.ecommerce.dto.response.CursorPageResponse;
 import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.config.CacheConfig;
 import com.ecommerce.entity.Category;
 import com.ecommerce.entity.Product;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductSnapshot;
+import com.ecommerce.exception.BadRequestException;
 import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.index.CategoryHierarchy;
+import com.ecommerce.index.FacetCounts;
+import com.ecommerce.index.FacetIndex;
+import com.ecommerce.index.PriceIndex;
+import com.ecommerce.index.ProductSearchIndex;
+import com.ecommerce.index.SearchFilter;
+import com.ecommerce.index.SearchPage;
+import com.ecommerce.index.SuggestIndex;
+import com.ecommerce.index.Suggestion;
+import com.ecommerce.mapper.ProductMapper;
 import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductProjectionRepository.KeyedResponse;
 import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.spec.ProductCursor;
 import com.ecommerce.repository.spec.ProductSpecification;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -26,79 +58,255 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
-    private final ModelMapper modelMapper;
+    private final ProductMapper productMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductSearchIndex searchIndex;
+    private final FacetIndex facetIndex;
+    private final PriceIndex priceIndex;
+    private final SuggestIndex suggestIndex;
+    private final CacheManager cacheManager;
+    private final CategoryHierarchy categoryHierarchy;
 
-    @Cacheable(value = "products", key = "'all_' + #pageable.pageNumber + '_' + #pageable.pageSize")
+    @Value("${app.search.max-sorted-hits:10000}")
+    private int maxSortedSearchHits;
+
+    @Cacheable(value = "products", sync = true, key = "T(com.ecommerce.cache.ProductQueryKey).of(#pageable)")
     public Page<ProductResponse> getAllProducts(Pageable pageable) {
-        return productRepository.findAll(pageable)
-                .map(this::mapToResponse);
+        return productRepository.findResponses(Specification.where(null), pageable);
     }
 
-    @Cacheable(value = "products", key = "'filter_' + (#search != null ? #search : '') + '_' + (#categoryId != null ? #categoryId : '') + '_' + (#minPrice != null ? #minPrice : '') + '_' + (#maxPrice != null ? #maxPrice : '') + '_' + #pageable.pageNumber + '_' + #pageable.pageSize")
+    @Cacheable(value = "products", sync = true, key = "T(com.ecommerce.cache.ProductQueryKey).of(#search, #categoryId, #minPrice, #maxPrice, #pageable)")
     public Page<ProductResponse> getAllProducts(String search, Long categoryId, BigDecimal minPrice,
             BigDecimal maxPrice, Pageable pageable) {
-        var spec = ProductSpecification.filterBy(search, categoryId, minPrice, maxPrice);
-        return productRepository.findAll(spec, pageable)
-                .map(this::mapToResponse);
+        List<Long> categoryIds = subtreeOf(categoryId);
+        if (StringUtils.hasText(search) && searchIndex.isReady()) {
+            return searchCatalog(search, SearchFilter.ofCategories(categoryIds, minPrice, maxPrice), pageable);
+        }
+        if (!StringUtils.hasText(search) && priceIndex.isReady()
+                && usesPriceIndex(minPrice != null || maxPrice != null, pageable.getSort())) {
+            Sort.Order byPrice = pageable.getSort().getOrderFor("price");
+            SearchPage hits = priceIndex.page(SearchFilter.ofCategories(categoryIds, minPrice, maxPrice),
+                    byPrice != null && byPrice.isDescending(), indexOffset(pageable), pageable.getPageSize());
+            return new PageImpl<>(findInOrder(hits.productIds()), pageable, hits.totalHits());
+        }
+        var spec = ProductSpecification.filterBy(search, categoryIds, minPrice, maxPrice);
+        if (!StringUtils.hasText(search) && priceIndex.isReady()) {
+            // Category and price filters are exactly what the price index counts, so no COUNT query is needed
+            SearchFilter filter = SearchFilter.ofCategories(categoryIds, minPrice, maxPrice);
+            return productRepository.findResponses(spec, pageable, () -> priceIndex.count(filter));
+        }
+        return productRepository.findResponses(spec, pageable);
+    }
+
+    /**
+     * The same selection as {@link #getAllProducts(String, Long, BigDecimal, BigDecimal, Pageable)} without
+     * a total, for clients that only need to know whether to load more. Paths whose totals come from the
+     * in-memory indexes are reused as they are; only database fallbacks switch to a look-ahead query.
+     */
+    @Cacheable(value = "products", sync = true, key = "T(com.ecommerce.cache.ProductQueryKey).ofSlice(#search, #categoryId, #minPrice, #maxPrice, #pageable)")
+    public Slice<ProductResponse> getProductSlice(String search, Long categoryId, BigDecimal minPrice,
+            BigDecimal maxPrice, Pageable pageable) {
+        boolean indexed = StringUtils.hasText(search) ? searchIndex.isReady() : priceIndex.isReady();
+        if (!indexed) {
+            var spec = ProductSpecification.filterBy(search, subtreeOf(categoryId), minPrice, maxPrice);
+            return productRepository.findResponseSlice(spec, pageable);
+        }
+        Page<ProductResponse> page = getAllProducts(search, categoryId, minPrice, maxPrice, pageable);
+        return new SliceImpl<>(page.getContent(), pageable, page.hasNext());
+    }
+
+    /**
+     * Facet counts for the same selection {@link #getAllProducts(String, Long, BigDecimal, BigDecimal, Pageable)}
+     * lists, answered from the in-memory facet index. Until the search index is ready, search terms are
+     * matched by the same name query the listing falls back to.
+     */
+    public FacetCounts getFacetCounts(String search, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice) {
+        long[] candidates = null;
+        if (StringUtils.hasText(search)) {
+            candidates = searchIndex.isReady()
+                    ? searchIndex.matchingIds(search)
+                    : productRepository.findIdsByNameMatching(search).stream().mapToLong(Long::longValue).toArray();
+        }
+        return facetIndex.count(candidates, SearchFilter.ofCategories(subtreeOf(categoryId), minPrice, maxPrice));
+    }
+
+    public List<Suggestion> suggest(String query, int limit) {
+        return suggestIndex.suggest(query, limit);
     }
 
-    @Cacheable(value = "products", key = "'detail_' + #id")
+    /**
+     * Keyset listing: seeks past the cursor instead of using OFFSET, so deep pages cost the same as the
+     * first one. Fetches one extra row to detect the next page and only counts when asked to.
+     */
+    public CursorPageResponse<ProductResponse> getProductsAfter(Long categoryId, BigDecimal minPrice,
+            BigDecimal maxPrice, ProductCursor cursor, int size, boolean includeTotal) {
+        Specification<Product> filter = ProductSpecification.filterBy(null, subtreeOf(categoryId), minPrice,
+                maxPrice);
+        List<KeyedResponse> rows = productRepository.findKeyedResponses(
+                filter.and(ProductSpecification.after(cursor)), cursor.sortBy(), cursor.sort(), size + 1);
+
+        boolean hasNext = rows.size() > size;
+        List<KeyedResponse> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            KeyedResponse last = page.get(page.size() - 1);
+            nextCursor = cursor.after(last.sortValue(), last.response().getId()).encode();
+        }
+        Long total = includeTotal ? productRepository.count(filter) : null;
+
+        List<ProductResponse> content = page.stream()
+                .map(KeyedResponse::response)
+                .collect(Collectors.toList());
+        return new CursorPageResponse<>(content, nextCursor, hasNext, content.size(), total);
+    }
+
+    @Cacheable(value = "products", sync = true, key = "'detail_' + #id")
     public ProductResponse getProductById(Long id) {
-        Product product = productRepository.findById(id)
+        return productRepository.findResponseById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
-        return mapToResponse(product);
+    }
+
+    /**
+     * Several products in one call, in the order asked for; unknown ids are left out. Detail entries
+     * already in the product cache are reused and the rest are read with a single {@code IN} query.
+     * <p>
+     * Misses are not written back: unlike {@link #getProductById}, this path cannot tell whether a
+     * write evicted the entry while the query ran, and would risk caching the pre-write product.
+     */
+    public List<ProductResponse> getProductsByIds(List<Long> ids) {
+        List<Long> wanted = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS);
+        Map<Long, ProductResponse> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : wanted) {
+            ProductResponse cached = cache == null ? null : cache.get("detail_" + id, ProductResponse.class);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            productRepository.findResponsesByIdIn(misses).forEach(product -> found.put(product.getId(), product));
+        }
+        return wanted.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
     @Transactional
-    @CacheEvict(value = "products", allEntries = true)
     public ProductResponse createProduct(ProductRequest productRequest) {
         Category category = categoryRepository.findById(productRequest.getCategoryId())
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "id", productRequest.getCategoryId()));
 
-        Product product = modelMapper.map(productRequest, Product.class);
+        Product product = productMapper.toEntity(productRequest);
         product.setCategory(category);
 
         Product savedProduct = productRepository.save(product);
-        return mapToResponse(savedProduct);
+        eventPublisher.publishEvent(new ProductChangedEvent(null, ProductSnapshot.from(savedProduct)));
+        return productMapper.toResponse(savedProduct);
     }
 
-    @Cacheable(value = "products", key = "'search_' + #query + '_' + #pageable.pageNumber + '_' + #pageable.pageSize")
+    @Cacheable(value = "products", sync = true, key = "T(com.ecommerce.cache.ProductQueryKey).of(#query, null, null, null, #pageable)")
     public Page<ProductResponse> searchProducts(String query, Pageable pageable) {
         return getAllProducts(query, null, null, null, pageable);
     }
 
     @Transactional
-    @CacheEvict(value = "products", allEntries = true)
     public ProductResponse updateProduct(Long id, ProductRequest productRequest) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+        // The requested stock is the catalog figure, so the units on the hot stock ledger stay out of the row
+        int leased = (int) productRepository.findLeasedStock(id);
+        int rowStock = productRequest.getStockQuantity() - leased;
+        if (rowStock < 0) {
+            throw new BadRequestException("Stock quantity cannot be below the " + leased
+                    + " units leased to hot SKU counters");
+        }
+        ProductSnapshot before = withLeased(ProductSnapshot.from(product), leased);
 
         Category category = categoryRepository.findById(productRequest.getCategoryId())
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "id", productRequest.getCategoryId()));
 
-        product.setName(productRequest.getName());
-        product.setDescription(productRequest.getDescription());
-        product.setPrice(productRequest.getPrice());
-        product.setStockQuantity(productRequest.getStockQuantity());
-        product.setImageUrl(productRequest.getImageUrl());
+        productMapper.updateEntity(productRequest, product);
+        product.setStockQuantity(rowStock);
         product.setCategory(category);
 
-        Product updatedProduct = productRepository.save(product);
-        return mapToResponse(updatedProduct);
+        // Flushing stamps updatedAt, which the change event carries as the product's version
+        Product updatedProduct = productRepository.saveAndFlush(product);
+        ProductSnapshot after = withLeased(ProductSnapshot.from(updatedProduct), leased);
+        eventPublisher.publishEvent(new ProductChangedEvent(before, after));
+        ProductResponse response = productMapper.toResponse(updatedProduct);
+        response.setStockQuantity(after.stockQuantity());
+        return response;
     }
 
     @Transactional
-    @CacheEvict(value = "products", allEntries = true)
     public void deleteProduct(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+        ProductSnapshot before = ProductSnapshot.from(product);
         productRepository.delete(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(before, null));
     }
 
-    private ProductResponse mapToResponse(Product product) {
-        ProductResponse response = modelMapper.map(product, ProductResponse.class);
-        response.setCategoryId(product.getCategory().getId());
-        response.setCategoryName(product.getCategory().getName());
-        return response;
+    private Page<ProductResponse> searchCatalog(String search, SearchFilter filter, Pageable pageable) {
+        if (pageable.getSort().isSorted()) {
+            // Explicit sort orders are applied by the database over the matching ids, all of them or none
+            SearchPage hits = searchIndex.search(search, filter, 0, maxSortedSearchHits);
+            if (hits.totalHits() > maxSortedSearchHits) {
+                throw new BadRequestException("Search matches more than " + maxSortedSearchHits
+                        + " products; narrow it down or sort by relevance");
+            }
+            if (hits.productIds().isEmpty()) {
+                return Page.empty(pageable);
+            }
+            return productRepository.findResponses(ProductSpecification.idIn(hits.productIds()), pageable,
+                    hits::totalHits);
+        }
+
+        SearchPage hits = searchIndex.search(search, filter, indexOffset(pageable), pageable.getPageSize());
+        return new PageImpl<>(findInOrder(hits.productIds()), pageable, hits.totalHits());
+    }
+
+    /**
+     * A category filter matches the category and all of its subcategories.
+     */
+    private List<Long> subtreeOf(Long categoryId) {
+        return categoryId == null ? null : categoryHierarchy.subtreeOf(categoryId);
+    }
+
+    private static ProductSnapshot withLeased(ProductSnapshot snapshot, int leased) {
+        return leased == 0 ? snapshot : snapshot.withStock(snapshot.stockQuantity() + leased, snapshot.updatedAt());
+    }
+
+    /**
+     * The page offset for the in-memory indexes, which count hits in ints. Anything larger is past
+     * the last hit anyway, so it is capped and the index answers with an empty page and the true total.
+     */
+    private static int indexOffset(Pageable pageable) {
+        return (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Price-sorted pages, and unsorted pages with a price range, are served from the price index.
+     * Unsorted ones then come back in ascending price order.
+     */
+    private static boolean usesPriceIndex(boolean priceRange, Sort sort) {
+        if (sort.isUnsorted()) {
+            return priceRange;
+        }
+        List<Sort.Order> orders = sort.toList();
+        return orders.size() == 1 && orders.get(0).getProperty().equals("price");
+    }
+
+    private List<ProductResponse> findInOrder(List<Long> ids) {
+        Map<Long, ProductResponse> products = productRepository.findResponsesByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+        return ids.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,44 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.Order;
+
+import java.util.Map;
+
+/**
+ * Time-limited stock holds between checkout and payment. The held units are already out of
+ * {@code stock_quantity}, so that column and everything derived from it (catalog pages, the
+ * in-memory indexes) always show what is still available to sell.
+ */
+public interface ReservationService {
+
+    /**
+     * Records the units checkout just took out of stock as held for the order until the TTL runs out.
+     */
+    void placeHolds(Order order, Map<Long, Integer> quantities);
+
+    /**
+     * Makes the order's holds permanent on payment. If any of them already expired, the order was
+     * cancelled with them: nothing is committed, the rest of its stock goes back too, and the
+     * payment is the caller's to refund.
+     *
+     * @return whether the holds were committed
+     */
+    boolean commit(Order order);
+
+    /**
+     * Puts the order's held units back, e.g. when it is cancelled.
+     */
+    void release(Order order);
+
+    /**
+     * Puts the units of a paid order back when it is cancelled and its payment refunded.
+     */
+    void returnCommitted(Order order);
+
+    /**
+     * Releases up to one batch of expired holds and cancels their still pending orders.
+     *
+     * @return the number of holds released
+     */
+    int releaseExpired();
+}
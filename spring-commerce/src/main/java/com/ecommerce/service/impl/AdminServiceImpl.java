@@ -1,15 +1,27 @@
 package com.ecommerce.service.impl;
 
+import com.ecommerce.cache.CatalogWarmup;
 import com.ecommerce.dto.response.AdminStatsResponse;
+import com.ecommerce.dto.response.CacheStatsResponse;
+import com.ecommerce.dto.response.OutboxStatusResponse;
+import com.ecommerce.dto.response.WarmupStatusResponse;
+import com.ecommerce.enums.OutboxStatus;
 import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.OutboxEventRepository;
 import com.ecommerce.repository.ProductRepository;
 import com.ecommerce.repository.UserRepository;
 import com.ecommerce.service.AdminService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -19,6 +31,9 @@ public class AdminServiceImpl implements AdminService {
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final CacheManager cacheManager;
+    private final CatalogWarmup catalogWarmup;
+    private final OutboxEventRepository outboxEventRepository;
 
     @Override
     public AdminStatsResponse getStats() {
@@ -36,4 +51,49 @@ public class AdminServiceImpl implements AdminService {
                 .totalProducts(totalProducts)
                 .build();
     }
+
+    @Override
+    public List<CacheStatsResponse> getCacheStats() {
+        List<CacheStatsResponse> stats = new ArrayList<>();
+        for (String name : cacheManager.getCacheNames()) {
+            org.springframework.cache.Cache cache = cacheManager.getCache(name);
+            if (cache == null || !(cache.getNativeCache() instanceof Cache<?, ?> nativeCache)) {
+                continue;
+            }
+            CacheStats cacheStats = nativeCache.stats();
+            stats.add(CacheStatsResponse.builder()
+                    .name(name)
+                    .estimatedSize(nativeCache.estimatedSize())
+                    .maximumSize(nativeCache.policy().eviction().map(eviction -> eviction.getMaximum()).orElse(null))
+                    .hitCount(cacheStats.hitCount())
+                    .missCount(cacheStats.missCount())
+                    .hitRate(cacheStats.hitRate())
+                    .evictionCount(cacheStats.evictionCount())
+                    .loadSuccessCount(cacheStats.loadSuccessCount())
+                    .loadFailureCount(cacheStats.loadFailureCount())
+                    .averageLoadPenaltyMs(cacheStats.averageLoadPenalty() / 1_000_000.0)
+                    .build());
+        }
+        return stats;
+    }
+
+    @Override
+    public WarmupStatusResponse getWarmupStatus() {
+        return catalogWarmup.status();
+    }
+
+    @Override
+    public OutboxStatusResponse getOutboxStatus() {
+        return OutboxStatusResponse.builder()
+                .pending(outboxEventRepository.countByStatus(OutboxStatus.PENDING))
+                .delivered(outboxEventRepository.countByStatus(OutboxStatus.DELIVERED))
+                .dead(outboxEventRepository.countByStatus(OutboxStatus.DEAD))
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public int requeueDeadOutboxEvents() {
+        return outboxEventRepository.requeueDead(LocalDateTime.now());
+    }
 }
@@ -8,6 +8,7 @@ import com.ecommerce.entity.Product;
 import com.ecommerce.entity.User;
 import com.ecommerce.exception.InsufficientStockException;
 import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.mapper.CartMapper;
 import com.ecommerce.repository.CartItemRepository;
 import com.ecommerce.repository.CartRepository;
 import com.ecommerce.repository.ProductRepository;
@@ -16,11 +17,9 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -29,12 +28,13 @@ public class CartServiceImpl implements CartService {
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
+    private final CartMapper cartMapper;
 
     @Override
     @Transactional
     public CartResponse getCart(User user) {
         Cart cart = getOrCreateCart(user);
-        return mapToCartResponse(cart);
+        return cartMapper.toResponse(cart);
     }
 
     @Override
@@ -44,7 +44,9 @@ public class CartServiceImpl implements CartService {
         Product product = productRepository.findById(itemRequest.getProductId())
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
 
-        if (product.getStockQuantity() < itemRequest.getQuantity()) {
+        // The catalog's stock figure, so the cart agrees with what the product page shows
+        int leased = productRepository.findHotLeasedStock(List.of(product.getId())).getOrDefault(product.getId(), 0);
+        if (product.getStockQuantity() + leased < itemRequest.getQuantity()) {
             throw new InsufficientStockException("Insufficient stock for product: " + product.getName());
         }
 
@@ -72,7 +74,7 @@ public class CartServiceImpl implements CartService {
         // but normally calculated on read. 
         // If we stored totalPrice in DB, we'd update it here.
         
-        return mapToCartResponse(cartRepository.save(cart));
+        return cartMapper.toResponse(cartRepository.save(cart));
     }
 
     @Override
@@ -87,7 +89,7 @@ public class CartServiceImpl implements CartService {
         cart.getItems().remove(itemToRemove);
         cartItemRepository.delete(itemToRemove);
         
-        return mapToCartResponse(cartRepository.save(cart));
+        return cartMapper.toResponse(cartRepository.save(cart));
     }
 
     @Override
@@ -102,7 +104,7 @@ public class CartServiceImpl implements CartService {
         item.setQuantity(quantity);
         cartItemRepository.save(item);
 
-        return mapToCartResponse(cartRepository.save(cart));
+        return cartMapper.toResponse(cartRepository.save(cart));
     }
 
     @Override
@@ -113,7 +115,7 @@ public class CartServiceImpl implements CartService {
         // Since we have orphanRemoval=true, saving the cart should delete the items.
         // But explicitly deleting might be safer/clearer sometimes. 
         // With orphanRemoval=true, clearing the list is enough.
-        return mapToCartResponse(cartRepository.save(cart));
+        return cartMapper.toResponse(cartRepository.save(cart));
     }
 
     private Cart getOrCreateCart(User user) {
@@ -126,39 +128,4 @@ public class CartServiceImpl implements CartService {
                     return cartRepository.save(newCart);
                 });
     }
-
-    private CartResponse mapToCartResponse(Cart cart) {
-        CartResponse response = new CartResponse();
-        response.setId(cart.getId());
-        
-        BigDecimal total = BigDecimal.ZERO;
-        int count = 0;
-        
-        List<CartResponse.CartItemDto> itemDtos = new ArrayList<>();
-        
-        if (cart.getItems() != null) {
-            for (CartItem item : cart.getItems()) {
-                CartResponse.CartItemDto itemDto = new CartResponse.CartItemDto();
-                itemDto.setId(item.getId());
-                itemDto.setProductId(item.getProduct().getId());
-                itemDto.setProductName(item.getProduct().getName());
-                itemDto.setImageUrl(item.getProduct().getImageUrl());
-                itemDto.setPrice(item.getPrice());
-                itemDto.setQuantity(item.getQuantity());
-                
-                BigDecimal subtotal = item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
-                itemDto.setSubtotal(subtotal);
-                
-                total = total.add(subtotal);
-                count += item.getQuantity();
-                
-                itemDtos.add(itemDto);
-            }
-        }
-        
-        response.setItems(itemDtos);
-        response.setTotalPrice(total);
-        response.setTotalItems(count);
-        return response;
-    }
 }
@@ -0,0 +1,120 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.dto.response.StockShortageResponse;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductSnapshot;
+import com.ecommerce.exception.InsufficientStockException;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.InventoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stock decrements as conditional updates: the check and the write are one statement, so two
+ * checkouts can never both take the last unit, and a row is locked only for as long as the rest
+ * of the order transaction runs, never across a read-then-write gap.
+ */
+@Service
+@RequiredArgsConstructor
+public class InventoryServiceImpl implements InventoryService {
+
+    private static final String DECREMENT_SQL = "UPDATE products SET stock_quantity = stock_quantity - ?, "
+            + "updated_at = ? WHERE id = ? AND stock_quantity >= ?";
+    private static final String RESTORE_SQL = "UPDATE products SET stock_quantity = stock_quantity + ?, "
+            + "updated_at = ? WHERE id = ?";
+    private static final String STOCK_SQL = "SELECT id, name, stock_quantity FROM products WHERE id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    @Transactional
+    public Map<Long, StockLevel> decrementStock(Map<Long, Integer> quantities) {
+        // Ascending ids, so two orders sharing products lock the rows in the same order and cannot deadlock
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        LocalDateTime updatedAt = LocalDateTime.now();
+
+        int[] counts = jdbcTemplate.getJdbcTemplate().batchUpdate(DECREMENT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<Long, Integer> line = lines.get(i);
+                ps.setInt(1, line.getValue());
+                ps.setTimestamp(2, Timestamp.valueOf(updatedAt));
+                ps.setLong(3, line.getKey());
+                ps.setInt(4, line.getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lines.size();
+            }
+        });
+
+        // Rows just updated stay locked until commit, so this reads exactly what the batch left behind
+        Map<Long, Object[]> current = new HashMap<>();
+        jdbcTemplate.query(STOCK_SQL, new MapSqlParameterSource("ids", quantities.keySet()), rs -> {
+            current.put(rs.getLong("id"), new Object[]{rs.getString("name"), rs.getInt("stock_quantity")});
+        });
+
+        List<StockShortageResponse> shortages = new ArrayList<>();
+        Map<Long, StockLevel> levels = new HashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            Long productId = lines.get(i).getKey();
+            Object[] row = current.get(productId);
+            if (counts[i] == 0) {
+                shortages.add(new StockShortageResponse(productId, row == null ? null : (String) row[0],
+                        lines.get(i).getValue(), row == null ? 0 : (Integer) row[1]));
+            } else {
+                levels.put(productId, new StockLevel((Integer) row[1], updatedAt));
+            }
+        }
+        if (!shortages.isEmpty()) {
+            // Thrown inside the transaction, so the lines that did succeed are rolled back with it
+            throw new InsufficientStockException(shortages);
+        }
+        return levels;
+    }
+
+    @Override
+    @Transactional
+    public void restoreStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        Timestamp updatedAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.getJdbcTemplate().batchUpdate(RESTORE_SQL, lines, lines.size(), (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setTimestamp(2, updatedAt);
+            ps.setLong(3, line.getKey());
+        });
+    }
+
+    @Override
+    public void publishStockChanges(Map<Long, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        for (ProductSnapshot after : productRepository.findSnapshotsByIdIn(deltas.keySet())) {
+            ProductSnapshot before = after.withStock(after.stockQuantity() - deltas.get(after.id()),
+                    after.updatedAt());
+            eventPublisher.publishEvent(new ProductChangedEvent(before, after));
+        }
+    }
+}
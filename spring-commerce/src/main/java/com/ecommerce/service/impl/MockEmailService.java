@@ -45,4 +45,28 @@ public class MockEmailService implements EmailService {
                 + order.getShippingAddress().getCountry());
         System.out.println("-----------------------------");
     }
+
+    @Override
+    public void sendPaymentReceived(User user, Order order) {
+        System.out.println("----- EMAIL NOTIFICATION -----");
+        System.out.println("To: " + user.getEmail());
+        System.out.println("Subject: Payment Received - Order #" + order.getOrderNumber());
+        System.out.println("Body:");
+        System.out.println("Hello " + user.getFirstName() + ",");
+        System.out.println("We have received your payment of $" + order.getTotalAmount()
+                + " for order #" + order.getOrderNumber() + ".");
+        System.out.println("-----------------------------");
+    }
+
+    @Override
+    public void sendRefundIssued(User user, Order order) {
+        System.out.println("----- EMAIL NOTIFICATION -----");
+        System.out.println("To: " + user.getEmail());
+        System.out.println("Subject: Payment refunded - Order #" + order.getOrderNumber());
+        System.out.println("Body:");
+        System.out.println("Hello " + user.getFirstName() + ",");
+        System.out.println("Your payment of $" + order.getTotalAmount() + " arrived after order #"
+                + order.getOrderNumber() + " was cancelled, so it has been refunded in full.");
+        System.out.println("-----------------------------");
+    }
 }
@@ -4,22 +4,35 @@ import com.ecommerce.dto.request.OrderRequest;
 import com.ecommerce.dto.response.OrderResponse;
 import com.ecommerce.entity.*;
 import com.ecommerce.enums.OrderStatus;
+import com.ecommerce.enums.OutboxEventType;
+import com.ecommerce.event.OrderPlacedEvent;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductSnapshot;
 import com.ecommerce.exception.BadRequestException;
-import com.ecommerce.exception.InsufficientStockException;
 import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.inventory.HotSkuInventory;
+import com.ecommerce.mapper.OrderMapper;
+import com.ecommerce.outbox.OutboxPublisher;
 import com.ecommerce.repository.AddressRepository;
 import com.ecommerce.repository.CartRepository;
 import com.ecommerce.repository.OrderRepository;
-import com.ecommerce.repository.ProductRepository;
-import com.ecommerce.service.EmailService;
+import com.ecommerce.service.InventoryService;
 import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ReservationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -27,11 +40,23 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
+    // The statuses an admin can move an order to from each status. Payments and refunds move orders on
+    // by themselves and are never set by hand; a paid order that is cancelled goes to REFUND_PENDING.
+    private static final Map<OrderStatus, Set<OrderStatus>> ADMIN_TRANSITIONS = Map.of(
+            OrderStatus.PENDING, EnumSet.of(OrderStatus.CONFIRMED, OrderStatus.CANCELLED),
+            OrderStatus.CONFIRMED, EnumSet.of(OrderStatus.SHIPPED, OrderStatus.CANCELLED),
+            OrderStatus.PAID, EnumSet.of(OrderStatus.CONFIRMED, OrderStatus.SHIPPED, OrderStatus.CANCELLED),
+            OrderStatus.SHIPPED, EnumSet.of(OrderStatus.DELIVERED));
+
     private final OrderRepository orderRepository;
     private final CartRepository cartRepository;
     private final AddressRepository addressRepository;
-    private final ProductRepository productRepository;
-    private final EmailService emailService;
+    private final InventoryService inventoryService;
+    private final ReservationService reservationService;
+    private final HotSkuInventory hotSkuInventory;
+    private final OutboxPublisher outboxPublisher;
+    private final OrderMapper orderMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -69,21 +94,47 @@ public class OrderServiceImpl implements OrderService {
                 .items(new ArrayList<>())
                 .build();
 
-        // 4. Create OrderItems from CartItems and Update Inventory
+        // 4. Update Inventory: one batch of conditional decrements for all lines, all or nothing.
+        // Hot products sell from in-memory counters instead and leave their row alone.
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        Map<Long, Integer> hotQuantities = new LinkedHashMap<>();
+        Map<Long, Integer> regularQuantities = new LinkedHashMap<>();
+        Map<Long, Product> products = new LinkedHashMap<>();
+        for (CartItem cartItem : cart.getItems()) {
+            Long productId = cartItem.getProduct().getId();
+            quantities.merge(productId, cartItem.getQuantity(), Integer::sum);
+            (hotSkuInventory.isHot(productId) ? hotQuantities : regularQuantities)
+                    .merge(productId, cartItem.getQuantity(), Integer::sum);
+            products.putIfAbsent(productId, cartItem.getProduct());
+        }
+        if (!hotQuantities.isEmpty()) {
+            // Whatever the counters cannot cover right now is taken from the row like any other line
+            regularQuantities.putAll(hotSkuInventory.take(hotQuantities));
+        }
+        Map<Long, InventoryService.StockLevel> stock = regularQuantities.isEmpty()
+                ? Map.of()
+                : inventoryService.decrementStock(regularQuantities);
+        products.forEach((productId, product) -> {
+            InventoryService.StockLevel level = stock.get(productId);
+            if (level == null || hotQuantities.containsKey(productId)) {
+                return;
+            }
+            // The update bypassed the entity, which is left untouched so Hibernate never writes its stale stock
+            ProductSnapshot before = ProductSnapshot.from(product);
+            eventPublisher.publishEvent(new ProductChangedEvent(before,
+                    before.withStock(level.stockQuantity(), level.updatedAt())));
+        });
+        // The catalog counts leased units too, so hot lines are read back whichever way they sold
+        Map<Long, Integer> hotDeltas = new TreeMap<>();
+        hotQuantities.forEach((productId, quantity) -> hotDeltas.put(productId, -quantity));
+        inventoryService.publishStockChanges(hotDeltas);
+
+        // 5. Create OrderItems from CartItems
         BigDecimal totalAmount = BigDecimal.ZERO;
 
         for (CartItem cartItem : cart.getItems()) {
             Product product = cartItem.getProduct();
 
-            // Check Inventory
-            if (product.getStockQuantity() < cartItem.getQuantity()) {
-                throw new InsufficientStockException("Insufficient stock for product: " + product.getName());
-            }
-
-            // Decrement Stock
-            product.setStockQuantity(product.getStockQuantity() - cartItem.getQuantity());
-            productRepository.save(product);
-
             OrderItem orderItem = OrderItem.builder()
                     .order(order)
                     .product(product)
@@ -99,28 +150,26 @@ public class OrderServiceImpl implements OrderService {
 
         order.setTotalAmount(totalAmount);
 
-        // 5. Save Order
+        // 6. Save Order, holding its stock until it is paid or the hold expires
         Order savedOrder = orderRepository.save(order);
+        reservationService.placeHolds(savedOrder, quantities);
 
-        // 6. Clear Cart
+        // 7. Clear Cart
         cart.getItems().clear();
         cartRepository.save(cart);
 
-        // 7. Send Email
-        try {
-            emailService.sendOrderConfirmation(user, savedOrder);
-        } catch (Exception e) {
-            System.err.println("Failed to send order confirmation email: " + e.getMessage());
-        }
+        // 8. Confirmation email goes out from the outbox once this transaction commits
+        outboxPublisher.publish(OutboxEventType.ORDER_PLACED, savedOrder.getId());
+        eventPublisher.publishEvent(new OrderPlacedEvent(quantities));
 
-        return mapToOrderResponse(savedOrder);
+        return orderMapper.toResponse(savedOrder);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<OrderResponse> getUserOrders(User user) {
         List<Order> orders = orderRepository.findByUserOrderByCreatedAtDesc(user);
-        return orders.stream().map(this::mapToOrderResponse).collect(Collectors.toList());
+        return orders.stream().map(orderMapper::toResponse).collect(Collectors.toList());
     }
 
     @Override
@@ -133,7 +182,7 @@ public class OrderServiceImpl implements OrderService {
             throw new BadRequestException("Access denied");
         }
 
-        return mapToOrderResponse(order);
+        return orderMapper.toResponse(order);
     }
 
     @Override
@@ -142,69 +191,54 @@ public class OrderServiceImpl implements OrderService {
         return orderRepository
                 .findAll(org.springframework.data.domain.Sort.by(org.springframework.data.domain.Sort.Direction.DESC,
                         "createdAt"))
-                .stream().map(this::mapToOrderResponse).collect(Collectors.toList());
+                .stream().map(orderMapper::toResponse).collect(Collectors.toList());
     }
 
+    /**
+     * Moves the order on with a conditional update, so a payment or another admin changing it at the
+     * same time makes this fail instead of being overwritten. Stock is handed back before the order row
+     * is touched, in the same lock order as payments and the hold sweeper.
+     */
     @Override
     @Transactional
     public OrderResponse updateOrderStatus(Long orderId, String status) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
 
+        OrderStatus newStatus;
         try {
-            OrderStatus newStatus = OrderStatus.valueOf(status.toUpperCase());
-            order.setStatus(newStatus);
-
-            Order savedOrder = orderRepository.save(order);
-
-            // Send email if shipped
-            if (newStatus == OrderStatus.SHIPPED) {
-                try {
-                    emailService.sendOrderShipped(savedOrder.getUser(), savedOrder);
-                } catch (Exception e) {
-                    System.err.println("Failed to send shipping email: " + e.getMessage());
-                }
-            }
-
-            return mapToOrderResponse(savedOrder);
-
+            newStatus = OrderStatus.valueOf(status.toUpperCase());
         } catch (IllegalArgumentException e) {
             throw new BadRequestException("Invalid status: " + status);
         }
-    }
+        OrderStatus current = order.getStatus();
+        boolean alreadyCancelled = newStatus == OrderStatus.CANCELLED
+                && (current == OrderStatus.REFUND_PENDING || current == OrderStatus.REFUNDED);
+        if (newStatus == current || alreadyCancelled) {
+            return orderMapper.toResponse(order);
+        }
+        if (!ADMIN_TRANSITIONS.getOrDefault(current, Set.of()).contains(newStatus)) {
+            throw new BadRequestException("Cannot change order status from " + current + " to " + newStatus);
+        }
+
+        boolean refund = newStatus == OrderStatus.CANCELLED && order.getPaymentId() != null;
+        if (refund) {
+            reservationService.returnCommitted(order);
+            newStatus = OrderStatus.REFUND_PENDING;
+        } else if (newStatus == OrderStatus.CANCELLED) {
+            reservationService.release(order);
+        }
+        if (orderRepository.transitionAll(List.of(orderId), current, newStatus, LocalDateTime.now()) == 0) {
+            // Rolls back the stock handed back above as well
+            throw new BadRequestException("Order status changed meanwhile; reload the order and try again");
+        }
+        order.setStatus(newStatus);
 
-    private OrderResponse mapToOrderResponse(Order order) {
-        OrderResponse response = new OrderResponse();
-        response.setId(order.getId());
-        response.setOrderNumber(order.getOrderNumber());
-        response.setStatus(order.getStatus().name());
-        response.setTotalAmount(order.getTotalAmount());
-        response.setCreatedAt(order.getCreatedAt());
-
-        OrderResponse.AddressDto addressDto = new OrderResponse.AddressDto();
-        if (order.getShippingAddress() != null) {
-            addressDto.setFullName(order.getShippingAddress().getFullName());
-            addressDto.setPhoneNumber(order.getShippingAddress().getPhoneNumber());
-            addressDto.setStreet(order.getShippingAddress().getStreet());
-            addressDto.setCity(order.getShippingAddress().getCity());
-            addressDto.setState(order.getShippingAddress().getState());
-            addressDto.setZipCode(order.getShippingAddress().getZipCode());
-            addressDto.setCountry(order.getShippingAddress().getCountry());
+        if (refund) {
+            outboxPublisher.publish(OutboxEventType.PAYMENT_REFUND_REQUIRED, orderId);
+        } else if (newStatus == OrderStatus.SHIPPED) {
+            outboxPublisher.publish(OutboxEventType.ORDER_SHIPPED, orderId);
         }
-        response.setShippingAddress(addressDto);
-
-        List<OrderResponse.OrderItemDto> items = order.getItems().stream().map(item -> {
-            OrderResponse.OrderItemDto itemDto = new OrderResponse.OrderItemDto();
-            itemDto.setId(item.getId());
-            itemDto.setProductId(item.getProduct().getId());
-            itemDto.setProductName(item.getProduct().getName());
-            itemDto.setImageUrl(item.getProduct().getImageUrl());
-            itemDto.setQuantity(item.getQuantity());
-            itemDto.setPrice(item.getPrice());
-            return itemDto;
-        }).collect(Collectors.toList());
-
-        response.setItems(items);
-        return response;
+        return orderMapper.toResponse(order);
     }
 }
@@ -2,17 +2,24 @@ package com.ecommerce.service.impl;
 
 import com.ecommerce.entity.Order;
 import com.ecommerce.enums.OrderStatus;
+import com.ecommerce.enums.OutboxEventType;
 import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.outbox.OutboxPublisher;
 import com.ecommerce.repository.OrderRepository;
 import com.ecommerce.service.PaymentService;
+import com.ecommerce.service.ReservationService;
 import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
 import com.stripe.model.Event;
 import com.stripe.model.EventDataObjectDeserializer;
+import com.stripe.model.Refund;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.PaymentIntentCreateParams;
+import com.stripe.param.RefundCreateParams;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,6 +27,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 
 @Service
+@Slf4j
 @RequiredArgsConstructor
 public class PaymentServiceImpl implements PaymentService {
 
@@ -27,6 +35,8 @@ public class PaymentServiceImpl implements PaymentService {
     private String stripeApiKey;
 
     private final OrderRepository orderRepository;
+    private final ReservationService reservationService;
+    private final OutboxPublisher outboxPublisher;
 
     @PostConstruct
     public void init() {
@@ -59,13 +69,55 @@ public class PaymentServiceImpl implements PaymentService {
             throw new BadRequestException("No order_id in payment metadata");
         }
 
-        Long orderId = Long.parseLong(orderIdStr);
+        return markPaid(Long.parseLong(orderIdStr), paymentIntentId);
+    }
+
+    @Override
+    @Transactional
+    public Order markPaid(Long orderId, String paymentId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new BadRequestException("Order not found with ID: " + orderId));
+        // Anything else was paid already, or is waiting for the refund of a payment that came too late
+        if (order.getStatus() != OrderStatus.PENDING && order.getStatus() != OrderStatus.CANCELLED) {
+            return order;
+        }
 
+        order.setPaymentId(paymentId);
+        if (order.getStatus() == OrderStatus.CANCELLED || !reservationService.commit(order)) {
+            // Its stock is already back on sale; succeed so the webhook stops retrying, and pay the money back
+            order.setStatus(OrderStatus.REFUND_PENDING);
+            Order savedOrder = orderRepository.save(order);
+            outboxPublisher.publish(OutboxEventType.PAYMENT_REFUND_REQUIRED, savedOrder.getId());
+            log.warn("Order {} was paid after it was cancelled; payment {} will be refunded", orderId, paymentId);
+            return savedOrder;
+        }
         order.setStatus(OrderStatus.PAID);
-        order.setPaymentId(paymentIntentId);
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        outboxPublisher.publish(OutboxEventType.PAYMENT_SUCCEEDED, savedOrder.getId());
+        return savedOrder;
+    }
+
+    @Override
+    @Transactional
+    public Order refund(Long orderId, String idempotencyKey) throws StripeException {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new BadRequestException("Order not found with ID: " + orderId));
+        if (order.getStatus() != OrderStatus.REFUND_PENDING) {
+            return order;
+        }
+
+        // Demo payments never reached Stripe, so there is nothing to pay back there
+        if (!order.getPaymentId().startsWith("pi_mock_")) {
+            RefundCreateParams params = RefundCreateParams.builder()
+                    .setPaymentIntent(order.getPaymentId())
+                    .build();
+            Refund refund = Refund.create(params, RequestOptions.builder().setIdempotencyKey(idempotencyKey).build());
+            log.info("Refunded payment {} of order {}: {}", order.getPaymentId(), orderId, refund.getId());
+        }
+        order.setStatus(OrderStatus.REFUNDED);
+        Order savedOrder = orderRepository.save(order);
+        outboxPublisher.publish(OutboxEventType.PAYMENT_REFUNDED, savedOrder.getId());
+        return savedOrder;
     }
 
     @Transactional
@@ -74,11 +126,8 @@ public class PaymentServiceImpl implements PaymentService {
         if (orderIdStr == null) return;
 
         Long orderId = Long.parseLong(orderIdStr);
-        Order order = orderRepository.findById(orderId).orElse(null);
-        if (order == null || order.getStatus() == OrderStatus.PAID) return;
+        if (!orderRepository.existsById(orderId)) return;
 
-        order.setStatus(OrderStatus.PAID);
-        order.setPaymentId(intent.getId());
-        orderRepository.save(order);
+        markPaid(orderId, intent.getId());
     }
 }
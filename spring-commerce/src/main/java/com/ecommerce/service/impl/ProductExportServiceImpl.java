@@ -0,0 +1,173 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.config.HotSkuProperties;
+import com.ecommerce.io.CsvWriter;
+import com.ecommerce.io.ProductFileFormat;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.ProductExportService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Map;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ProductExportServiceImpl implements ProductExportService {
+
+    private static final String EXPORT_SQL = "SELECT p.id, p.name, p.description, p.price, p.stock_quantity, "
+            + "p.image_url, c.id, c.name, p.created_at, p.updated_at "
+            + "FROM products p JOIN categories c ON c.id = p.category_id ORDER BY p.id";
+
+    // Same column names the import reads, so an export can be edited and imported again
+    private static final String[] CSV_HEADER = {"id", "name", "description", "price", "stockQuantity", "imageUrl",
+            "categoryId", "category", "createdAt", "updatedAt"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ProductRepository productRepository;
+    private final HotSkuProperties hotSkuProperties;
+
+    @Value("${app.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${app.export.flush-every:1000}")
+    private int flushEvery;
+
+    @Override
+    public long exportProducts(OutputStream output, ProductFileFormat format) throws IOException {
+        long start = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        RowWriter rows = format == ProductFileFormat.CSV ? new CsvRows(writer) : new JsonRows(writer);
+        long[] written = {0};
+        // Stock as the catalog shows it, read up front for the few hot products instead of per row
+        Map<Long, Integer> leased = productRepository.findHotLeasedStock(hotSkuProperties.getProductIds());
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(EXPORT_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, resultSet -> {
+                try {
+                    rows.write(resultSet, resultSet.getInt(5) + leased.getOrDefault(resultSet.getLong(1), 0));
+                    // Periodic flushes keep data moving to the client instead of piling up in buffers
+                    if (++written[0] % flushEvery == 0) {
+                        rows.flush();
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            rows.finish();
+            rows.flush();
+        } catch (UncheckedIOException ex) {
+            // Usually the client went away; the cursor is closed by JdbcTemplate either way
+            throw ex.getCause();
+        }
+        log.info("Exported {} products as {} in {} ms", written[0], format, System.currentTimeMillis() - start);
+        return written[0];
+    }
+
+    private interface RowWriter {
+        void write(ResultSet resultSet, int stockQuantity) throws SQLException, IOException;
+
+        void finish() throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    private static final class CsvRows implements RowWriter {
+        private final Writer writer;
+        private final CsvWriter csv;
+        private boolean headerWritten;
+
+        CsvRows(Writer writer) {
+            this.writer = writer;
+            this.csv = new CsvWriter(writer);
+        }
+
+        @Override
+        public void write(ResultSet resultSet, int stockQuantity) throws SQLException, IOException {
+            writeHeader();
+            csv.record(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+                    resultSet.getBigDecimal(4).toPlainString(), stockQuantity, resultSet.getString(6),
+                    resultSet.getLong(7), resultSet.getString(8), timestamp(resultSet.getTimestamp(9)),
+                    timestamp(resultSet.getTimestamp(10)));
+        }
+
+        @Override
+        public void finish() throws IOException {
+            // An empty catalog still gets its header row
+            writeHeader();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        private void writeHeader() throws IOException {
+            if (!headerWritten) {
+                csv.record((Object[]) CSV_HEADER);
+                headerWritten = true;
+            }
+        }
+    }
+
+    private final class JsonRows implements RowWriter {
+        private final JsonGenerator generator;
+
+        JsonRows(Writer writer) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(ResultSet resultSet, int stockQuantity) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", resultSet.getLong(1));
+            generator.writeStringField("name", resultSet.getString(2));
+            generator.writeStringField("description", resultSet.getString(3));
+            generator.writeNumberField("price", resultSet.getBigDecimal(4));
+            generator.writeNumberField("stockQuantity", stockQuantity);
+            generator.writeStringField("imageUrl", resultSet.getString(6));
+            generator.writeNumberField("categoryId", resultSet.getLong(7));
+            generator.writeStringField("category", resultSet.getString(8));
+            generator.writeStringField("createdAt", timestamp(resultSet.getTimestamp(9)));
+            generator.writeStringField("updatedAt", timestamp(resultSet.getTimestamp(10)));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // Also flushes the writer underneath
+            generator.flush();
+        }
+    }
+
+    private static String timestamp(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime().toString();
+    }
+}
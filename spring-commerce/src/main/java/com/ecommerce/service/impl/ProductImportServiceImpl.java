@@ -0,0 +1,372 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.cache.CatalogChangeLog;
+import com.ecommerce.cache.CatalogVersions;
+import com.ecommerce.cache.ProductCacheInvalidator;
+import com.ecommerce.dto.request.ProductRequest;
+import com.ecommerce.dto.response.ImportReportResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.index.CatalogIndexer;
+import com.ecommerce.io.CsvReader;
+import com.ecommerce.io.ProductFileFormat;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.service.ProductImportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO products "
+            + "(name, description, price, stock_quantity, image_url, category_id, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    // Imported stock is the catalog figure, as exported, so units on the hot stock ledger stay out of the row
+    private static final String LEASED_SQL = "COALESCE((SELECT SUM(h.delta) FROM hot_stock_ledger h "
+            + "WHERE h.product_id = products.id), 0)";
+    private static final String UPDATE_SQL = "UPDATE products SET name = ?, description = ?, price = ?, "
+            + "stock_quantity = ? - " + LEASED_SQL + ", image_url = ?, category_id = ?, updated_at = ? "
+            + "WHERE id = ? AND ? >= " + LEASED_SQL;
+    private static final String EXISTS_SQL = "SELECT COUNT(*) FROM products WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepository categoryRepository;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final CatalogIndexer catalogIndexer;
+    private final ProductCacheInvalidator cacheInvalidator;
+    private final CatalogVersions catalogVersions;
+    private final ObjectProvider<CatalogChangeLog> changeLog;
+
+    @Value("${app.import.batch-size:1000}")
+    private int batchSize;
+
+    @Override
+    public ImportReportResponse importProducts(InputStream input, ProductFileFormat format) {
+        long start = System.currentTimeMillis();
+        ImportReportResponse report = new ImportReportResponse();
+        CategoryLookup categories = new CategoryLookup(categoryRepository.findAll());
+        List<Row> batch = new ArrayList<>(batchSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try {
+            RowSource source = format == ProductFileFormat.CSV
+                    ? new CsvRows(new CsvReader(reader))
+                    : new JsonRows(reader);
+            Map<String, String> fields;
+            while ((fields = source.next()) != null) {
+                report.setRowsRead(report.getRowsRead() + 1);
+                if (source.rowError() != null) {
+                    error(report, source.line(), source.rowError());
+                    continue;
+                }
+                Row row = toRow(source.line(), fields, categories, report);
+                if (row != null) {
+                    batch.add(row);
+                    if (batch.size() >= batchSize) {
+                        write(batch, report);
+                        batch.clear();
+                    }
+                }
+            }
+            write(batch, report);
+        } catch (IOException | UncheckedIOException ex) {
+            // Rows already written stay written; the report says how far the import got
+            log.warn("Product import aborted after {} rows: {}", report.getRowsRead(), ex.getMessage());
+            error(report, report.getRowsRead(), "Import aborted: " + ex.getMessage());
+        } finally {
+            if (report.getInserted() + report.getUpdated() > 0) {
+                refreshCatalogViews();
+            }
+        }
+
+        report.setDurationMs(System.currentTimeMillis() - start);
+        log.info("Imported products: {} read, {} inserted, {} updated, {} failed in {} ms", report.getRowsRead(),
+                report.getInserted(), report.getUpdated(), report.getFailed(), report.getDurationMs());
+        return report;
+    }
+
+    private Row toRow(long line, Map<String, String> fields, CategoryLookup categories, ImportReportResponse report) {
+        try {
+            ProductRequest request = new ProductRequest();
+            request.setName(fields.get("name"));
+            request.setDescription(fields.get("description"));
+            request.setImageUrl(StringUtils.hasText(fields.get("imageurl")) ? fields.get("imageurl") : null);
+            if (StringUtils.hasText(fields.get("price"))) {
+                request.setPrice(new BigDecimal(fields.get("price").trim()));
+            }
+            if (StringUtils.hasText(fields.get("stockquantity"))) {
+                request.setStockQuantity(Integer.parseInt(fields.get("stockquantity").trim()));
+            }
+            request.setCategoryId(categories.resolve(fields.get("categoryid"), fields.get("category")));
+
+            Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                error(report, line, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return null;
+            }
+            Long id = StringUtils.hasText(fields.get("id")) ? Long.parseLong(fields.get("id").trim()) : null;
+            return new Row(line, id, request);
+        } catch (NumberFormatException ex) {
+            error(report, line, "Invalid number: " + ex.getMessage());
+        } catch (BadRequestException ex) {
+            error(report, line, ex.getMessage());
+        }
+        return null;
+    }
+
+    private void write(List<Row> batch, ImportReportResponse report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeBatch(batch, report));
+        } catch (DataAccessException ex) {
+            // One bad row fails the whole JDBC batch; replay it row by row to find which
+            log.debug("Import batch failed, retrying rows individually: {}", ex.getMessage());
+            for (Row row : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> writeBatch(List.of(row), report));
+                } catch (DataAccessException rowEx) {
+                    error(report, row.line(), "Database rejected row: " + rowEx.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private void writeBatch(List<Row> rows, ImportReportResponse report) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> inserts = new ArrayList<>();
+        List<Row> updateRows = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        for (Row row : rows) {
+            ProductRequest p = row.request();
+            if (row.id() == null) {
+                inserts.add(new Object[]{p.getName(), p.getDescription(), p.getPrice(), p.getStockQuantity(),
+                        p.getImageUrl(), p.getCategoryId(), now, now});
+            } else {
+                updateRows.add(row);
+                updates.add(new Object[]{p.getName(), p.getDescription(), p.getPrice(), p.getStockQuantity(),
+                        p.getImageUrl(), p.getCategoryId(), now, row.id(), p.getStockQuantity()});
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        }
+        int[] counts = updates.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+
+        String[] rejections = new String[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                Long id = updateRows.get(i).id();
+                rejections[i] = jdbcTemplate.queryForObject(EXISTS_SQL, Integer.class, id) == 0
+                        ? "Unknown product id " + id
+                        : "Stock quantity is below the units leased to hot SKU counters";
+            }
+        }
+
+        // Counters are only touched once nothing in the batch can throw any more
+        long updated = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (rejections[i] != null) {
+                error(report, updateRows.get(i).line(), rejections[i]);
+            } else {
+                updated++;
+            }
+        }
+        report.setInserted(report.getInserted() + inserts.size());
+        report.setUpdated(report.getUpdated() + updated);
+    }
+
+    /**
+     * Same order as for single writes: indexes first, then caches, and only then new ETags.
+     * The first eviction keeps pre-import entries from being served under post-import tags.
+     */
+    private void refreshCatalogViews() {
+        cacheInvalidator.evictAll();
+        catalogIndexer.reindexAll();
+        cacheInvalidator.evictAll();
+        catalogVersions.catalogChanged();
+        // The batches bypassed the change events, so other nodes are told to rebuild everything
+        changeLog.ifAvailable(CatalogChangeLog::catalogReplaced);
+    }
+
+    private static void error(ImportReportResponse report, long line, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new ImportReportResponse.RowError(line, message));
+        }
+    }
+
+    private record Row(long line, Long id, ProductRequest request) {
+    }
+
+    /**
+     * Categories are loaded once per import and resolved by id or case-insensitive name.
+     */
+    private static final class CategoryLookup {
+        private final Set<Long> ids = new HashSet<>();
+        private final Map<String, Long> byName = new HashMap<>();
+
+        CategoryLookup(List<Category> categories) {
+            for (Category category : categories) {
+                ids.add(category.getId());
+                byName.put(category.getName().toLowerCase(Locale.ROOT), category.getId());
+            }
+        }
+
+        Long resolve(String id, String name) {
+            if (StringUtils.hasText(id)) {
+                Long categoryId = Long.parseLong(id.trim());
+                if (!ids.contains(categoryId)) {
+                    throw new BadRequestException("Unknown category id " + categoryId);
+                }
+                return categoryId;
+            }
+            if (StringUtils.hasText(name)) {
+                Long categoryId = byName.get(name.trim().toLowerCase(Locale.ROOT));
+                if (categoryId == null) {
+                    throw new BadRequestException("Unknown category " + name.trim());
+                }
+                return categoryId;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Rows as field maps keyed by lower-cased column name.
+     */
+    private interface RowSource {
+        Map<String, String> next() throws IOException;
+
+        long line();
+
+        /**
+         * Why the row just returned could not be read, or {@code null} if it could.
+         */
+        default String rowError() {
+            return null;
+        }
+    }
+
+    private static final class CsvRows implements RowSource {
+        private final CsvReader reader;
+        private List<String> header;
+
+        CsvRows(CsvReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            if (header == null) {
+                List<String> columns = reader.next();
+                if (columns == null) {
+                    return null;
+                }
+                header = columns.stream().map(column -> column.trim().toLowerCase(Locale.ROOT)).toList();
+            }
+            List<String> values = reader.next();
+            if (values == null) {
+                return null;
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < header.size() && i < values.size(); i++) {
+                fields.put(header.get(i), values.get(i));
+            }
+            return fields;
+        }
+
+        @Override
+        public long line() {
+            return reader.recordLine();
+        }
+    }
+
+    private final class JsonRows implements RowSource {
+        private final BufferedReader reader;
+        private long line;
+        private String rowError;
+
+        JsonRows(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+            Map<String, String> fields = new HashMap<>();
+            rowError = null;
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(text);
+            } catch (JsonProcessingException ex) {
+                rowError = "Invalid JSON: " + ex.getOriginalMessage();
+                return fields;
+            }
+            if (!node.isObject()) {
+                rowError = "Invalid JSON: expected an object, got " + node.getNodeType().name().toLowerCase(Locale.ROOT);
+                return fields;
+            }
+            node.fields().forEachRemaining(field -> fields.put(field.getKey().toLowerCase(Locale.ROOT),
+                    field.getValue().isNull() ? null : field.getValue().asText()));
+            return fields;
+        }
+
+        @Override
+        public long line() {
+            return line;
+        }
+
+        @Override
+        public String rowError() {
+            return rowError;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.config.ReservationProperties;
+import com.ecommerce.entity.Order;
+import com.ecommerce.entity.StockReservation;
+import com.ecommerce.enums.OrderStatus;
+import com.ecommerce.enums.ReservationStatus;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.StockReservationRepository;
+import com.ecommerce.service.InventoryService;
+import com.ecommerce.service.ReservationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReservationServiceImpl implements ReservationService {
+
+    private static final String INSERT_SQL = "INSERT INTO stock_reservations "
+            + "(order_id, product_id, quantity, status, expires_at, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+    // Conditional, so a payment committing the same hold at the same moment either wins or loses cleanly
+    private static final String RELEASE_SQL = "UPDATE stock_reservations SET status = 'RELEASED' "
+            + "WHERE id = ? AND status = 'HELD'";
+
+    private final StockReservationRepository reservationRepository;
+    private final OrderRepository orderRepository;
+    private final InventoryService inventoryService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReservationProperties properties;
+
+    @Override
+    @Transactional
+    public void placeHolds(Order order, Map<Long, Integer> quantities) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp createdAt = Timestamp.valueOf(now);
+        Timestamp expiresAt = Timestamp.valueOf(now.plus(properties.getTtl()));
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(quantities.entrySet());
+        jdbcTemplate.batchUpdate(INSERT_SQL, lines, lines.size(), (ps, line) -> {
+            ps.setLong(1, order.getId());
+            ps.setLong(2, line.getKey());
+            ps.setInt(3, line.getValue());
+            ps.setString(4, ReservationStatus.HELD.name());
+            ps.setTimestamp(5, expiresAt);
+            ps.setTimestamp(6, createdAt);
+        });
+    }
+
+    @Override
+    @Transactional
+    public boolean commit(Order order) {
+        reservationRepository.transition(order.getId(), ReservationStatus.HELD, ReservationStatus.COMMITTED);
+        if (reservationRepository.findByOrderIdAndStatus(order.getId(), ReservationStatus.RELEASED).isEmpty()) {
+            return true;
+        }
+        // Paid after the holds ran out, or a sweep released some of them while this ran: the order is
+        // cancelled, so whatever was just committed goes back as well rather than being sold to it
+        returnCommitted(order);
+        return false;
+    }
+
+    @Override
+    @Transactional
+    public void release(Order order) {
+        releaseHolds(reservationRepository.findByOrderIdAndStatus(order.getId(), ReservationStatus.HELD));
+    }
+
+    @Override
+    @Transactional
+    public void returnCommitted(Order order) {
+        List<StockReservation> committed = reservationRepository.findByOrderIdAndStatus(order.getId(),
+                ReservationStatus.COMMITTED);
+        reservationRepository.transition(order.getId(), ReservationStatus.COMMITTED, ReservationStatus.RELEASED);
+        Map<Long, Integer> quantities = quantities(committed);
+        inventoryService.restoreStock(quantities);
+        inventoryService.publishStockChanges(quantities);
+    }
+
+    @Override
+    @Transactional
+    public int releaseExpired() {
+        List<StockReservation> expired = reservationRepository.findByStatusAndExpiresAtBeforeOrderByIdAsc(
+                ReservationStatus.HELD, LocalDateTime.now(), PageRequest.of(0, properties.getSweepBatchSize()));
+        List<StockReservation> released = releaseHolds(expired);
+
+        Set<Long> orderIds = new LinkedHashSet<>();
+        released.forEach(reservation -> orderIds.add(reservation.getOrderId()));
+        if (!orderIds.isEmpty()) {
+            int cancelled = orderRepository.transitionAll(orderIds, OrderStatus.PENDING, OrderStatus.CANCELLED,
+                    LocalDateTime.now());
+            log.info("Released {} expired stock holds, cancelled {} unpaid orders", released.size(), cancelled);
+        }
+        return expired.size();
+    }
+
+    /**
+     * Releases the holds in one batch of conditional updates and returns the stock of those that
+     * were still held, also in one batch.
+     */
+    private List<StockReservation> releaseHolds(List<StockReservation> holds) {
+        if (holds.isEmpty()) {
+            return List.of();
+        }
+        int[] counts = jdbcTemplate.batchUpdate(RELEASE_SQL, holds, holds.size(),
+                (ps, reservation) -> ps.setLong(1, reservation.getId()))[0];
+        List<StockReservation> released = new ArrayList<>(holds.size());
+        for (int i = 0; i < holds.size(); i++) {
+            if (counts[i] > 0) {
+                released.add(holds.get(i));
+            }
+        }
+        Map<Long, Integer> quantities = quantities(released);
+        inventoryService.restoreStock(quantities);
+        inventoryService.publishStockChanges(quantities);
+        return released;
+    }
+
+    private static Map<Long, Integer> quantities(List<StockReservation> reservations) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        reservations.forEach(reservation ->
+                quantities.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum));
+        return quantities;
+    }
+}
@@ -0,0 +1,36 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.config.ReservationProperties;
+import com.ecommerce.service.ReservationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically releases expired stock holds, one batch per transaction until none are left.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ReservationSweeper implements SchedulingConfigurer {
+
+    private final ReservationService reservationService;
+    private final ReservationProperties properties;
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(this::sweep, properties.getSweepInterval());
+    }
+
+    public void sweep() {
+        try {
+            while (reservationService.releaseExpired() >= properties.getSweepBatchSize()) {
+                // Full batch, more may be waiting
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Releasing expired stock holds failed: {}", ex.getMessage());
+        }
+    }
+}
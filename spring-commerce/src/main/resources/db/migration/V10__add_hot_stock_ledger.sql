@@ -0,0 +1,12 @@
+CREATE TABLE hot_stock_ledger (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    node_id VARCHAR(64) NOT NULL,
+    entry_type VARCHAR(16) NOT NULL,
+    delta INT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (product_id) REFERENCES products(id)
+);
+
+-- A node recovers its counters by summing its own entries per product
+CREATE INDEX idx_hot_stock_ledger_node_product ON hot_stock_ledger(node_id, product_id, id);
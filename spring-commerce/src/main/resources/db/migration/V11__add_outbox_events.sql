@@ -0,0 +1,16 @@
+CREATE TABLE outbox_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_id VARCHAR(36) NOT NULL,
+    event_type VARCHAR(32) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    attempts INT NOT NULL,
+    next_attempt_at TIMESTAMP NOT NULL,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL,
+    delivered_at TIMESTAMP NULL,
+    CONSTRAINT uk_outbox_events_event_id UNIQUE (event_id)
+);
+
+-- The dispatcher polls pending events that are due
+CREATE INDEX idx_outbox_events_status_next ON outbox_events(status, next_attempt_at);
@@ -0,0 +1,13 @@
+-- Keys and request bodies are stored as SHA-256 hashes, so every row has the same small footprint
+CREATE TABLE idempotency_keys (
+    key_hash CHAR(64) PRIMARY KEY,
+    fingerprint CHAR(64) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    response_status INT,
+    content_type VARCHAR(100),
+    response_body BLOB,
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys(expires_at);
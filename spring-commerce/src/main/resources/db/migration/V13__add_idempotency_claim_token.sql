@@ -0,0 +1,3 @@
+-- Identifies the request holding a claim, so one that outlived the claim timeout cannot finish or
+-- release the claim of the request that took it over
+ALTER TABLE idempotency_keys ADD COLUMN claim_token CHAR(36);
@@ -0,0 +1,9 @@
+-- Nodes selling hot SKUs. A node whose heartbeat goes stale is presumed dead and the others return
+-- its leased units to stock; instance_id tells a node that its registration was taken over.
+CREATE TABLE hot_sku_nodes (
+    node_id VARCHAR(64) PRIMARY KEY,
+    instance_id CHAR(36) NOT NULL,
+    heartbeat_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_hot_sku_nodes_heartbeat_at ON hot_sku_nodes(heartbeat_at);
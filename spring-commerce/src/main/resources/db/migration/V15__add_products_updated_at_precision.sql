@@ -0,0 +1,2 @@
+-- updated_at is the product's ETag version, so two writes within the same second must not share it
+ALTER TABLE products MODIFY updated_at TIMESTAMP(6) NOT NULL;
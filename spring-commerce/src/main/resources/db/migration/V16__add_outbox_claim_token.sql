@@ -0,0 +1,3 @@
+-- Identifies the worker holding a claim, so one that outlived the claim timeout cannot record its
+-- outcome over that of the worker that claimed the event after it
+ALTER TABLE outbox_events ADD COLUMN claim_token CHAR(36);
@@ -0,0 +1,3 @@
+-- Set by handlers in the transaction that performs the event's side effect, so a redelivered
+-- event whose side effect already happened is recognised and not performed again
+ALTER TABLE outbox_events ADD COLUMN handled_at TIMESTAMP NULL;
@@ -0,0 +1,3 @@
+-- BLOB holds 64 KB, and a response too large to store made the retry of an already placed order
+-- run again; MEDIUMBLOB holds 16 MB
+ALTER TABLE idempotency_keys MODIFY response_body MEDIUMBLOB;
@@ -0,0 +1,2 @@
+CREATE INDEX idx_products_category_price ON products(category_id, price);
+CREATE INDEX idx_products_created_at ON products(created_at);
@@ -0,0 +1,11 @@
+CREATE TABLE catalog_change_log (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entity_type VARCHAR(16) NOT NULL,
+    entity_id BIGINT,
+    payload TEXT,
+    node_id VARCHAR(64) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
+
+-- Retention sweeps delete by age
+CREATE INDEX idx_catalog_change_log_created_at ON catalog_change_log(created_at);
@@ -0,0 +1,15 @@
+CREATE TABLE stock_reservations (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    order_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (order_id) REFERENCES orders(id),
+    FOREIGN KEY (product_id) REFERENCES products(id)
+);
+
+-- The sweeper scans held reservations by expiry; payments look them up per order
+CREATE INDEX idx_stock_reservations_status_expires ON stock_reservations(status, expires_at);
+CREATE INDEX idx_stock_reservations_order_id ON stock_reservations(order_id);
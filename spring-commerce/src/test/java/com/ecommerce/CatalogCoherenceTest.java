@@ -0,0 +1,105 @@
+package com.ecommerce;
+
+import com.ecommerce.cache.CatalogChangePoller;
+import com.ecommerce.dto.request.CategoryRequest;
+import com.ecommerce.dto.request.ProductRequest;
+import com.ecommerce.dto.response.CategoryResponse;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.service.CategoryService;
+import com.ecommerce.service.ProductService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Two application contexts sharing one database, standing in for two nodes behind a load balancer.
+ */
+public class CatalogCoherenceTest {
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    public static void startNodes() {
+        String url = "jdbc:h2:mem:coherence-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;MODE=MySQL";
+        nodeA = start(url);
+        nodeB = start(url);
+    }
+
+    @AfterAll
+    public static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @Test
+    public void testWritesOnOneNodeReachTheOthersCaches() {
+        ProductService productsOnA = nodeA.getBean(ProductService.class);
+        ProductService productsOnB = nodeB.getBean(ProductService.class);
+        CatalogChangePoller pollerOnB = nodeB.getBean(CatalogChangePoller.class);
+
+        CategoryResponse category = nodeA.getBean(CategoryService.class).createCategory(categoryRequest());
+        ProductResponse product = productsOnA.createProduct(productRequest(category.getId(), "10.00"));
+        pollerOnB.poll();
+
+        // Warm node B's detail and listing entries
+        assertEquals(0, new BigDecimal("10.00").compareTo(productsOnB.getProductById(product.getId()).getPrice()));
+        assertEquals(1, productsOnB.getAllProducts(null, category.getId(), null, null, PageRequest.of(0, 10))
+                .getTotalElements());
+
+        productsOnA.updateProduct(product.getId(), productRequest(category.getId(), "12.50"));
+        productsOnA.createProduct(productRequest(category.getId(), "30.00"));
+
+        // Still cached on B until it reads the log
+        assertEquals(0, new BigDecimal("10.00").compareTo(productsOnB.getProductById(product.getId()).getPrice()));
+
+        pollerOnB.poll();
+        assertEquals(0, new BigDecimal("12.50").compareTo(productsOnB.getProductById(product.getId()).getPrice()));
+        assertEquals(2, productsOnB.getAllProducts(null, category.getId(), null, null, PageRequest.of(0, 10))
+                .getTotalElements());
+        // The price index on B was updated too, not just the caches
+        assertEquals(1, productsOnB.getAllProducts(null, category.getId(), new BigDecimal("12"),
+                new BigDecimal("13"), PageRequest.of(0, 10)).getTotalElements());
+
+        productsOnA.deleteProduct(product.getId());
+        pollerOnB.poll();
+        assertEquals(1, productsOnB.getAllProducts(null, category.getId(), null, null, PageRequest.of(0, 10))
+                .getTotalElements());
+    }
+
+    private static ConfigurableApplicationContext start(String url) {
+        return new SpringApplicationBuilder(SpringCommerceApplication.class).run(
+                "--spring.datasource.url=" + url,
+                // Both nodes own the schema; "update" keeps the second from dropping the first's tables
+                "--spring.jpa.hibernate.ddl-auto=update",
+                "--server.port=0",
+                "--app.coherence.enabled=true",
+                // Polled by hand below
+                "--app.coherence.poll-interval=1h");
+    }
+
+    private static CategoryRequest categoryRequest() {
+        CategoryRequest request = new CategoryRequest();
+        request.setName("Coherence " + UUID.randomUUID());
+        request.setDescription("Coherence");
+        return request;
+    }
+
+    private static ProductRequest productRequest(Long categoryId, String price) {
+        ProductRequest request = new ProductRequest();
+        request.setName("Coherent Pads");
+        request.setDescription("Coherent Pads description");
+        request.setPrice(new BigDecimal(price));
+        request.setStockQuantity(10);
+        request.setCategoryId(categoryId);
+        return request;
+    }
+}
@@ -0,0 +1,150 @@
+package com.ecommerce;
+
+import com.ecommerce.dto.request.ProductRequest;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.service.InventoryService;
+import com.ecommerce.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.http-cache.listing-stock-staleness=2s")
+@AutoConfigureMockMvc
+public class CatalogETagTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void testProductDetailRevalidation() throws Exception {
+        Category category = saveCategory();
+        ProductResponse product = productService.createProduct(productRequest("ETag Bat", category));
+        String url = "/api/v1/products/" + product.getId();
+
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=30, public"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        ProductRequest update = productRequest("ETag Bat", category);
+        update.setStockQuantity(1);
+        productService.updateProduct(product.getId(), update);
+
+        String newEtag = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, newEtag);
+    }
+
+    @Test
+    public void testListingAndCategoryRevalidation() throws Exception {
+        Category category = saveCategory();
+        String listing = mockMvc.perform(get("/api/v1/products").param("categoryId", category.getId().toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        // Listings may lag behind stock counts, so their tag is weak
+        assertTrue(listing.startsWith("W/\""));
+        mockMvc.perform(get("/api/v1/products").param("categoryId", category.getId().toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, listing))
+                .andExpect(status().isNotModified());
+
+        productService.createProduct(productRequest("ETag Ball", category));
+        mockMvc.perform(get("/api/v1/products").param("categoryId", category.getId().toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, listing))
+                .andExpect(status().isOk());
+
+        String categories = mockMvc.perform(get("/api/v1/categories"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/v1/categories").header(HttpHeaders.IF_NONE_MATCH, categories))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=300, public"));
+    }
+
+    @Test
+    public void testSalesOnlyMoveTheListingTagOnceTheyChangeAvailabilityOrGetOld() throws Exception {
+        Category category = saveCategory();
+        ProductResponse product = productService.createProduct(productRequest("ETag Pads", category));
+        String listing = listingTag();
+
+        // An ordinary sale leaves the listing valid...
+        sell(product, 3);
+        mockMvc.perform(get("/api/v1/products").header(HttpHeaders.IF_NONE_MATCH, listing))
+                .andExpect(status().isNotModified());
+
+        // ...until its count has been left out for the configured staleness
+        Thread.sleep(2_100);
+        String afterStaleness = listingTag();
+        assertNotEquals(listing, afterStaleness);
+
+        // Selling out changes what listings filter and count, so it shows at once
+        sell(product, 7);
+        assertNotEquals(afterStaleness, listingTag());
+    }
+
+    private String listingTag() throws Exception {
+        return mockMvc.perform(get("/api/v1/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private void sell(ProductResponse product, int quantity) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            inventoryService.decrementStock(Map.of(product.getId(), quantity));
+            inventoryService.publishStockChanges(Map.of(product.getId(), -quantity));
+        });
+    }
+
+    private Category saveCategory() {
+        Category category = new Category();
+        category.setName("ETag " + UUID.randomUUID());
+        category.setDescription("ETag");
+        return categoryRepository.save(category);
+    }
+
+    private ProductRequest productRequest(String name, Category category) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setDescription(name + " description");
+        request.setPrice(new BigDecimal("49.99"));
+        request.setStockQuantity(10);
+        request.setCategoryId(category.getId());
+        return request;
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecommerce;
+
+import com.ecommerce.cache.ProductQueryKey;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.warmup.enabled=true",
+        "app.warmup.concurrency=2",
+        "management.endpoint.health.probes.enabled=true"
+})
+@AutoConfigureMockMvc
+public class CatalogWarmupTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ApplicationAvailability availability;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testCachesAreWarmBeforeTheNodeReportsReady() throws Exception {
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, availability.getReadinessState());
+
+        long categories = categoryRepository.count();
+        mockMvc.perform(get("/api/v1/admin/cache-warmup"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.state").value("COMPLETED"))
+                .andExpect(jsonPath("$.data.failedTasks").value(0))
+                .andExpect(jsonPath("$.data.categoriesLoaded").value(2))
+                .andExpect(jsonPath("$.data.productsLoaded").value((int) productRepository.count()))
+                .andExpect(jsonPath("$.data.listingPagesLoaded").value((int) categories + 1));
+
+        Cache products = cacheManager.getCache("products");
+        Long anyProduct = productRepository.findNewestIds(PageRequest.of(0, 1)).get(0);
+        assertNotNull(products.get("detail_" + anyProduct));
+        assertNotNull(products.get(ProductQueryKey.of(null, null, null, null, PageRequest.of(0, 10))));
+        assertNotNull(cacheManager.getCache("categories").get("all"));
+
+        mockMvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"));
+    }
+}
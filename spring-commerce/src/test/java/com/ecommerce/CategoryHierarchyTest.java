@@ -0,0 +1,85 @@
+package com.ecommerce;
+
+import com.ecommerce.dto.request.CategoryRequest;
+import com.ecommerce.dto.request.ProductRequest;
+import com.ecommerce.dto.response.CategoryResponse;
+import com.ecommerce.dto.response.CategoryTreeResponse;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.service.CategoryService;
+import com.ecommerce.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+public class CategoryHierarchyTest {
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    public void testCategoryFilterCoversSubcategories() {
+        String suffix = UUID.randomUUID().toString();
+        CategoryResponse sports = categoryService.createCategory(categoryRequest("Sports " + suffix, null));
+        CategoryResponse cricket = categoryService.createCategory(categoryRequest("Cricket " + suffix, sports.getId()));
+        CategoryResponse bats = categoryService.createCategory(categoryRequest("Bats " + suffix, cricket.getId()));
+
+        productService.createProduct(productRequest("Hierarchy Cap", "15.00", sports.getId()));
+        productService.createProduct(productRequest("Hierarchy Ball", "25.00", cricket.getId()));
+        productService.createProduct(productRequest("Hierarchy Bat", "95.00", bats.getId()));
+
+        assertEquals(List.of("Hierarchy Cap", "Hierarchy Ball", "Hierarchy Bat"), names(
+                productService.getAllProducts(null, sports.getId(), null, null, PageRequest.of(0, 10)).getContent()));
+        assertEquals(List.of("Hierarchy Bat", "Hierarchy Ball"), names(productService.getAllProducts(null,
+                cricket.getId(), null, null, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "price")))
+                .getContent()));
+        assertEquals(List.of("Hierarchy Bat"), names(productService.getAllProducts("hierarchy", cricket.getId(),
+                new BigDecimal("50"), null, PageRequest.of(0, 10)).getContent()));
+        assertEquals(1, productService.getAllProducts(null, bats.getId(), null, null, PageRequest.of(0, 10))
+                .getTotalElements());
+
+        // A product added under a subcategory evicts the cached parent listing
+        productService.createProduct(productRequest("Hierarchy Pads", "30.00", bats.getId()));
+        assertEquals(4, productService.getAllProducts(null, sports.getId(), null, null, PageRequest.of(0, 10))
+                .getTotalElements());
+
+        CategoryTreeResponse root = categoryService.getCategoryTree().stream()
+                .filter(node -> node.getId().equals(sports.getId()))
+                .findFirst().orElseThrow();
+        assertEquals(cricket.getId(), root.getChildren().get(0).getId());
+        assertEquals(bats.getId(), root.getChildren().get(0).getChildren().get(0).getId());
+    }
+
+    private static List<String> names(List<ProductResponse> products) {
+        return products.stream().map(ProductResponse::getName).toList();
+    }
+
+    private CategoryRequest categoryRequest(String name, Long parentId) {
+        CategoryRequest request = new CategoryRequest();
+        request.setName(name);
+        request.setDescription(name);
+        request.setParentId(parentId);
+        return request;
+    }
+
+    private ProductRequest productRequest(String name, String price, Long categoryId) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setDescription(name + " description");
+        request.setPrice(new BigDecimal(price));
+        request.setStockQuantity(5);
+        request.setCategoryId(categoryId);
+        return request;
+    }
+}
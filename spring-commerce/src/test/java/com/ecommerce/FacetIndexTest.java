@@ -0,0 +1,84 @@
+package com.ecommerce;
+
+import com.ecommerce.event.ProductSnapshot;
+import com.ecommerce.index.FacetCounts;
+import com.ecommerce.index.FacetIndex;
+import com.ecommerce.index.SearchFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FacetIndexTest {
+
+    private FacetIndex index;
+
+    @BeforeEach
+    public void setup() {
+        index = new FacetIndex(List.of(new BigDecimal("50"), new BigDecimal("100")));
+        index.rebuild(List.of(
+                product(1L, "20.00", 5, 10L, "Bats"),
+                product(2L, "50.00", 0, 10L, "Bats"),
+                product(3L, "75.00", 3, 20L, "Pads"),
+                product(4L, "150.00", 1, 20L, "Pads"),
+                product(5L, "30.00", 2, 30L, "Apparel")));
+    }
+
+    @Test
+    public void testUnfilteredCounts() {
+        FacetCounts counts = index.count(null, SearchFilter.of(null, null, null));
+        assertEquals(Map.of(10L, 2L, 20L, 2L, 30L, 1L), categoryCounts(counts));
+        assertEquals(List.of(2L, 2L, 1L), bucketCounts(counts));
+        assertEquals(4, counts.inStock());
+        assertEquals(1, counts.outOfStock());
+    }
+
+    @Test
+    public void testEachFacetIgnoresItsOwnFilter() {
+        FacetCounts counts = index.count(null, SearchFilter.of(20L, null, new BigDecimal("100")));
+        // Categories are counted under the price filter only
+        assertEquals(Map.of(10L, 2L, 20L, 1L, 30L, 1L), categoryCounts(counts));
+        // Price buckets are counted under the category filter only
+        assertEquals(List.of(0L, 1L, 1L), bucketCounts(counts));
+        assertEquals(1, counts.inStock());
+        assertEquals(0, counts.outOfStock());
+
+        FacetCounts hits = index.count(new long[]{1L, 2L, 99L}, SearchFilter.of(null, null, null));
+        assertEquals(Map.of(10L, 2L), categoryCounts(hits));
+        assertEquals(1, hits.outOfStock());
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        index.upsert(product(2L, "50.00", 4, 30L, "Apparel"));
+        index.remove(4L);
+        index.upsert(product(6L, "10.00", 0, 40L, "Balls"));
+
+        FacetCounts counts = index.count(null, SearchFilter.of(null, null, null));
+        assertEquals(Map.of(10L, 1L, 20L, 1L, 30L, 2L, 40L, 1L), categoryCounts(counts));
+        assertEquals(List.of(3L, 2L, 0L), bucketCounts(counts));
+        assertEquals(4, counts.inStock());
+        // A filter that excludes nothing takes the scanning path and must agree with the maintained totals
+        assertEquals(counts, index.count(null, SearchFilter.of(null, BigDecimal.ZERO, null)));
+    }
+
+    private Map<Long, Long> categoryCounts(FacetCounts counts) {
+        return counts.categories().stream()
+                .collect(Collectors.toMap(FacetCounts.CategoryCount::categoryId, FacetCounts.CategoryCount::count));
+    }
+
+    private List<Long> bucketCounts(FacetCounts counts) {
+        return counts.priceBuckets().stream().map(FacetCounts.PriceBucketCount::count).toList();
+    }
+
+    private ProductSnapshot product(Long id, String price, int stock, Long categoryId, String categoryName) {
+        return new ProductSnapshot(id, "Product " + id, "", new BigDecimal(price), stock, categoryId, categoryName,
+                LocalDateTime.now());
+    }
+}
@@ -0,0 +1,155 @@
+package com.ecommerce;
+
+import com.ecommerce.config.HotSkuProperties;
+import com.ecommerce.dto.request.CartItemRequest;
+import com.ecommerce.dto.request.OrderRequest;
+import com.ecommerce.dto.response.OrderResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.User;
+import com.ecommerce.enums.UserRole;
+import com.ecommerce.inventory.HotSkuInventory;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.CartService;
+import com.ecommerce.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test: eight buyers placing one-unit orders for the same product through
+ * {@code OrderService.createOrder}, as the regular conditional-decrement path ({@code regularSku})
+ * and as a hot SKU selling from striped counters ({@code hotSku}). Each order is the whole checkout,
+ * cart and all, against H2. Run with {@code mvn test-compile exec:exec -Dexec.executable=java
+ * -Dexec.classpathScope=test "-Dexec.args=-cp %classpath com.ecommerce.HotSkuCheckoutBenchmark"};
+ * not part of the unit test run.
+ * <p>
+ * A single-fork run gave 355 ±235 orders/s for {@code hotSku} against 277 ±151 for {@code regularSku}:
+ * the error ranges overlap, so it showed no gain. The forks and iterations below are raised so a
+ * rerun can tell the two apart.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Threads(8)
+@Fork(5)
+public class HotSkuCheckoutBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private Long regularProductId;
+    private Long hotProductId;
+
+    @Setup
+    public void setup() {
+        // MockEmailService prints every confirmation, which would otherwise dominate the numbers
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        context = new SpringApplicationBuilder(SpringCommerceApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:hot-sku-" + UUID.randomUUID()
+                        + ";DB_CLOSE_DELAY=-1;MODE=MySQL;LOCK_TIMEOUT=10000",
+                "--server.port=0",
+                "--spring.jpa.properties.hibernate.generate_statistics=false",
+                "--logging.level.root=WARN",
+                "--app.hot-skus.lease-size=1000",
+                "--app.hot-skus.node-id=bench");
+
+        Category category = new Category();
+        category.setName("Flash sale");
+        category.setDescription("Flash sale");
+        category = context.getBean(CategoryRepository.class).save(category);
+        regularProductId = saveProduct(category, "Regular Console");
+        hotProductId = saveProduct(category, "Hot Console");
+        context.getBean(HotSkuProperties.class).getProductIds().add(hotProductId);
+        context.getBean(HotSkuInventory.class).enable(hotProductId);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Buyer {
+        CartService cartService;
+        OrderService orderService;
+        User user;
+        OrderRequest request;
+
+        @Setup(Level.Trial)
+        public void register(HotSkuCheckoutBenchmark benchmark) {
+            cartService = benchmark.context.getBean(CartService.class);
+            orderService = benchmark.context.getBean(OrderService.class);
+            user = benchmark.context.getBean(UserRepository.class).save(User.builder()
+                    .email("buyer-" + UUID.randomUUID() + "@example.com")
+                    .password("secret")
+                    .firstName("Flash")
+                    .lastName("Buyer")
+                    .role(UserRole.ROLE_USER)
+                    .build());
+            request = new OrderRequest();
+            request.setFullName("Flash Buyer");
+            request.setPhoneNumber("5550100");
+            request.setStreet("1 Pitch Lane");
+            request.setCity("Leeds");
+            request.setState("West Yorkshire");
+            request.setZipCode("LS1");
+            request.setCountry("UK");
+        }
+
+        OrderResponse checkout(Long productId) {
+            CartItemRequest item = new CartItemRequest();
+            item.setProductId(productId);
+            item.setQuantity(1);
+            cartService.addToCart(user, item);
+            return orderService.createOrder(user, request);
+        }
+    }
+
+    @Benchmark
+    public OrderResponse regularSku(Buyer buyer) {
+        return buyer.checkout(regularProductId);
+    }
+
+    @Benchmark
+    public OrderResponse hotSku(Buyer buyer) {
+        return buyer.checkout(hotProductId);
+    }
+
+    private Long saveProduct(Category category, String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription(name);
+        product.setPrice(new BigDecimal("499.00"));
+        product.setStockQuantity(Integer.MAX_VALUE);
+        product.setCategory(category);
+        return context.getBean(ProductRepository.class).save(product).getId();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HotSkuCheckoutBenchmark.class.getSimpleName()).build()).run();
+    }
+}
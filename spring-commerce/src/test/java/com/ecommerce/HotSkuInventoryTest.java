@@ -0,0 +1,393 @@
+package com.ecommerce;
+
+import com.ecommerce.cache.CatalogVersions;
+import com.ecommerce.config.HotSkuProperties;
+import com.ecommerce.dto.request.CartItemRequest;
+import com.ecommerce.dto.request.OrderRequest;
+import com.ecommerce.dto.request.ProductRequest;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.User;
+import com.ecommerce.enums.UserRole;
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.exception.InsufficientStockException;
+import com.ecommerce.inventory.HotSkuInventory;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.CartService;
+import com.ecommerce.service.InventoryService;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"app.hot-skus.lease-size=20", "app.hot-skus.stripes=4", "app.hot-skus.node-id=test-node"})
+public class HotSkuInventoryTest {
+
+    @Autowired
+    private HotSkuInventory hotSkuInventory;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private HotSkuProperties properties;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void testConcurrentCheckoutsSellExactlyTheStock() throws Exception {
+        ProductResponse product = productService.createProduct(productRequest(500));
+        enableHot(hotSkuInventory, product);
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            attempts.add(pool.submit(() -> buyOne(product)));
+        }
+        int sold = 0;
+        for (Future<Boolean> attempt : attempts) {
+            sold += attempt.get() ? 1 : 0;
+        }
+        pool.shutdown();
+
+        // Leases may still be landing; whatever did not sell is either in the row or in the counters
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (sold < 500 && System.currentTimeMillis() < deadline) {
+            if (buyOne(product)) {
+                sold++;
+            } else {
+                Thread.sleep(10);
+            }
+        }
+        assertEquals(500, sold);
+        assertFalse(buyOne(product));
+        assertEquals(0, stockOf(product));
+        assertEquals(0, hotSkuInventory.available(product.getId()));
+        assertEquals(0, ledgerBalance(product));
+    }
+
+    @Test
+    public void testLinesTheCountersCannotCoverFallBackToTheRow() throws Exception {
+        ProductResponse product = productService.createProduct(productRequest(30));
+        enableHot(hotSkuInventory, product);
+        awaitAvailable(product, 20);
+        assertEquals(10, stockOf(product));
+        // Listings still count the leased units
+        assertEquals(30, productService.getProductById(product.getId()).getStockQuantity());
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            assertTrue(hotSkuInventory.take(Map.of(product.getId(), 5)).isEmpty());
+            status.setRollbackOnly();
+        });
+        assertEquals(20, hotSkuInventory.available(product.getId()));
+        assertEquals(20, ledgerBalance(product));
+
+        // The cart counts the leased units as well as the row
+        String tag = catalogVersions.productTag(product.getId());
+        checkout(saveUser(), product, 15);
+        assertEquals(5, hotSkuInventory.available(product.getId()));
+        assertEquals(10, stockOf(product));
+        // The row and its updated_at are untouched, but the product page shows less stock
+        assertEquals(15, productService.getProductById(product.getId()).getStockQuantity());
+        assertNotEquals(tag, catalogVersions.productTag(product.getId()));
+
+        // Too many for the counters: taken from the row, which is too small for another lease
+        checkout(saveUser(), product, 8);
+        assertEquals(2, stockOf(product));
+        checkout(saveUser(), product, 5);
+        assertEquals(0, hotSkuInventory.available(product.getId()));
+
+        InsufficientStockException shortage = assertThrows(InsufficientStockException.class,
+                () -> checkout(saveUser(), product, 2, 3));
+        assertEquals("Hot Headphones", shortage.getShortages().get(0).getProductName());
+        assertEquals(2, stockOf(product));
+    }
+
+    @Test
+    public void testSavingAHotProductUnchangedKeepsItsStock() throws Exception {
+        ProductResponse product = productService.createProduct(productRequest(30));
+        enableHot(hotSkuInventory, product);
+        awaitAvailable(product, 20);
+
+        // An admin edit that only changes the price sends back the stock it just read
+        for (int i = 0; i < 2; i++) {
+            ProductResponse read = productService.getProductById(product.getId());
+            assertEquals(30, read.getStockQuantity());
+            ProductRequest edit = new ProductRequest();
+            edit.setName(read.getName());
+            edit.setDescription(read.getDescription());
+            edit.setPrice(read.getPrice().add(BigDecimal.ONE));
+            edit.setStockQuantity(read.getStockQuantity());
+            edit.setCategoryId(read.getCategoryId());
+            assertEquals(30, productService.updateProduct(product.getId(), edit).getStockQuantity());
+        }
+        assertEquals(30, productService.getProductById(product.getId()).getStockQuantity());
+        assertEquals(10, stockOf(product));
+        assertEquals(20, ledgerBalance(product));
+
+        // Less than the counters hold cannot be taken back out of the row
+        ProductRequest shrink = productRequest(5);
+        assertThrows(BadRequestException.class, () -> productService.updateProduct(product.getId(), shrink));
+        assertEquals(10, stockOf(product));
+    }
+
+    @Test
+    public void testCountersRecoverFromTheLedgerAfterARestart() throws Exception {
+        ProductResponse product = productService.createProduct(productRequest(100));
+        enableHot(hotSkuInventory, product);
+        awaitAvailable(product, 20);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < 4; i++) {
+            transaction.execute(status -> hotSkuInventory.take(Map.of(product.getId(), 2)));
+        }
+        assertEquals(12, hotSkuInventory.available(product.getId()));
+
+        // A node that stopped without returning its units, as after a crash
+        assertEquals(12, restartedNode(product).available(product.getId()));
+
+        hotSkuInventory.compact();
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM hot_stock_ledger WHERE product_id = ?",
+                Integer.class, product.getId()));
+        assertEquals(12, restartedNode(product).available(product.getId()));
+
+        // Going back to the regular path returns the unsold units to the product row
+        hotSkuInventory.disable(product.getId());
+        assertEquals(92, stockOf(product));
+        assertEquals(0, ledgerBalance(product));
+    }
+
+    @Test
+    public void testUnitsOfAStoppedNodeAreReturnedToStock() throws Exception {
+        ProductResponse product = productService.createProduct(productRequest(100));
+        HotSkuInventory other = new HotSkuInventory(nodeProperties("node-b"), inventoryService, jdbcTemplate,
+                transactionManager);
+        enableHot(other, product);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (other.available(product.getId()) != 20 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(80, stockOf(product));
+        // Units leased by another node are still in stock as far as carts are concerned
+        CartItemRequest item = new CartItemRequest();
+        item.setProductId(product.getId());
+        item.setQuantity(100);
+        cartService.addToCart(saveUser(), item);
+
+        // node-b stops heartbeating and the others take its units back
+        ageHeartbeat("node-b");
+        hotSkuInventory.reclaimDeadNodes();
+        assertEquals(100, stockOf(product));
+        assertEquals(0, ledgerBalance(product));
+        assertEquals(100, productService.getProductById(product.getId()).getStockQuantity());
+
+        // When it comes back it finds its registration gone and stops selling what it no longer holds
+        other.heartbeat();
+        assertEquals(0, other.available(product.getId()));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        assertEquals(Map.of(product.getId(), 1), transaction.execute(status -> other.take(Map.of(product.getId(), 1))));
+        other.stop();
+    }
+
+    @Test
+    public void testLedgerEntriesOfUnregisteredNodesAreReturnedToStock() {
+        ProductResponse product = productService.createProduct(productRequest(50));
+        jdbcTemplate.update("UPDATE products SET stock_quantity = stock_quantity - 10 WHERE id = ?", product.getId());
+        jdbcTemplate.update("INSERT INTO hot_stock_ledger (product_id, node_id, entry_type, delta, created_at) "
+                + "VALUES (?, 'decommissioned', 'LEASE', 10, CURRENT_TIMESTAMP)", product.getId());
+        // Not listed as hot, so the catalog leaves the ledger out until the units are back in the row
+        assertEquals(40, productService.getProductById(product.getId()).getStockQuantity());
+
+        hotSkuInventory.reclaimDeadNodes();
+        assertEquals(50, stockOf(product));
+        assertEquals(0, ledgerBalance(product));
+        assertEquals(50, productService.getProductById(product.getId()).getStockQuantity());
+    }
+
+    @Test
+    public void testNodeIdMustBeSetAndUnique() {
+        HotSkuProperties unnamed = nodeProperties(null);
+        unnamed.setProductIds(Set.of(1L));
+        assertThrows(IllegalStateException.class,
+                () -> new HotSkuInventory(unnamed, inventoryService, jdbcTemplate, transactionManager));
+
+        // test-node is registered and heartbeating, so a second node cannot claim its id
+        ProductResponse product = productService.createProduct(productRequest(10));
+        enableHot(hotSkuInventory, product);
+        HotSkuInventory twin = new HotSkuInventory(nodeProperties(properties.getNodeId()), inventoryService,
+                jdbcTemplate, transactionManager);
+        assertThrows(IllegalStateException.class, () -> twin.enable(product.getId()));
+        twin.stop();
+    }
+
+    /**
+     * Lists the product as hot, as {@code app.hot-skus.product-ids} would, so catalog reads count its
+     * ledger, then starts selling it from the node's counters.
+     */
+    private void enableHot(HotSkuInventory node, ProductResponse product) {
+        properties.getProductIds().add(product.getId());
+        node.enable(product.getId());
+    }
+
+        private boolean buyOne(ProductResponse product) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            transaction.executeWithoutResult(status -> {
+                Map<Long, Integer> missed = hotSkuInventory.take(Map.of(product.getId(), 1));
+                if (!missed.isEmpty()) {
+                    inventoryService.decrementStock(missed);
+                }
+            });
+            return true;
+        } catch (InsufficientStockException ex) {
+            return false;
+        }
+    }
+
+    private void awaitAvailable(ProductResponse product, long units) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (hotSkuInventory.available(product.getId()) != units && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(units, hotSkuInventory.available(product.getId()));
+    }
+
+    /**
+     * A second instance under this node's id, as after a crash. It can only register once the
+     * crashed run's heartbeat has gone stale; the id is handed back to the bean the same way.
+     */
+    private HotSkuInventory restartedNode(ProductResponse product) {
+        ageHeartbeat(properties.getNodeId());
+        HotSkuInventory node = new HotSkuInventory(properties, inventoryService, jdbcTemplate, transactionManager);
+        node.enable(product.getId());
+        // The bean finds itself taken over, drops its counters, then registers again and rebuilds them
+        ageHeartbeat(properties.getNodeId());
+        hotSkuInventory.heartbeat();
+        hotSkuInventory.heartbeat();
+        return node;
+    }
+
+    private void ageHeartbeat(String nodeId) {
+        jdbcTemplate.update("UPDATE hot_sku_nodes SET heartbeat_at = ? WHERE node_id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minus(properties.getNodeTimeout()).minusMinutes(1)), nodeId);
+    }
+
+    private HotSkuProperties nodeProperties(String nodeId) {
+        HotSkuProperties nodeProperties = new HotSkuProperties();
+        nodeProperties.setNodeId(nodeId);
+        nodeProperties.setLeaseSize(properties.getLeaseSize());
+        nodeProperties.setStripes(properties.getStripes());
+        return nodeProperties;
+    }
+
+    private void checkout(User user, ProductResponse product, int quantity) {
+        checkout(user, product, quantity, quantity);
+    }
+
+    /**
+     * Adds {@code inCart} units while the row still shows them, then orders {@code ordered}.
+     */
+    private void checkout(User user, ProductResponse product, int inCart, int ordered) {
+        CartItemRequest item = new CartItemRequest();
+        item.setProductId(product.getId());
+        item.setQuantity(inCart);
+        cartService.addToCart(user, item);
+        if (ordered != inCart) {
+            item.setQuantity(ordered - inCart);
+            cartService.addToCart(user, item);
+        }
+        orderService.createOrder(user, orderRequest());
+    }
+
+    private OrderRequest orderRequest() {
+        OrderRequest request = new OrderRequest();
+        request.setFullName("Test Buyer");
+        request.setPhoneNumber("5550100");
+        request.setStreet("1 Pitch Lane");
+        request.setCity("Leeds");
+        request.setState("West Yorkshire");
+        request.setZipCode("LS1");
+        request.setCountry("UK");
+        return request;
+    }
+
+    private int stockOf(ProductResponse product) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE id = ?", Integer.class,
+                product.getId());
+    }
+
+    private long ledgerBalance(ProductResponse product) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(delta), 0) FROM hot_stock_ledger WHERE product_id = ?",
+                Long.class, product.getId());
+    }
+
+    private User saveUser() {
+        return userRepository.save(User.builder()
+                .email("buyer-" + UUID.randomUUID() + "@example.com")
+                .password("secret")
+                .firstName("Test")
+                .lastName("Buyer")
+                .role(UserRole.ROLE_USER)
+                .build());
+    }
+
+    private ProductRequest productRequest(int stock) {
+        Category category = new Category();
+        category.setName("Hot SKUs " + UUID.randomUUID());
+        category.setDescription("Hot SKUs");
+        category = categoryRepository.save(category);
+
+        ProductRequest request = new ProductRequest();
+        request.setName("Hot Headphones");
+        request.setDescription("Hot Headphones description");
+        request.setPrice(new BigDecimal("59.00"));
+        request.setStockQuantity(stock);
+        request.setCategoryId(category.getId());
+        return request;
+    }
+}
@@ -0,0 +1,256 @@
+package com.ecommerce;
+
+import com.ecommerce.config.IdempotencyProperties;
+import com.ecommerce.dto.request.CartItemRequest;
+import com.ecommerce.dto.request.ProductRequest;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.User;
+import com.ecommerce.enums.UserRole;
+import com.ecommerce.idempotency.IdempotencyStore;
+import com.ecommerce.idempotency.StoredResponse;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.CartService;
+import com.ecommerce.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        // Nothing kept in memory, so replays are read back from the table
+        "app.idempotency.local-cache-size=0"})
+@AutoConfigureMockMvc
+public class IdempotencyTest {
+
+    private static final String ORDER_BODY = "{\"fullName\":\"Test Buyer\",\"phoneNumber\":\"5550100\","
+            + "\"street\":\"1 Pitch Lane\",\"city\":\"Leeds\",\"state\":\"West Yorkshire\","
+            + "\"zipCode\":\"LS1\",\"country\":\"UK\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private IdempotencyProperties idempotencyProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testRetriedOrderIsPlacedOnceAndReplayed() throws Exception {
+        ProductResponse product = saveProduct(5);
+        User user = saveUserWithCart(product, 2);
+        String key = UUID.randomUUID().toString();
+
+        MockHttpServletResponse first = mockMvc.perform(placeOrder(user, key, ORDER_BODY))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotency-Replayed"))
+                .andReturn().getResponse();
+        MockHttpServletResponse retry = mockMvc.perform(placeOrder(user, key, ORDER_BODY))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotency-Replayed", "true"))
+                .andReturn().getResponse();
+
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals(1, orderRepository.findByUserOrderByCreatedAtDesc(user).size());
+        assertEquals(3, productRepository.findById(product.getId()).orElseThrow().getStockQuantity());
+
+        // Same key, different request
+        mockMvc.perform(placeOrder(user, key, ORDER_BODY.replace("Leeds", "York")))
+                .andExpect(status().isUnprocessableEntity());
+        mockMvc.perform(placeOrder(user, " ", ORDER_BODY))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testConcurrentDuplicatesWaitForTheFirstAndShareItsResponse() throws Exception {
+        ProductResponse product = saveProduct(5);
+        User user = saveUserWithCart(product, 1);
+        String key = UUID.randomUUID().toString();
+
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MockHttpServletResponse>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(placeOrder(user, key, ORDER_BODY)).andReturn().getResponse();
+                }));
+            }
+            start.countDown();
+            Set<String> bodies = new HashSet<>();
+            int replayed = 0;
+            for (Future<MockHttpServletResponse> result : results) {
+                MockHttpServletResponse response = result.get();
+                assertEquals(200, response.getStatus());
+                bodies.add(response.getContentAsString());
+                if ("true".equals(response.getHeader("Idempotency-Replayed"))) {
+                    replayed++;
+                }
+            }
+            assertEquals(1, bodies.size());
+            assertEquals(threads - 1, replayed);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, orderRepository.findByUserOrderByCreatedAtDesc(user).size());
+        assertEquals(4, productRepository.findById(product.getId()).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    public void testRequestsWithoutAKeyAreNotDeduplicated() throws Exception {
+        ProductResponse product = saveProduct(5);
+        User user = saveUserWithCart(product, 1);
+
+        mockMvc.perform(placeOrder(user, null, ORDER_BODY))
+                .andExpect(status().isOk());
+        // The cart is empty now, so the second attempt really runs and fails
+        MockHttpServletResponse second = mockMvc.perform(placeOrder(user, null, ORDER_BODY))
+                .andReturn().getResponse();
+        assertEquals(400, second.getStatus());
+        assertNull(second.getHeader("Idempotency-Replayed"));
+    }
+
+    @Test
+    public void testStaleClaimCannotOverwriteTheRequestThatTookItOver() {
+        String keyHash = "a".repeat(48) + UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+        IdempotencyStore otherNode = new IdempotencyStore(idempotencyProperties, jdbcTemplate);
+
+        IdempotencyStore.Claim stale = idempotencyStore.begin(keyHash, "fingerprint");
+        assertTrue(stale.isExecute());
+        // The first request outlives its claim and another node takes the key over
+        jdbcTemplate.update("UPDATE idempotency_keys SET expires_at = ? WHERE key_hash = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)), keyHash);
+        IdempotencyStore.Claim current = otherNode.begin(keyHash, "fingerprint");
+        assertTrue(current.isExecute());
+
+        idempotencyStore.abandon(keyHash, stale);
+        idempotencyStore.complete(keyHash, stale, response("stale"));
+        otherNode.complete(keyHash, current, response("current"));
+
+        IdempotencyStore.Claim replay = new IdempotencyStore(idempotencyProperties, jdbcTemplate)
+                .begin(keyHash, "fingerprint");
+        assertEquals("current", new String(replay.response().body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testResponsesLargerThanABlobAreStored() {
+        String keyHash = "c".repeat(48) + UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+        String body = "x".repeat(100_000);
+        IdempotencyStore.Claim claim = idempotencyStore.begin(keyHash, "fingerprint");
+        idempotencyStore.complete(keyHash, claim, response(body));
+
+        IdempotencyStore.Claim replay = new IdempotencyStore(idempotencyProperties, jdbcTemplate)
+                .begin(keyHash, "fingerprint");
+        assertEquals(body, new String(replay.response().body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testFailedClaimDoesNotLeaveDuplicatesWaiting() {
+        // Longer than the key column, so the claim insert itself fails
+        String keyHash = "b".repeat(100);
+        assertThrows(DataAccessException.class, () -> idempotencyStore.begin(keyHash, "fingerprint"));
+
+        long started = System.nanoTime();
+        assertThrows(DataAccessException.class, () -> idempotencyStore.begin(keyHash, "fingerprint"));
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).compareTo(idempotencyProperties.getWaitTimeout()) < 0);
+    }
+
+    private StoredResponse response(String body) {
+        return new StoredResponse("fingerprint", 200, MediaType.TEXT_PLAIN_VALUE, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private MockHttpServletRequestBuilder placeOrder(User user, String key, String body) {
+        MockHttpServletRequestBuilder request = post("/api/v1/orders")
+                .with(user(user.getEmail()).roles("USER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body);
+        return key == null ? request : request.header("Idempotency-Key", key);
+    }
+
+    private ProductResponse saveProduct(int stock) {
+        Category category = new Category();
+        category.setName("Idempotency " + UUID.randomUUID());
+        category.setDescription("Idempotency");
+        category = categoryRepository.save(category);
+
+        ProductRequest request = new ProductRequest();
+        request.setName("Retried Bat");
+        request.setDescription("Retried Bat description");
+        request.setPrice(new BigDecimal("120.00"));
+        request.setStockQuantity(stock);
+        request.setCategoryId(category.getId());
+        return productService.createProduct(request);
+    }
+
+    private User saveUserWithCart(ProductResponse product, int quantity) {
+        User user = userRepository.save(User.builder()
+                .email("buyer-" + UUID.randomUUID() + "@example.com")
+                .password("secret")
+                .firstName("Test")
+                .lastName("Buyer")
+                .role(UserRole.ROLE_USER)
+                .build());
+        CartItemRequest item = new CartItemRequest();
+        item.setProductId(product.getId());
+        item.setQuantity(quantity);
+        cartService.addToCart(user, item);
+        return user;
+    }
+}
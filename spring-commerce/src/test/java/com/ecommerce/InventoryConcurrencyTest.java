@@ -0,0 +1,126 @@
+package com.ecommerce;
+
+import com.ecommerce.dto.request.ProductRequest;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.dto.response.StockShortageResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.exception.InsufficientStockException;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.InventoryService;
+import com.ecommerce.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+public class InventoryConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    public void testConcurrentCheckoutsNeverOversell() throws Exception {
+        Category category = saveCategory();
+        ProductResponse hot = productService.createProduct(productRequest("Hot SKU", 60, category));
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    try {
+                        inventoryService.decrementStock(Map.of(hot.getId(), 1));
+                        sold.incrementAndGet();
+                    } catch (InsufficientStockException ex) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+
+        assertEquals(60, sold.get());
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD - 60, rejected.get());
+        assertEquals(0, productRepository.findById(hot.getId()).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    public void testEveryShortLineIsReportedAndNothingIsTaken() {
+        Category category = saveCategory();
+        ProductResponse plenty = productService.createProduct(productRequest("Plenty", 5, category));
+        ProductResponse few = productService.createProduct(productRequest("Few", 1, category));
+        ProductResponse none = productService.createProduct(productRequest("None", 0, category));
+
+        Map<Long, Integer> order = new LinkedHashMap<>();
+        order.put(plenty.getId(), 2);
+        order.put(few.getId(), 3);
+        order.put(none.getId(), 1);
+        InsufficientStockException ex = assertThrows(InsufficientStockException.class,
+                () -> inventoryService.decrementStock(order));
+
+        assertEquals("Insufficient stock for 2 products", ex.getMessage());
+        assertEquals(List.of(
+                new StockShortageResponse(few.getId(), "Few", 3, 1),
+                new StockShortageResponse(none.getId(), "None", 1, 0)), ex.getShortages());
+        assertEquals(5, productRepository.findById(plenty.getId()).orElseThrow().getStockQuantity());
+
+        Map<Long, InventoryService.StockLevel> left = inventoryService.decrementStock(
+                Map.of(plenty.getId(), 2, few.getId(), 1));
+        assertEquals(3, left.get(plenty.getId()).stockQuantity());
+        assertEquals(0, left.get(few.getId()).stockQuantity());
+    }
+
+    private Category saveCategory() {
+        Category category = new Category();
+        category.setName("Inventory " + UUID.randomUUID());
+        category.setDescription("Inventory");
+        return categoryRepository.save(category);
+    }
+
+    private ProductRequest productRequest(String name, int stock, Category category) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setDescription(name + " description");
+        request.setPrice(new BigDecimal("15.00"));
+        request.setStockQuantity(stock);
+        request.setCategoryId(category.getId());
+        return request;
+    }
+}
@@ -0,0 +1,313 @@
+package com.ecommerce;
+
+import com.ecommerce.dto.request.CartItemRequest;
+import com.ecommerce.dto.request.OrderRequest;
+import com.ecommerce.dto.request.ProductRequest;
+import com.ecommerce.dto.response.OrderResponse;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Order;
+import com.ecommerce.entity.OutboxEvent;
+import com.ecommerce.entity.User;
+import com.ecommerce.enums.OrderStatus;
+import com.ecommerce.enums.OutboxEventType;
+import com.ecommerce.enums.OutboxStatus;
+import com.ecommerce.enums.UserRole;
+import com.ecommerce.outbox.OutboxDispatcher;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.OutboxEventRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.AdminService;
+import com.ecommerce.service.CartService;
+import com.ecommerce.service.EmailService;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.PaymentService;
+import com.ecommerce.service.ProductService;
+import com.stripe.model.Refund;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.RefundCreateParams;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {
+        // Polled by hand below
+        "app.outbox.poll-interval=1h",
+        "app.outbox.max-attempts=2",
+        "app.outbox.initial-backoff=1h"})
+public class OutboxTest {
+
+    @MockBean
+    private EmailService emailService;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testOrderEventsAreDeliveredAfterCommitOncePerOccurrence() throws InterruptedException {
+        OrderResponse order = checkout();
+
+        verify(emailService, never()).sendOrderConfirmation(any(), any());
+        assertEquals(OutboxStatus.PENDING, event(order, OutboxEventType.ORDER_PLACED).getStatus());
+
+        outboxDispatcher.poll();
+        awaitStatus(order, OutboxEventType.ORDER_PLACED, OutboxStatus.DELIVERED);
+        verify(emailService, times(1)).sendOrderConfirmation(any(), any());
+
+        // Confirmed by the client and again by the webhook; shipped twice by an admin
+        paymentService.markPaid(order.getId(), "pi_mock_" + order.getId());
+        paymentService.markPaid(order.getId(), "pi_mock_" + order.getId());
+        orderService.updateOrderStatus(order.getId(), "SHIPPED");
+        orderService.updateOrderStatus(order.getId(), "SHIPPED");
+        assertEquals(1, outboxEventRepository.findByAggregateIdAndEventType(order.getId(),
+                OutboxEventType.PAYMENT_SUCCEEDED).size());
+        assertEquals(1, outboxEventRepository.findByAggregateIdAndEventType(order.getId(),
+                OutboxEventType.ORDER_SHIPPED).size());
+
+        outboxDispatcher.poll();
+        awaitStatus(order, OutboxEventType.PAYMENT_SUCCEEDED, OutboxStatus.DELIVERED);
+        awaitStatus(order, OutboxEventType.ORDER_SHIPPED, OutboxStatus.DELIVERED);
+        verify(emailService, times(1)).sendPaymentReceived(any(), any());
+        verify(emailService, times(1)).sendOrderShipped(any(), any());
+    }
+
+    @Test
+    public void testRedeliveredNotificationIsNotSentAgain() throws InterruptedException {
+        OrderResponse order = checkout();
+        outboxDispatcher.poll();
+        awaitStatus(order, OutboxEventType.ORDER_PLACED, OutboxStatus.DELIVERED);
+
+        // As if recording the delivery had failed after the email went out
+        OutboxEvent delivered = event(order, OutboxEventType.ORDER_PLACED);
+        jdbcTemplate.update("UPDATE outbox_events SET status = 'PENDING', delivered_at = NULL WHERE id = ?",
+                delivered.getId());
+        makeDue(delivered);
+        outboxDispatcher.poll();
+        awaitStatus(order, OutboxEventType.ORDER_PLACED, OutboxStatus.DELIVERED);
+        verify(emailService, times(1)).sendOrderConfirmation(any(),
+                argThat((Order confirmed) -> confirmed.getId().equals(order.getId())));
+    }
+
+    @Test
+    public void testFailedDeliveriesBackOffThenGoDeadUntilRequeued() throws InterruptedException {
+        doThrow(new IllegalStateException("SMTP unavailable")).when(emailService).sendOrderConfirmation(any(), any());
+        OrderResponse order = checkout();
+
+        outboxDispatcher.poll();
+        OutboxEvent failed = awaitAttempts(order, 1);
+        assertEquals(OutboxStatus.PENDING, failed.getStatus());
+        assertTrue(failed.getLastError().contains("SMTP unavailable"));
+        assertTrue(failed.getNextAttemptAt().isAfter(LocalDateTime.now().plusMinutes(10)));
+
+        // Not due yet, so the next poll leaves it alone
+        outboxDispatcher.poll();
+        Thread.sleep(100);
+        assertEquals(1, event(order, OutboxEventType.ORDER_PLACED).getAttempts());
+
+        makeDue(failed);
+        outboxDispatcher.poll();
+        awaitStatus(order, OutboxEventType.ORDER_PLACED, OutboxStatus.DEAD);
+        assertEquals(2, event(order, OutboxEventType.ORDER_PLACED).getAttempts());
+
+        doNothing().when(emailService).sendOrderConfirmation(any(), any());
+        assertTrue(adminService.requeueDeadOutboxEvents() >= 1);
+        outboxDispatcher.poll();
+        awaitStatus(order, OutboxEventType.ORDER_PLACED, OutboxStatus.DELIVERED);
+        verify(emailService, times(3)).sendOrderConfirmation(any(), any());
+    }
+
+    @Test
+    public void testWorkerThatLostItsClaimLeavesTheOutcomeAlone() throws InterruptedException {
+        OrderResponse order = checkout();
+        CountDownLatch handled = new CountDownLatch(1);
+        // Still sending when its claim times out and another node claims the event
+        doAnswer(invocation -> {
+            jdbcTemplate.update("UPDATE outbox_events SET claim_token = ? WHERE aggregate_id = ? AND event_type = ?",
+                    UUID.randomUUID().toString(), order.getId(), OutboxEventType.ORDER_PLACED.name());
+            handled.countDown();
+            return null;
+        }).when(emailService).sendOrderConfirmation(any(), any());
+
+        outboxDispatcher.poll();
+        assertTrue(handled.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        OutboxEvent event = event(order, OutboxEventType.ORDER_PLACED);
+        assertEquals(OutboxStatus.PENDING, event.getStatus());
+        assertEquals(0, event.getAttempts());
+
+        // Not under test beyond this point, and would land in other tests' polls
+        jdbcTemplate.update("UPDATE outbox_events SET status = 'DELIVERED' WHERE aggregate_id = ?", order.getId());
+    }
+
+    @Test
+    public void testPaymentsForCancelledOrdersAreRefundedThenAnnounced() throws InterruptedException {
+        OrderResponse order = checkout();
+        orderService.updateOrderStatus(order.getId(), "CANCELLED");
+        assertEquals(OrderStatus.REFUND_PENDING,
+                paymentService.markPaid(order.getId(), "pi_mock_" + order.getId()).getStatus());
+
+        // A demo payment is refunded without calling Stripe
+        outboxDispatcher.poll();
+        awaitStatus(order, OutboxEventType.PAYMENT_REFUND_REQUIRED, OutboxStatus.DELIVERED);
+        assertEquals(OrderStatus.REFUNDED, orderRepository.findById(order.getId()).orElseThrow().getStatus());
+        verify(emailService, never()).sendRefundIssued(any(), any());
+
+        outboxDispatcher.poll();
+        awaitStatus(order, OutboxEventType.PAYMENT_REFUNDED, OutboxStatus.DELIVERED);
+        verify(emailService, times(1)).sendRefundIssued(any(),
+                argThat((Order refunded) -> refunded.getId().equals(order.getId())));
+    }
+
+    @Test
+    public void testStripeRefundsUseTheEventIdAsIdempotencyKey() throws Exception {
+        OrderResponse order = checkout();
+        orderService.updateOrderStatus(order.getId(), "CANCELLED");
+        paymentService.markPaid(order.getId(), "pi_live_" + order.getId());
+        OutboxEvent refundRequired = event(order, OutboxEventType.PAYMENT_REFUND_REQUIRED);
+        String eventId = refundRequired.getEventId();
+        // Refunded by hand below, where Stripe is stubbed, so the dispatcher must not get to it first
+        jdbcTemplate.update("UPDATE outbox_events SET next_attempt_at = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().plusDays(1)), refundRequired.getId());
+
+        try (MockedStatic<Refund> refunds = mockStatic(Refund.class)) {
+            Refund refund = new Refund();
+            refund.setId("re_" + order.getId());
+            refunds.when(() -> Refund.create(any(RefundCreateParams.class), any(RequestOptions.class)))
+                    .thenReturn(refund);
+
+            paymentService.refund(order.getId(), eventId);
+            // Redelivered after the refund committed: nothing is left to refund
+            paymentService.refund(order.getId(), eventId);
+
+            refunds.verify(() -> Refund.create(
+                    argThat((RefundCreateParams params) -> ("pi_live_" + order.getId()).equals(params.getPaymentIntent())),
+                    argThat((RequestOptions options) -> eventId.equals(options.getIdempotencyKey()))), times(1));
+        }
+        assertEquals(OrderStatus.REFUNDED, orderRepository.findById(order.getId()).orElseThrow().getStatus());
+
+        // The order's other events are not under test here and would land in other tests' polls
+        jdbcTemplate.update("UPDATE outbox_events SET status = 'DELIVERED' WHERE aggregate_id = ?", order.getId());
+    }
+
+    private OutboxEvent event(OrderResponse order, OutboxEventType type) {
+        List<OutboxEvent> events = outboxEventRepository.findByAggregateIdAndEventType(order.getId(), type);
+        assertEquals(1, events.size());
+        return events.get(0);
+    }
+
+    private void awaitStatus(OrderResponse order, OutboxEventType type, OutboxStatus status)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (event(order, type).getStatus() != status && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(status, event(order, type).getStatus());
+    }
+
+    private OutboxEvent awaitAttempts(OrderResponse order, int attempts) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (event(order, OutboxEventType.ORDER_PLACED).getAttempts() < attempts
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        OutboxEvent event = event(order, OutboxEventType.ORDER_PLACED);
+        assertEquals(attempts, event.getAttempts());
+        return event;
+    }
+
+    private void makeDue(OutboxEvent event) {
+        jdbcTemplate.update("UPDATE outbox_events SET next_attempt_at = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)), event.getId());
+    }
+
+    private OrderResponse checkout() {
+        Category category = new Category();
+        category.setName("Outbox " + UUID.randomUUID());
+        category.setDescription("Outbox");
+        category = categoryRepository.save(category);
+
+        ProductRequest productRequest = new ProductRequest();
+        productRequest.setName("Boxed Bat");
+        productRequest.setDescription("Boxed Bat description");
+        productRequest.setPrice(new BigDecimal("120.00"));
+        productRequest.setStockQuantity(5);
+        productRequest.setCategoryId(category.getId());
+        ProductResponse product = productService.createProduct(productRequest);
+
+        User user = userRepository.save(User.builder()
+                .email("buyer-" + UUID.randomUUID() + "@example.com")
+                .password("secret")
+                .firstName("Test")
+                .lastName("Buyer")
+                .role(UserRole.ROLE_USER)
+                .build());
+        CartItemRequest item = new CartItemRequest();
+        item.setProductId(product.getId());
+        item.setQuantity(1);
+        cartService.addToCart(user, item);
+
+        OrderRequest request = new OrderRequest();
+        request.setFullName("Test Buyer");
+        request.setPhoneNumber("5550100");
+        request.setStreet("1 Pitch Lane");
+        request.setCity("Leeds");
+        request.setState("West Yorkshire");
+        request.setZipCode("LS1");
+        request.setCountry("UK");
+        return orderService.createOrder(user, request);
+    }
+}
@@ -0,0 +1,80 @@
+package com.ecommerce;
+
+import com.ecommerce.event.ProductSnapshot;
+import com.ecommerce.index.PriceIndex;
+import com.ecommerce.index.SearchFilter;
+import com.ecommerce.index.SearchPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PriceIndexTest {
+
+    private PriceIndex index;
+
+    @BeforeEach
+    public void setup() {
+        index = new PriceIndex();
+        index.rebuild(List.of(
+                product(1L, "350.00", 10L),
+                product(2L, "35.00", 10L),
+                product(3L, "75.00", 20L),
+                product(4L, "35.00", 20L),
+                product(5L, "120.50", 10L)));
+    }
+
+    @Test
+    public void testRangesAndOrdering() {
+        SearchPage ascending = index.page(SearchFilter.of(null, null, null), false, 0, 10);
+        assertEquals(List.of(2L, 4L, 3L, 5L, 1L), ascending.productIds());
+        assertEquals(5, ascending.totalHits());
+
+        SearchPage descending = index.page(SearchFilter.of(10L, null, null), true, 0, 2);
+        assertEquals(List.of(1L, 5L), descending.productIds());
+        assertEquals(3, descending.totalHits());
+
+        SearchPage range = index.page(SearchFilter.of(null, new BigDecimal("35"), new BigDecimal("120.50")), false, 1, 10);
+        assertEquals(List.of(4L, 3L, 5L), range.productIds());
+        assertEquals(4, range.totalHits());
+
+        assertEquals(0, index.page(SearchFilter.of(99L, null, null), false, 0, 10).totalHits());
+
+        // Bounds beyond what cents can hold are clamped
+        assertEquals(0, index.page(SearchFilter.of(null, new BigDecimal("1e20"), null), false, 0, 10).totalHits());
+        assertEquals(5, index.page(SearchFilter.of(null, new BigDecimal("-1e20"), new BigDecimal("1e20")), false, 0, 10)
+                .totalHits());
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        index.upsert(product(2L, "500.00", 20L));
+        index.remove(1L);
+        index.upsert(product(6L, "1.00", 10L));
+
+        assertEquals(List.of(6L, 5L), index.page(SearchFilter.of(10L, null, null), false, 0, 10).productIds());
+        assertEquals(List.of(4L, 3L, 2L), index.page(SearchFilter.of(20L, null, null), false, 0, 10).productIds());
+        assertEquals(List.of(2L), index.page(SearchFilter.of(null, new BigDecimal("400"), null), false, 0, 10).productIds());
+    }
+
+    @Test
+    public void testCategorySubtreeMergesColumns() {
+        SearchFilter subtree = SearchFilter.ofCategories(List.of(20L, 10L, 99L), null, new BigDecimal("200"));
+
+        SearchPage ascending = index.page(subtree, false, 1, 3);
+        assertEquals(List.of(4L, 3L, 5L), ascending.productIds());
+        assertEquals(4, ascending.totalHits());
+
+        assertEquals(List.of(5L, 3L), index.page(subtree, true, 0, 2).productIds());
+        assertEquals(List.of(2L), index.page(subtree, true, 3, 10).productIds());
+    }
+
+    private ProductSnapshot product(Long id, String price, Long categoryId) {
+        return new ProductSnapshot(id, "Product " + id, "", new BigDecimal(price), 1, categoryId, "Category " + categoryId,
+                LocalDateTime.now());
+    }
+}
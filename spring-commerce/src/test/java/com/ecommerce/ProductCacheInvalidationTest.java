@@ -0,0 +1,135 @@
+package com.ecommerce;
+
+import com.ecommerce.cache.ProductQueryKey;
+import com.ecommerce.dto.request.ProductRequest;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+public class ProductCacheInvalidationTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    public void testUpdateKeepsUnrelatedPagesWarm() {
+        Category bats = saveCategory("Bats");
+        Category balls = saveCategory("Balls");
+        ProductResponse bat = productService.createProduct(productRequest("Willow Bat", "350.00", bats));
+        ProductResponse ball = productService.createProduct(productRequest("Leather Ball", "35.00", balls));
+
+        Pageable pageable = PageRequest.of(0, 10);
+        productService.getAllProducts(null, bats.getId(), null, null, pageable);
+        productService.getAllProducts(null, balls.getId(), null, null, pageable);
+        productService.getAllProducts(null, null, new BigDecimal("100"), new BigDecimal("500"), pageable);
+        productService.getAllProducts(null, null, BigDecimal.ZERO, new BigDecimal("50"), pageable);
+        productService.getProductById(bat.getId());
+        productService.getProductById(ball.getId());
+
+        ProductRequest restock = productRequest("Willow Bat", "350.00", bats);
+        restock.setStockQuantity(3);
+        productService.updateProduct(bat.getId(), restock);
+
+        Cache cache = cacheManager.getCache("products");
+        assertNull(cache.get("detail_" + bat.getId()));
+        assertNull(cache.get(ProductQueryKey.of(null, bats.getId(), null, null, pageable)));
+        assertNull(cache.get(ProductQueryKey.of(null, null, new BigDecimal("100"), new BigDecimal("500"), pageable)));
+
+        assertNotNull(cache.get("detail_" + ball.getId()));
+        assertNotNull(cache.get(ProductQueryKey.of(null, balls.getId(), null, null, pageable)));
+        assertNotNull(cache.get(ProductQueryKey.of(null, null, BigDecimal.ZERO, new BigDecimal("50"), pageable)));
+    }
+
+    @Test
+    public void testPriceChangeInsideRangeMovesProductBetweenCachedPages() {
+        Category bats = saveCategory("Bats");
+        ProductResponse cheap = productService.createProduct(productRequest("Short Handle Bat", "100.00", bats));
+        ProductResponse middle = productService.createProduct(productRequest("Long Handle Bat", "200.00", bats));
+        ProductResponse dear = productService.createProduct(productRequest("Signature Bat", "300.00", bats));
+        BigDecimal min = new BigDecimal("50");
+        BigDecimal max = new BigDecimal("500");
+
+        // Unsorted price-range pages come back in ascending price order
+        for (int page = 0; page < 3; page++) {
+            productService.getAllProducts(null, bats.getId(), min, max, PageRequest.of(page, 1));
+        }
+        assertEquals(middle.getId(), productService.getAllProducts(null, bats.getId(), min, max, PageRequest.of(1, 1))
+                .getContent().get(0).getId());
+
+        productService.updateProduct(dear.getId(), productRequest("Signature Bat", "150.00", bats));
+
+        assertEquals(List.of(cheap.getId(), dear.getId(), middle.getId()), List.of(0, 1, 2).stream()
+                .map(page -> productService.getAllProducts(null, bats.getId(), min, max, PageRequest.of(page, 1))
+                        .getContent().get(0).getId())
+                .toList());
+    }
+
+    @Test
+    public void testTextEditEvictsEveryPageOfAMatchingSearch() {
+        Category bats = saveCategory("Bats");
+        ProductRequest adult = productRequest("Quokka Bat", "100.00", bats);
+        ProductRequest junior = productRequest("Junior Quokka Bat", "120.00", bats);
+        Map<Long, ProductRequest> requests = Map.of(
+                productService.createProduct(adult).getId(), adult,
+                productService.createProduct(junior).getId(), junior);
+
+        // One product per page; the product edited below sits on the second page only
+        Pageable first = PageRequest.of(0, 1);
+        productService.getAllProducts("quokka", bats.getId(), null, null, first);
+        Long edited = productService.getAllProducts("quokka", bats.getId(), null, null, PageRequest.of(1, 1))
+                .getContent().get(0).getId();
+        ProductRequest request = requests.get(edited);
+        Cache cache = cacheManager.getCache("products");
+        ProductQueryKey firstKey = ProductQueryKey.of("quokka", bats.getId(), null, null, first);
+
+        // Stock plays no part in the score, so the first page stays cached
+        request.setStockQuantity(4);
+        productService.updateProduct(edited, request);
+        assertNotNull(cache.get(firstKey));
+
+        request.setDescription("Quokka quokka quokka, the bat every quokka fan wants");
+        productService.updateProduct(edited, request);
+        assertNull(cache.get(firstKey));
+    }
+
+    private Category saveCategory(String name) {
+        Category category = new Category();
+        category.setName(name + " " + UUID.randomUUID());
+        category.setDescription(name);
+        return categoryRepository.save(category);
+    }
+
+    private ProductRequest productRequest(String name, String price, Category category) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setDescription(name + " description");
+        request.setPrice(new BigDecimal(price));
+        request.setStockQuantity(10);
+        request.setCategoryId(category.getId());
+        return request;
+    }
+}
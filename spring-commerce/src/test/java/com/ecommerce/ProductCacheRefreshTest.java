@@ -0,0 +1,61 @@
+package com.ecommerce;
+
+import com.ecommerce.dto.request.ProductRequest;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "app.cache.specs.products.expire-after-write=10m",
+        "app.cache.specs.products.refresh-after-write=100ms"})
+public class ProductCacheRefreshTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testStaleEntryIsRefreshedInTheBackgroundThroughTheService() throws InterruptedException {
+        Category category = new Category();
+        category.setName("Refresh " + UUID.randomUUID());
+        category.setDescription("Refresh");
+        category = categoryRepository.save(category);
+
+        ProductRequest request = new ProductRequest();
+        request.setName("Old Bat");
+        request.setDescription("Old Bat description");
+        request.setPrice(new BigDecimal("120.00"));
+        request.setStockQuantity(5);
+        request.setCategoryId(category.getId());
+        Long id = productService.createProduct(request).getId();
+        productService.getProductById(id);
+
+        // Behind the cache's back, so only a refresh can pick it up
+        jdbcTemplate.update("UPDATE products SET name = 'New Bat' WHERE id = ?", id);
+        Thread.sleep(150);
+        assertEquals("Old Bat", productService.getProductById(id).getName());
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        ProductResponse current = productService.getProductById(id);
+        while (!"New Bat".equals(current.getName()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            current = productService.getProductById(id);
+        }
+        assertEquals("New Bat", current.getName());
+    }
+}
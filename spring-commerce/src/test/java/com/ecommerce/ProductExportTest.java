@@ -0,0 +1,134 @@
+package com.ecommerce;
+
+import com.ecommerce.dto.request.ProductRequest;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.io.CsvReader;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.ProductService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.export.flush-every=2")
+@AutoConfigureMockMvc
+public class ProductExportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testGzippedCsvExportRoundTrips() throws Exception {
+        Category category = saveCategory();
+        ProductResponse product = productService.createProduct(
+                productRequest("Export Bat", "Willow, \"grade 1\"\nEnglish", category));
+
+        byte[] body = export("csv", true);
+        List<List<String>> records = new ArrayList<>();
+        CsvReader reader = new CsvReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(body)), StandardCharsets.UTF_8));
+        for (List<String> record = reader.next(); record != null; record = reader.next()) {
+            records.add(record);
+        }
+
+        assertEquals("id", records.get(0).get(0));
+        assertEquals(productRepository.count(), records.size() - 1);
+        List<String> row = records.stream()
+                .filter(record -> record.get(0).equals(product.getId().toString()))
+                .findFirst().orElseThrow();
+        assertEquals("Willow, \"grade 1\"\nEnglish", row.get(2));
+        assertEquals(category.getName(), row.get(7));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testNdjsonExportWritesOneObjectPerLine() throws Exception {
+        Category category = saveCategory();
+        productService.createProduct(productRequest("Export Ball", "Leather", category));
+        productService.createProduct(productRequest("Export Pads", "Foam", category));
+
+        String[] lines = new String(export("ndjson", false), StandardCharsets.UTF_8).split("\n");
+
+        assertEquals(productRepository.count(), lines.length);
+        long previousId = 0;
+        for (String line : lines) {
+            JsonNode node = objectMapper.readTree(line);
+            assertTrue(node.get("id").asLong() > previousId);
+            previousId = node.get("id").asLong();
+        }
+    }
+
+    @Test
+    @WithMockUser
+    public void testExportRequiresAdmin() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/products/export"))
+                .andExpect(status().isForbidden());
+    }
+
+    private byte[] export(String format, boolean gzip) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/admin/products/export")
+                        .param("format", format)
+                        .param("gzip", String.valueOf(gzip)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"products." + format + (gzip ? ".gz" : "") + "\""))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private Category saveCategory() {
+        Category category = new Category();
+        category.setName("Export " + UUID.randomUUID());
+        category.setDescription("Export");
+        return categoryRepository.save(category);
+    }
+
+    private ProductRequest productRequest(String name, String description, Category category) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setDescription(description);
+        request.setPrice(new BigDecimal("49.99"));
+        request.setStockQuantity(10);
+        request.setCategoryId(category.getId());
+        return request;
+    }
+}
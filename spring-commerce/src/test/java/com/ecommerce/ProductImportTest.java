@@ -0,0 +1,100 @@
+package com.ecommerce;
+
+import com.ecommerce.dto.response.ImportReportResponse;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.io.ProductFileFormat;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.service.ProductImportService;
+import com.ecommerce.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "app.import.batch-size=2")
+public class ProductImportTest {
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    public void testCsvImportInsertsUpdatesAndReportsBadRows() {
+        Category category = saveCategory();
+        String csv = "name,description,price,stockQuantity,category\n"
+                + "Import Glove,\"Leather, size 9\",19.99,5," + category.getName() + "\n"
+                + "Import Pads,Shin pads,-1,5," + category.getName() + "\n"
+                + "Import Helmet,\"Says \"\"safe\"\"\",59.00,2," + category.getName() + "\n"
+                + "Import Stumps,Ash stumps,12.50,7,No Such Category\n";
+
+        ImportReportResponse report = productImportService.importProducts(stream(csv), ProductFileFormat.CSV);
+
+        assertEquals(4, report.getRowsRead());
+        assertEquals(2, report.getInserted());
+        assertEquals(2, report.getFailed());
+        assertEquals(List.of(3L, 5L), report.getErrors().stream().map(ImportReportResponse.RowError::getLine).toList());
+
+        List<ProductResponse> imported = productService
+                .getAllProducts(null, category.getId(), null, null, PageRequest.of(0, 10)).getContent();
+        assertEquals(2, imported.size());
+        assertEquals("Says \"safe\"", imported.stream()
+                .filter(product -> product.getName().equals("Import Helmet"))
+                .findFirst().orElseThrow().getDescription());
+        // Bulk writes skip the change events, so the search index is rebuilt afterwards
+        assertEquals(1, productService.getAllProducts("glove", category.getId(), null, null, PageRequest.of(0, 10))
+                .getTotalElements());
+    }
+
+    @Test
+    public void testNdjsonImportUpdatesById() {
+        Category category = saveCategory();
+        String insert = "{\"name\":\"Import Bat\",\"description\":\"Willow\",\"price\":120,\"stockQuantity\":3,"
+                + "\"categoryId\":" + category.getId() + "}\n";
+        productImportService.importProducts(stream(insert), ProductFileFormat.NDJSON);
+        ProductResponse bat = productService
+                .getAllProducts(null, category.getId(), null, null, PageRequest.of(0, 10)).getContent().get(0);
+
+        String update = "{\"id\":" + bat.getId() + ",\"name\":\"Import Bat\",\"description\":\"Willow\","
+                + "\"price\":99.50,\"stockQuantity\":3,\"categoryId\":" + category.getId() + "}\n"
+                + "{\"id\":999999999,\"name\":\"Ghost\",\"description\":\"None\",\"price\":1,\"stockQuantity\":1,"
+                + "\"categoryId\":" + category.getId() + "}\n"
+                + "not json\n";
+        ImportReportResponse report = productImportService.importProducts(stream(update),
+                ProductFileFormat.NDJSON);
+
+        assertEquals(3, report.getRowsRead());
+        assertEquals(1, report.getUpdated());
+        assertEquals(2, report.getFailed());
+        assertEquals(0, new BigDecimal("99.50").compareTo(productService.getProductById(bat.getId()).getPrice()));
+        ImportReportResponse.RowError malformed = report.getErrors().stream()
+                .filter(error -> error.getLine() == 3)
+                .findFirst().orElseThrow();
+        assertTrue(malformed.getMessage().startsWith("Invalid JSON: "), malformed.getMessage());
+    }
+
+    private Category saveCategory() {
+        Category category = new Category();
+        category.setName("Import " + UUID.randomUUID());
+        category.setDescription("Import");
+        return categoryRepository.save(category);
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -9,21 +9,35 @@ import com.ecommerce.repository.UserRepository;
 import com.ecommerce.entity.User;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -115,5 +129,150 @@ public class ProductIntegrationTest {
         mockMvc.perform(get("/api/v1/products/" + productId))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.data.name").value(productRequest.getName()));
+
+        // 4. Slice mode, without a total
+        mockMvc.perform(get("/api/v1/products").param("slice", "true").param("categoryId", categoryId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].id").value(productId))
+                .andExpect(jsonPath("$.data.last").value(true))
+                .andExpect(jsonPath("$.data.totalElements").doesNotExist());
+
+        // 5. Batch get, as query parameter and as body
+        mockMvc.perform(get("/api/v1/products").param("ids", productId + ",-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.data[0].id").value(productId));
+        mockMvc.perform(post("/api/v1/products/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[" + productId + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].name").value(productRequest.getName()));
+    }
+
+    @Test
+    public void testBinaryFormatsAreNegotiated() throws Exception {
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        MvcResult smile = mockMvc.perform(get("/api/v1/categories").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn();
+        assertTrue(smileMapper.readTree(smile.getResponse().getContentAsByteArray()).get("success").asBoolean());
+
+        MvcResult cbor = mockMvc.perform(get("/api/v1/categories").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn();
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+        assertTrue(cborMapper.readTree(cbor.getResponse().getContentAsByteArray()).get("success").asBoolean());
+
+        mockMvc.perform(get("/api/v1/categories"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void testCursorPaginationWalksAllProductsOnce() throws Exception {
+        CategoryRequest categoryRequest = new CategoryRequest();
+        categoryRequest.setName("Cursor " + UUID.randomUUID());
+        categoryRequest.setDescription("Keyset");
+
+        MvcResult categoryResult = mockMvc.perform(post("/api/v1/categories")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(categoryRequest)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        Long categoryId = objectMapper.readTree(categoryResult.getResponse().getContentAsString())
+                .get("data").get("id").asLong();
+
+        // Duplicate prices make the id tie-breaker matter
+        for (String price : List.of("10.00", "30.00", "10.00", "20.00", "30.00")) {
+            ProductRequest productRequest = new ProductRequest();
+            productRequest.setName("Cursor item " + UUID.randomUUID());
+            productRequest.setDescription("Keyset item");
+            productRequest.setPrice(new BigDecimal(price));
+            productRequest.setStockQuantity(1);
+            productRequest.setCategoryId(categoryId);
+            mockMvc.perform(post("/api/v1/products")
+                            .header("Authorization", "Bearer " + adminToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(productRequest)))
+                    .andExpect(status().isCreated());
+        }
+
+        List<BigDecimal> prices = new ArrayList<>();
+        Set<Long> ids = new HashSet<>();
+        String cursor = "";
+        int pages = 0;
+        do {
+            MvcResult result = mockMvc.perform(get("/api/v1/products")
+                            .param("cursor", cursor)
+                            .param("categoryId", categoryId.toString())
+                            .param("sortBy", "price")
+                            .param("size", "2")
+                            .param("includeTotal", String.valueOf(pages == 0)))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            JsonNode data = objectMapper.readTree(result.getResponse().getContentAsString()).get("data");
+            if (pages == 0) {
+                assertEquals(5, data.get("totalElements").asLong());
+            }
+            for (JsonNode product : data.get("content")) {
+                ids.add(product.get("id").asLong());
+                prices.add(product.get("price").decimalValue());
+            }
+            cursor = data.get("hasNext").asBoolean() ? data.get("nextCursor").asText() : null;
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(5, ids.size());
+        for (int i = 1; i < prices.size(); i++) {
+            assertTrue(prices.get(i - 1).compareTo(prices.get(i)) <= 0);
+        }
+
+        mockMvc.perform(get("/api/v1/products").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testListingModesCannotBeCombined() throws Exception {
+        mockMvc.perform(get("/api/v1/products").param("cursor", "").param("ids", "1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/products").param("slice", "true").param("cursor", ""))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/products").param("slice", "true").param("ids", "1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/products").param("slice", "false").param("ids", "1"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testPagesPastTheIntRangeAreEmpty() throws Exception {
+        // page * size is past Integer.MAX_VALUE
+        mockMvc.perform(get("/api/v1/products").param("search", "phone")
+                        .param("page", "2000000").param("size", "2000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content.length()").value(0));
+        mockMvc.perform(get("/api/v1/products").param("sort", "name")
+                        .param("page", "2000000").param("size", "2000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content.length()").value(0));
+        mockMvc.perform(get("/api/v1/products").param("sort", "price,desc")
+                        .param("page", "2000000").param("size", "2000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content.length()").value(0));
+    }
+
+    @Test
+    public void testForgedCursorValuesAreRejected() throws Exception {
+        // Well-formed cursors whose last value does not parse as their sort key's type
+        for (String forged : List.of("price|ASC|1|cheap", "createdAt|DESC|1|yesterday", "id|ASC|1|1.5")) {
+            String token = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(forged.getBytes(StandardCharsets.UTF_8));
+            mockMvc.perform(get("/api/v1/products").param("cursor", token))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Invalid cursor"));
+        }
     }
 }
@@ -0,0 +1,81 @@
+package com.ecommerce;
+
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Product;
+import com.ecommerce.mapper.ProductMapper;
+import com.ecommerce.mapper.ProductMapperImpl;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product to response mapping: generated mapper against the ModelMapper setup it replaced.
+ * Run with {@code mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ * "-Dexec.args=-cp %classpath com.ecommerce.ProductMapperBenchmark"}; not part of the unit test run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductMapperBenchmark {
+
+    private final ProductMapper productMapper = new ProductMapperImpl();
+    private final ModelMapper modelMapper = new ModelMapper();
+    private Product product;
+
+    @Setup
+    public void setup() {
+        Category category = new Category();
+        category.setId(7L);
+        category.setName("Cricket Equipment");
+        product = Product.builder()
+                .id(42L)
+                .name("Pro Grade English Willow Bat")
+                .description("Grade 1 English willow with a balanced pickup")
+                .price(new BigDecimal("349.99"))
+                .stockQuantity(12)
+                .imageUrl("https://example.com/bat.png")
+                .category(category)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Benchmark
+    public ProductResponse generatedMapper() {
+        return productMapper.toResponse(product);
+    }
+
+    @Benchmark
+    public ProductResponse modelMapper() {
+        // Mirrors the removed ProductService.mapToResponse
+        ProductResponse response = modelMapper.map(product, ProductResponse.class);
+        response.setCategoryId(product.getCategory().getId());
+        response.setCategoryName(product.getCategory().getName());
+        return response;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductMapperBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,53 @@
+package com.ecommerce;
+
+import com.ecommerce.dto.request.ProductRequest;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Product;
+import com.ecommerce.mapper.ProductMapper;
+import com.ecommerce.mapper.ProductMapperImpl;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ProductMapperTest {
+
+    private final ProductMapper productMapper = new ProductMapperImpl();
+
+    @Test
+    public void testResponseCarriesCategory() {
+        Category category = new Category();
+        category.setId(7L);
+        category.setName("Cricket Equipment");
+        Product product = Product.builder()
+                .id(42L)
+                .name("Willow Bat")
+                .price(new BigDecimal("349.99"))
+                .stockQuantity(3)
+                .category(category)
+                .build();
+
+        ProductResponse response = productMapper.toResponse(product);
+        assertEquals(42L, response.getId());
+        assertEquals(new BigDecimal("349.99"), response.getPrice());
+        assertEquals(7L, response.getCategoryId());
+        assertEquals("Cricket Equipment", response.getCategoryName());
+    }
+
+    @Test
+    public void testRequestNeverSetsIdentity() {
+        ProductRequest request = new ProductRequest();
+        request.setName("Willow Bat");
+        request.setPrice(new BigDecimal("349.99"));
+        request.setStockQuantity(3);
+        request.setCategoryId(7L);
+
+        Product product = productMapper.toEntity(request);
+        assertNull(product.getId());
+        assertNull(product.getCategory());
+        assertEquals("Willow Bat", product.getName());
+    }
+}
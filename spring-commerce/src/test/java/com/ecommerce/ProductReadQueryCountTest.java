@@ -0,0 +1,136 @@
+package com.ecommerce;
+
+import com.ecommerce.dto.request.ProductRequest;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "app.search.max-sorted-hits=3")
+public class ProductReadQueryCountTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Category category;
+    private ProductResponse first;
+
+    @BeforeEach
+    public void setup() {
+        category = new Category();
+        category.setName("Query count " + UUID.randomUUID());
+        category.setDescription("Query count");
+        category = categoryRepository.save(category);
+        for (int i = 0; i < 3; i++) {
+            ProductResponse created = productService.createProduct(productRequest("Counted Gadget " + i));
+            if (first == null) {
+                first = created;
+            }
+        }
+        cacheManager.getCache("products").clear();
+    }
+
+    @Test
+    public void testEachReadPathIssuesOneQueryPerPage() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        Page<ProductResponse> page = productService.getAllProducts(null, category.getId(), null, null,
+                PageRequest.of(0, 10));
+        assertEquals(3, page.getContent().size());
+        assertEquals(category.getName(), page.getContent().get(0).getCategoryName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        assertEquals(first.getName(), productService.getProductById(first.getId()).getName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        assertEquals(3, productService.searchProducts("counted gadget", PageRequest.of(0, 10))
+                .getTotalElements());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        assertEquals(3, productService.getAllProducts("counted gadget", category.getId(), null, null,
+                PageRequest.of(0, 10, Sort.by("price"))).getContent().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        // A full page would normally need a COUNT; the total comes from the price index instead
+        statistics.clear();
+        Page<ProductResponse> firstTwo = productService.getAllProducts(null, category.getId(), null, null,
+                PageRequest.of(0, 2, Sort.by("name")));
+        assertEquals(3, firstTwo.getTotalElements());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        Slice<ProductResponse> slice = productService.getProductSlice(null, category.getId(), null, null,
+                PageRequest.of(1, 2, Sort.by("name")));
+        assertEquals(List.of("Counted Gadget 2"), slice.getContent().stream().map(ProductResponse::getName).toList());
+        assertFalse(slice.hasNext());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        // Batch get: the cached detail entry is reused, the other two come from one IN query
+        List<Long> ids = page.getContent().stream().map(ProductResponse::getId).toList();
+        productService.getProductById(ids.get(1));
+        statistics.clear();
+        List<Long> requested = List.of(ids.get(2), -1L, ids.get(1), ids.get(0), ids.get(2));
+        List<ProductResponse> products = productService.getProductsByIds(requested);
+        assertEquals(List.of(ids.get(2), ids.get(1), ids.get(0)),
+                products.stream().map(ProductResponse::getId).toList());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        productService.getProductsByIds(List.of(ids.get(1)));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testSortedSearchesPastTheHitCapAreRejected() {
+        productService.createProduct(productRequest("Counted Gadget 3"));
+        // Sorting only the first three hits would page through the wrong products under the wrong total
+        assertThrows(BadRequestException.class, () -> productService.getAllProducts("counted gadget",
+                category.getId(), null, null, PageRequest.of(0, 10, Sort.by("name"))));
+        assertEquals(4, productService.getAllProducts("counted gadget", category.getId(), null, null,
+                PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    private ProductRequest productRequest(String name) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setDescription(name + " description");
+        request.setPrice(new BigDecimal("19.99"));
+        request.setStockQuantity(5);
+        request.setCategoryId(category.getId());
+        return request;
+    }
+}
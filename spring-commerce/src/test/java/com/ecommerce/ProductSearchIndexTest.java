@@ -0,0 +1,64 @@
+package com.ecommerce;
+
+import com.ecommerce.event.ProductSnapshot;
+import com.ecommerce.index.ProductSearchIndex;
+import com.ecommerce.index.SearchFilter;
+import com.ecommerce.index.SearchPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProductSearchIndexTest {
+
+    private static final SearchFilter ANY = SearchFilter.of(null, null, null);
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    public void setup() {
+        index = new ProductSearchIndex();
+        index.rebuild(List.of(
+                product(1L, "Pro Grade English Willow Bat", "Balanced pickup for batting", "350.00", 10L, "Cricket Equipment"),
+                product(2L, "Match Quality Leather Ball", "Holds its seam well", "35.00", 10L, "Cricket Equipment"),
+                product(3L, "Elite Batting Pads", "High-density foam", "75.00", 20L, "Accessories"),
+                product(4L, "Training Jersey", "Breathable fabric", "40.00", 30L, "Apparel")));
+    }
+
+    @Test
+    public void testStemmedTermsMatch() {
+        SearchPage page = index.search("bats", ANY, 0, 10);
+        assertEquals(Set.of(1L, 3L), Set.copyOf(page.productIds()));
+        assertEquals(2, page.totalHits());
+        assertEquals(List.of(1L), index.search("willow batting", ANY, 0, 10).productIds());
+    }
+
+    @Test
+    public void testPrefixAndTypoMatching() {
+        assertEquals(List.of(2L), index.search("leath", ANY, 0, 10).productIds());
+        assertEquals(List.of(4L), index.search("jersy", ANY, 0, 10).productIds());
+    }
+
+    @Test
+    public void testFiltersAndIncrementalUpdates() {
+        assertEquals(List.of(3L), index.search("bat", SearchFilter.of(20L, null, null), 0, 10).productIds());
+        assertEquals(List.of(1L), index.search("bat", SearchFilter.of(null, new BigDecimal("100"), null), 0, 10).productIds());
+
+        index.upsert(product(3L, "Elite Leg Guards", "High-density foam", "75.00", 20L, "Accessories"));
+        index.remove(1L);
+        assertEquals(0, index.search("bat", ANY, 0, 10).totalHits());
+        assertTrue(index.matches("guard", product(3L, "Elite Leg Guards", "", "75.00", 20L, "Accessories")));
+    }
+
+    private ProductSnapshot product(Long id, String name, String description, String price, Long categoryId,
+                                    String categoryName) {
+        return new ProductSnapshot(id, name, description, new BigDecimal(price), 5, categoryId, categoryName,
+                LocalDateTime.now());
+    }
+}
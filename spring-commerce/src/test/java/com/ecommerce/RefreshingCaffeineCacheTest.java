@@ -0,0 +1,169 @@
+package com.ecommerce;
+
+import com.ecommerce.cache.RefreshingCaffeineCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RefreshingCaffeineCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Test
+    public void testConcurrentMissesShareOneLoad() throws Exception {
+        RefreshingCaffeineCache cache = cache(Duration.ofMinutes(10), null, Runnable::run);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(callers.submit(() -> cache.get("detail_1", () -> {
+                    loads.incrementAndGet();
+                    release.await();
+                    return "product";
+                })));
+            }
+            // Give every caller time to miss and join the first load
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("product", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testStaleValueServedWhileRefreshing() {
+        List<Runnable> refreshes = new ArrayList<>();
+        RefreshingCaffeineCache cache = cache(Duration.ofMinutes(10), Duration.ofMinutes(10), refreshes::add);
+        cache.get("all", () -> "v1");
+
+        nanos.addAndGet(Duration.ofMinutes(15).toNanos());
+        assertEquals("v1", cache.get("all", () -> "v2"));
+        assertEquals("v1", cache.get("all", () -> "v3"));
+        assertEquals(1, refreshes.size());
+
+        refreshes.get(0).run();
+        assertEquals("v2", cache.get("all", () -> "v4"));
+
+        // Past the stale window the entry is gone and loaded synchronously
+        nanos.addAndGet(Duration.ofMinutes(25).toNanos());
+        assertEquals("v5", cache.get("all", () -> "v5"));
+    }
+
+    @Test
+    public void testRefreshCallsBackThroughTheRefresherInsteadOfReplayingTheLoader() {
+        List<Runnable> refreshes = new ArrayList<>();
+        RefreshingCaffeineCache cache = cache(Duration.ofMinutes(10), Duration.ofMinutes(10), refreshes::add);
+        AtomicInteger replays = new AtomicInteger();
+        // Stands in for calling the cached method again through its proxy
+        Callable<String> proxyCall = new Callable<>() {
+            @Override
+            public String call() {
+                return cache.get("all", () -> "v2", this);
+            }
+        };
+        cache.get("all", () -> "v1", proxyCall);
+
+        nanos.addAndGet(Duration.ofMinutes(15).toNanos());
+        assertEquals("v1", cache.get("all", () -> "replayed-" + replays.incrementAndGet(), proxyCall));
+        refreshes.get(0).run();
+
+        assertEquals(0, replays.get());
+        assertEquals("v2", cache.get("all", () -> "v3", proxyCall));
+    }
+
+    @Test
+    public void testEvictionDiscardsInFlightRefresh() {
+        List<Runnable> refreshes = new ArrayList<>();
+        RefreshingCaffeineCache cache = cache(Duration.ofMinutes(10), Duration.ofMinutes(10), refreshes::add);
+        cache.get("detail_1", () -> "old");
+
+        nanos.addAndGet(Duration.ofMinutes(12).toNanos());
+        cache.get("detail_1", () -> "read before the write");
+        cache.evict("detail_1");
+        refreshes.get(0).run();
+
+        assertNull(cache.get("detail_1"));
+        assertEquals("new", cache.get("detail_1", () -> "new"));
+    }
+
+    @Test
+    public void testClearDiscardsInFlightLoad() {
+        RefreshingCaffeineCache cache = cache(Duration.ofMinutes(10), null, Runnable::run);
+        assertEquals("read before the import", cache.get("page_1", () -> {
+            cache.clear();
+            return "read before the import";
+        }));
+
+        assertNull(cache.get("page_1"));
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() {
+        RefreshingCaffeineCache cache = cache(Duration.ofMinutes(10), null, Runnable::run);
+        RuntimeException failure = new IllegalStateException("down");
+        Cache.ValueRetrievalException thrown = assertThrows(Cache.ValueRetrievalException.class,
+                () -> cache.get("detail_2", () -> {
+                    throw failure;
+                }));
+        assertSame(failure, thrown.getCause());
+        assertEquals("up", cache.get("detail_2", () -> "up"));
+    }
+
+    @Test
+    public void testStatsCountEachMissOnceAndRecordLoads() {
+        RefreshingCaffeineCache cache = cache(Duration.ofMinutes(10), null, Runnable::run);
+        cache.get("detail_3", () -> "loaded");
+        cache.get("detail_3", () -> "loaded");
+        assertThrows(Cache.ValueRetrievalException.class, () -> cache.get("detail_4", () -> {
+            throw new IllegalStateException("down");
+        }));
+
+        CacheStats stats = cache.getNativeCache().stats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(2, stats.missCount());
+        assertEquals(1, stats.loadSuccessCount());
+        assertEquals(1, stats.loadFailureCount());
+    }
+
+    private RefreshingCaffeineCache cache(Duration expireAfterWrite, Duration staleWindow,
+                                          Executor executor) {
+        Duration window = staleWindow == null ? Duration.ZERO : staleWindow;
+        StatsCounter stats = new ConcurrentStatsCounter();
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = Caffeine.newBuilder()
+                .expireAfterWrite(expireAfterWrite.plus(window))
+                .ticker((Ticker) nanos::get)
+                .recordStats(() -> stats)
+                .build();
+        return new RefreshingCaffeineCache("test", nativeCache, stats, staleWindow == null ? null : expireAfterWrite,
+                executor);
+    }
+}
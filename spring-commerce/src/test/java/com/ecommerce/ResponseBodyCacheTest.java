@@ -0,0 +1,142 @@
+package com.ecommerce;
+
+import com.ecommerce.cache.ResponseBodyCache;
+import com.ecommerce.dto.request.ProductRequest;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.response-cache.enabled=true",
+        "app.response-cache.gzip-min-size=0"
+})
+@AutoConfigureMockMvc
+public class ResponseBodyCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ResponseBodyCache responseBodyCache;
+
+    @Test
+    public void testHitsServeStoredBytesUntilTheProductChanges() throws Exception {
+        Category category = saveCategory();
+        ProductResponse product = productService.createProduct(productRequest("Cached Bat", category));
+        String url = "/api/v1/products/" + product.getId();
+        responseBodyCache.clear();
+
+        MockHttpServletResponse miss = mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse();
+        assertEquals(1, responseBodyCache.size());
+
+        MockHttpServletResponse hit = mockMvc.perform(get(url).header(HttpHeaders.ACCEPT, "application/json"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, miss.getHeader(HttpHeaders.ETAG)))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, miss.getHeader(HttpHeaders.CACHE_CONTROL)))
+                .andReturn().getResponse();
+        assertArrayEquals(miss.getContentAsByteArray(), hit.getContentAsByteArray());
+        assertTrue(hit.getContentType().startsWith("application/json"));
+
+        MockHttpServletResponse gzipped = mockMvc.perform(get(url).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+            assertArrayEquals(miss.getContentAsByteArray(), in.readAllBytes());
+        }
+
+        // Refused explicitly, even with a wildcard that would otherwise cover it
+        MockHttpServletResponse identity = mockMvc.perform(get(url)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, *;q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse();
+        assertArrayEquals(miss.getContentAsByteArray(), identity.getContentAsByteArray());
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, miss.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified());
+
+        ProductRequest update = productRequest("Cached Bat Pro", category);
+        productService.updateProduct(product.getId(), update);
+
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.name").value("Cached Bat Pro"));
+    }
+
+    @Test
+    public void testListingsAreKeyedByNormalizedQueryAndFormat() throws Exception {
+        Category category = saveCategory();
+        productService.createProduct(productRequest("Listed Ball", category));
+        responseBodyCache.clear();
+
+        byte[] json = mockMvc.perform(get("/api/v1/products")
+                        .param("categoryId", category.getId().toString()).param("size", "5"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] reordered = mockMvc.perform(get("/api/v1/products")
+                        .param("size", "5").param("categoryId", category.getId().toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertArrayEquals(json, reordered);
+        assertEquals(1, responseBodyCache.size());
+
+        mockMvc.perform(get("/api/v1/products")
+                        .param("categoryId", category.getId().toString()).param("size", "5")
+                        .header(HttpHeaders.ACCEPT, "application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/x-jackson-smile"));
+        assertEquals(2, responseBodyCache.size());
+
+        productService.createProduct(productRequest("Listed Glove", category));
+
+        mockMvc.perform(get("/api/v1/products")
+                        .param("size", "5").param("categoryId", category.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content.length()").value(2));
+    }
+
+    private Category saveCategory() {
+        Category category = new Category();
+        category.setName("Response cache " + UUID.randomUUID());
+        category.setDescription("Response cache");
+        return categoryRepository.save(category);
+    }
+
+    private ProductRequest productRequest(String name, Category category) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setDescription(name + " description");
+        request.setPrice(new BigDecimal("49.99"));
+        request.setStockQuantity(10);
+        request.setCategoryId(category.getId());
+        return request;
+    }
+}
@@ -0,0 +1,113 @@
+package com.ecommerce;
+
+import com.ecommerce.dto.response.ApiResponse;
+import com.ecommerce.dto.response.ProductResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serializing a 20-product listing page as JSON, Smile and CBOR, plus JSON with gzip on top.
+ * Payload sizes are printed before the run. Run with {@code mvn test-compile exec:exec
+ * -Dexec.executable=java -Dexec.classpathScope=test
+ * "-Dexec.args=-cp %classpath com.ecommerce.ResponseFormatBenchmark"}; not part of the unit test run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseFormatBenchmark {
+
+    private final ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper smile = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+    private final ObjectMapper cbor = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+    private ApiResponse<Page<ProductResponse>> page;
+
+    @Setup
+    public void setup() {
+        page = listingPage();
+    }
+
+    @Benchmark
+    public byte[] json() throws IOException {
+        return json.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] smile() throws IOException {
+        return smile.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] cbor() throws IOException {
+        return cbor.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] jsonGzip() throws IOException {
+        return gzip(json.writeValueAsBytes(page));
+    }
+
+    private static ApiResponse<Page<ProductResponse>> listingPage() {
+        List<ProductResponse> products = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            ProductResponse product = new ProductResponse();
+            product.setId(id);
+            product.setName("Pro Grade English Willow Bat " + id);
+            product.setDescription("Grade 1 English willow with a balanced pickup, hand-pressed and oiled");
+            product.setPrice(new BigDecimal("349.99").add(BigDecimal.valueOf(id)));
+            product.setStockQuantity((int) (id * 3));
+            product.setImageUrl("https://example.com/images/products/" + id + ".png");
+            product.setCategoryId(7L);
+            product.setCategoryName("Cricket Equipment");
+            products.add(product);
+        }
+        return new ApiResponse<>(true, "Products fetched successfully",
+                new PageImpl<>(products, PageRequest.of(0, 20), 240));
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(bytes);
+        }
+        return buffer.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        ResponseFormatBenchmark benchmark = new ResponseFormatBenchmark();
+        benchmark.setup();
+        System.out.printf("Payload bytes: json=%d smile=%d cbor=%d json+gzip=%d%n", benchmark.json().length,
+                benchmark.smile().length, benchmark.cbor().length, benchmark.jsonGzip().length);
+        new Runner(new OptionsBuilder()
+                .include(ResponseFormatBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
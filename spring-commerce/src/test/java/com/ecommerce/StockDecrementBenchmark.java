@@ -0,0 +1,121 @@
+package com.ecommerce;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Eight threads checking out one unit of the same hot SKU against H2. {@code lockedReadModifyWrite}
+ * is the old checkout path made safe with {@code SELECT ... FOR UPDATE} (without the lock it
+ * oversells); {@code conditionalUpdate} is the single {@code UPDATE ... WHERE stock_quantity >= ?}
+ * that {@code InventoryServiceImpl} issues. Run with {@code mvn test-compile exec:exec
+ * -Dexec.executable=java -Dexec.classpathScope=test
+ * "-Dexec.args=-cp %classpath com.ecommerce.StockDecrementBenchmark"}; not part of the unit test run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class StockDecrementBenchmark {
+
+    private static final long PRODUCT_ID = 1;
+
+    private String url;
+    private Connection keepAlive;
+
+    @Setup
+    public void setup() throws SQLException {
+        url = "jdbc:h2:mem:stock-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;MODE=MySQL;LOCK_TIMEOUT=10000";
+        keepAlive = DriverManager.getConnection(url, "sa", "");
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, stock_quantity INT NOT NULL)");
+            statement.execute("INSERT INTO products VALUES (" + PRODUCT_ID + ", " + Integer.MAX_VALUE + ")");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        keepAlive.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        Connection connection;
+        PreparedStatement select;
+        PreparedStatement update;
+        PreparedStatement conditional;
+
+        @Setup(Level.Trial)
+        public void open(StockDecrementBenchmark benchmark) throws SQLException {
+            connection = DriverManager.getConnection(benchmark.url, "sa", "");
+            connection.setAutoCommit(false);
+            select = connection.prepareStatement("SELECT stock_quantity FROM products WHERE id = ? FOR UPDATE");
+            update = connection.prepareStatement("UPDATE products SET stock_quantity = ? WHERE id = ?");
+            conditional = connection.prepareStatement(
+                    "UPDATE products SET stock_quantity = stock_quantity - ? WHERE id = ? AND stock_quantity >= ?");
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public boolean lockedReadModifyWrite(Session session) throws SQLException {
+        session.select.setLong(1, PRODUCT_ID);
+        int stock;
+        try (ResultSet rs = session.select.executeQuery()) {
+            rs.next();
+            stock = rs.getInt(1);
+        }
+        if (stock < 1) {
+            session.connection.rollback();
+            return false;
+        }
+        session.update.setInt(1, stock - 1);
+        session.update.setLong(2, PRODUCT_ID);
+        session.update.executeUpdate();
+        session.connection.commit();
+        return true;
+    }
+
+    @Benchmark
+    public boolean conditionalUpdate(Session session) throws SQLException {
+        session.conditional.setInt(1, 1);
+        session.conditional.setLong(2, PRODUCT_ID);
+        session.conditional.setInt(3, 1);
+        boolean taken = session.conditional.executeUpdate() == 1;
+        session.connection.commit();
+        return taken;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StockDecrementBenchmark.class.getSimpleName()).build()).run();
+    }
+}
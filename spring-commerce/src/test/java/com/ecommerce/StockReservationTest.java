@@ -0,0 +1,245 @@
+package com.ecommerce;
+
+import com.ecommerce.dto.request.CartItemRequest;
+import com.ecommerce.dto.request.OrderRequest;
+import com.ecommerce.dto.request.ProductRequest;
+import com.ecommerce.dto.response.OrderResponse;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Order;
+import com.ecommerce.entity.User;
+import com.ecommerce.enums.OrderStatus;
+import com.ecommerce.enums.OutboxEventType;
+import com.ecommerce.enums.ReservationStatus;
+import com.ecommerce.enums.UserRole;
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.OutboxEventRepository;
+import com.ecommerce.repository.StockReservationRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.CartService;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.PaymentService;
+import com.ecommerce.service.ProductService;
+import com.ecommerce.service.ReservationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+public class StockReservationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testExpiredHoldsReturnStockAndCancelTheOrder() {
+        ProductResponse product = productService.createProduct(productRequest(5));
+        OrderResponse order = checkout(saveUser(), product, 3);
+
+        assertEquals(2, stockOf(product));
+        assertEquals(1, reservationRepository.findByOrderIdAndStatus(order.getId(), ReservationStatus.HELD).size());
+
+        // Not expired yet: the sweeper leaves it alone
+        reservationService.releaseExpired();
+        assertEquals(2, stockOf(product));
+
+        expireHolds(order.getId());
+        reservationService.releaseExpired();
+
+        assertEquals(5, stockOf(product));
+        assertEquals(OrderStatus.CANCELLED, orderRepository.findById(order.getId()).orElseThrow().getStatus());
+        assertEquals(1, reservationRepository.findByOrderIdAndStatus(order.getId(), ReservationStatus.RELEASED)
+                .size());
+    }
+
+    @Test
+    public void testPaymentCommitsHoldsSoTheSweeperKeepsTheStockOut() {
+        ProductResponse product = productService.createProduct(productRequest(5));
+        OrderResponse order = checkout(saveUser(), product, 2);
+
+        reservationService.commit(orderRepository.findById(order.getId()).orElseThrow());
+        expireHolds(order.getId());
+        reservationService.releaseExpired();
+
+        assertEquals(3, stockOf(product));
+        assertEquals(1, reservationRepository.findByOrderIdAndStatus(order.getId(), ReservationStatus.COMMITTED)
+                .size());
+    }
+
+    @Test
+    public void testLatePaymentIsRefundedInsteadOfTakingTheStockAgain() {
+        ProductResponse product = productService.createProduct(productRequest(4));
+        OrderResponse late = checkout(saveUser(), product, 3);
+        expireHolds(late.getId());
+        reservationService.releaseExpired();
+        checkout(saveUser(), product, 2);
+
+        // The webhook succeeds, so Stripe stops retrying, but the units stay with the later buyer
+        Order paid = paymentService.markPaid(late.getId(), "pi_mock_" + late.getId());
+        assertEquals(OrderStatus.REFUND_PENDING, paid.getStatus());
+        assertEquals(2, stockOf(product));
+        assertEquals(1, outboxEventRepository.findByAggregateIdAndEventType(late.getId(),
+                OutboxEventType.PAYMENT_REFUND_REQUIRED).size());
+        assertEquals(OrderStatus.REFUND_PENDING,
+                paymentService.markPaid(late.getId(), "pi_mock_" + late.getId()).getStatus());
+        assertEquals(OrderStatus.REFUND_PENDING,
+                orderRepository.findById(late.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    public void testPaymentForACancelledOrderIsRefunded() {
+        ProductResponse product = productService.createProduct(productRequest(5));
+        OrderResponse order = checkout(saveUser(), product, 2);
+        orderService.updateOrderStatus(order.getId(), "CANCELLED");
+
+        assertEquals(OrderStatus.REFUND_PENDING,
+                paymentService.markPaid(order.getId(), "pi_mock_" + order.getId()).getStatus());
+        assertEquals(5, stockOf(product));
+        assertEquals(0, reservationRepository.findByOrderIdAndStatus(order.getId(), ReservationStatus.COMMITTED)
+                .size());
+    }
+
+    @Test
+    public void testCommitAfterAPartialSweepGivesBackTheRest() {
+        ProductResponse first = productService.createProduct(productRequest(5));
+        ProductResponse second = productService.createProduct(productRequest(5));
+        User user = saveUser();
+        CartItemRequest item = new CartItemRequest();
+        item.setProductId(first.getId());
+        item.setQuantity(1);
+        cartService.addToCart(user, item);
+        OrderResponse order = checkout(user, second, 2);
+        // A sweep that got to one hold of the order before the payment committed
+        jdbcTemplate.update("UPDATE stock_reservations SET status = 'RELEASED' WHERE order_id = ? AND product_id = ?",
+                order.getId(), first.getId());
+
+        assertFalse(reservationService.commit(orderRepository.findById(order.getId()).orElseThrow()));
+        assertEquals(5, stockOf(second));
+        assertEquals(2, reservationRepository.findByOrderIdAndStatus(order.getId(), ReservationStatus.RELEASED)
+                .size());
+    }
+
+    @Test
+    public void testCancellingAnOrderReleasesItsHolds() {
+        ProductResponse product = productService.createProduct(productRequest(5));
+        OrderResponse order = checkout(saveUser(), product, 4);
+
+        orderService.updateOrderStatus(order.getId(), "CANCELLED");
+
+        assertEquals(5, stockOf(product));
+    }
+
+    @Test
+    public void testCancellingAPaidOrderReturnsItsStockAndRefundsIt() {
+        ProductResponse product = productService.createProduct(productRequest(5));
+        OrderResponse order = checkout(saveUser(), product, 2);
+        paymentService.markPaid(order.getId(), "pi_mock_" + order.getId());
+        assertEquals(3, stockOf(product));
+
+        assertThrows(BadRequestException.class, () -> orderService.updateOrderStatus(order.getId(), "PENDING"));
+        assertEquals(OrderStatus.REFUND_PENDING.name(),
+                orderService.updateOrderStatus(order.getId(), "CANCELLED").getStatus());
+        assertEquals(5, stockOf(product));
+        assertEquals(1, outboxEventRepository.findByAggregateIdAndEventType(order.getId(),
+                OutboxEventType.PAYMENT_REFUND_REQUIRED).size());
+
+        // Cancelling again changes nothing, and the payment cannot bring the order back
+        orderService.updateOrderStatus(order.getId(), "CANCELLED");
+        assertEquals(5, stockOf(product));
+        assertNotEquals(OrderStatus.PAID,
+                paymentService.markPaid(order.getId(), "pi_mock_" + order.getId()).getStatus());
+    }
+
+    private OrderResponse checkout(User user, ProductResponse product, int quantity) {
+        CartItemRequest item = new CartItemRequest();
+        item.setProductId(product.getId());
+        item.setQuantity(quantity);
+        cartService.addToCart(user, item);
+
+        OrderRequest request = new OrderRequest();
+        request.setFullName("Test Buyer");
+        request.setPhoneNumber("5550100");
+        request.setStreet("1 Pitch Lane");
+        request.setCity("Leeds");
+        request.setState("West Yorkshire");
+        request.setZipCode("LS1");
+        request.setCountry("UK");
+        return orderService.createOrder(user, request);
+    }
+
+    private void expireHolds(Long orderId) {
+        jdbcTemplate.update("UPDATE stock_reservations SET expires_at = ? WHERE order_id = ?",
+                java.sql.Timestamp.valueOf(java.time.LocalDateTime.now().minusMinutes(1)), orderId);
+    }
+
+    private int stockOf(ProductResponse product) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE id = ?", Integer.class,
+                product.getId());
+    }
+
+    private User saveUser() {
+        return userRepository.save(User.builder()
+                .email("buyer-" + UUID.randomUUID() + "@example.com")
+                .password("secret")
+                .firstName("Test")
+                .lastName("Buyer")
+                .role(UserRole.ROLE_USER)
+                .build());
+    }
+
+    private ProductRequest productRequest(int stock) {
+        Category category = new Category();
+        category.setName("Reservations " + UUID.randomUUID());
+        category.setDescription("Reservations");
+        category = categoryRepository.save(category);
+
+        ProductRequest request = new ProductRequest();
+        request.setName("Held Helmet");
+        request.setDescription("Held Helmet description");
+        request.setPrice(new BigDecimal("80.00"));
+        request.setStockQuantity(stock);
+        request.setCategoryId(category.getId());
+        return request;
+    }
+}
@@ -0,0 +1,98 @@
+package com.ecommerce;
+
+import com.ecommerce.event.OrderPlacedEvent;
+import com.ecommerce.event.ProductSnapshot;
+import com.ecommerce.index.SuggestIndex;
+import com.ecommerce.index.Suggestion;
+import com.ecommerce.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SuggestIndexTest {
+
+    private SuggestIndex index;
+    private OrderRepository orderRepository;
+
+    @BeforeEach
+    public void setup() {
+        orderRepository = mock(OrderRepository.class);
+        when(orderRepository.sumUnitsSoldByProduct()).thenReturn(List.of(sales(1L, 40L), sales(2L, 5L), sales(3L, 90L)));
+        index = new SuggestIndex(orderRepository);
+        index.rebuild(List.of(
+                product(1L, "English Willow Bat", 10L, "Cricket Bats"),
+                product(2L, "Kashmir Willow Bat", 10L, "Cricket Bats"),
+                product(3L, "Batting Gloves", 20L, "Accessories"),
+                product(4L, "Leather Ball", 30L, "Balls")));
+    }
+
+    @Test
+    public void testCompletionsAreRankedByUnitsSold() {
+        assertEquals(List.of("Batting Gloves", "Cricket Bats", "English Willow Bat", "Kashmir Willow Bat"),
+                texts(index.suggest("bat", 10)));
+        assertEquals(List.of("Batting Gloves", "Cricket Bats"), texts(index.suggest("BAT", 2)));
+        assertEquals(List.of("English Willow Bat", "Kashmir Willow Bat"), texts(index.suggest("willow b", 10)));
+        // Equal scores: the shorter completion ("ball") comes before the longer one ("balls")
+        assertEquals(List.of("Leather Ball", "Balls"), texts(index.suggest("bal", 10)));
+        assertTrue(index.suggest("xyz", 10).isEmpty());
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        index.upsert(product(2L, "Kashmir Willow Paddle", 10L, "Cricket Bats"));
+        index.remove(3L);
+
+        assertEquals(List.of("Cricket Bats", "English Willow Bat"), texts(index.suggest("bat", 10)));
+        assertEquals(List.of("Kashmir Willow Paddle"), texts(index.suggest("padd", 10)));
+        assertTrue(index.suggest("glov", 10).isEmpty());
+        assertTrue(index.suggest("accessor", 10).isEmpty());
+    }
+
+    @Test
+    public void testSalesReorderCompletionsWithoutARebuild() {
+        // Placed here: Kashmir overtakes English and lifts its category past the gloves
+        index.onOrderPlaced(new OrderPlacedEvent(Map.of(2L, 50)));
+        assertEquals(List.of("Cricket Bats", "Batting Gloves", "Kashmir Willow Bat", "English Willow Bat"),
+                texts(index.suggest("bat", 10)));
+
+        // The refresh takes the order table as the truth, including sales made on other nodes
+        when(orderRepository.sumUnitsSoldByProduct()).thenReturn(List.of(sales(1L, 40L), sales(2L, 30L),
+                sales(3L, 90L), sales(4L, 200L)));
+        index.refreshPopularity();
+        assertEquals(List.of("Batting Gloves", "Cricket Bats", "English Willow Bat", "Kashmir Willow Bat"),
+                texts(index.suggest("bat", 10)));
+        assertEquals(List.of("Leather Ball", "Balls", "Batting Gloves"), texts(index.suggest("b", 3)));
+    }
+
+    private List<String> texts(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::text).toList();
+    }
+
+    private OrderRepository.ProductSales sales(Long productId, Long unitsSold) {
+        return new OrderRepository.ProductSales() {
+            @Override
+            public Long getProductId() {
+                return productId;
+            }
+
+            @Override
+            public Long getUnitsSold() {
+                return unitsSold;
+            }
+        };
+    }
+
+    private ProductSnapshot product(Long id, String name, Long categoryId, String categoryName) {
+        return new ProductSnapshot(id, name, "", new BigDecimal("10.00"), 1, categoryId, categoryName,
+                LocalDateTime.now());
+    }
+}